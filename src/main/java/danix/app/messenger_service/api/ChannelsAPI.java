@@ -9,6 +9,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
@@ -54,14 +55,14 @@ public interface ChannelsAPI {
     ResponseEntity<HttpStatus> acceptInvite(@Parameter(description = "Channel id", example = "10") int id);
 
     @Operation(summary = "Deletes channel")
-    ResponseEntity<HttpStatus> deleteChannel(@Parameter(description = "Channel id", example = "10") int id);
+    ResponseEntity<ResponseTeardownJobDTO> deleteChannel(@Parameter(description = "Channel id", example = "10") int id);
 
     @Operation(summary = "Updates channel")
     ResponseEntity<HttpStatus> updateChannel(UpdateChannelDTO updateChannelDTO, BindingResult bindingResult,
                                              @Parameter(description = "Channel id", example = "10") int id);
 
     @Operation(summary = "Returns channel image")
-    ResponseEntity<?> getChannelImage(@Parameter(description = "Channel id", example = "10") int id);
+    ResponseEntity<?> getChannelImage(@Parameter(description = "Channel id", example = "10") int id, WebRequest request);
 
     @Operation(summary = "Updates channel's image")
     ResponseEntity<HttpStatus> updateChannelImage(@Parameter(description = "Channel id", example = "10") int id,
@@ -99,6 +100,13 @@ public interface ChannelsAPI {
             @Parameter(description = "Count of posts per page", example = "10") int count
     );
 
+    @Operation(summary = "Returns newest posts from all channels of current user")
+    ResponseEntity<ResponseChannelsFeedDTO> getFeed(
+            @Parameter(description = "Cursor returned in 'next_cursor' of previous page, not required for first page")
+            String cursor,
+            @Parameter(description = "Count of posts per page", example = "10") int count
+    );
+
     @Operation(summary = "Returns channel's users")
     ResponseEntity<List<ResponseChannelUserDTO>> getChannelUsers(
             @Parameter(description = "Channel id", example = "10") int id,
@@ -182,18 +190,20 @@ public interface ChannelsAPI {
                                          }) MultipartFile audio);
 
     @Operation(summary = "Returns post file")
-    ResponseEntity<?> getPostFile(@Parameter(description = "File id", example = "30") long id);
+    ResponseEntity<?> getPostFile(@Parameter(description = "File id", example = "30") long id,
+                                  @Parameter(description = "Image preview size (128 or 512), returns original file if not set") Integer size,
+                                  WebRequest request);
 
-    @Operation(summary = "Likes post in channel")
-    ResponseEntity<HttpStatus> likePost(@Parameter(description = "Post id", example = "20") long id);
+    @Operation(summary = "Likes post in channel", description = "Returns likes delta 1 if post was liked, 0 if it was already liked")
+    ResponseEntity<ResponsePostLikesDTO> likePost(@Parameter(description = "Post id", example = "20") long id);
 
-    @Operation(summary = "Deletes post's like")
-    ResponseEntity<HttpStatus> deletePostLike(@Parameter(description = "Post id", example = "20") long id);
+    @Operation(summary = "Deletes post's like", description = "Returns likes delta -1 if like was deleted, 0 if post was not liked")
+    ResponseEntity<ResponsePostLikesDTO> deletePostLike(@Parameter(description = "Post id", example = "20") long id);
 
     @Operation(summary = "Returns post's comments")
     ResponseEntity<List<ResponseChannelPostCommentDTO>> getPostComments(
             @Parameter(description = "Post id", example = "20") long id,
-            @Parameter(description = "Page of comments", example = "0") int page,
+            @Parameter(description = "Id of the last comment of previous page, not set for the first page", example = "120") Long beforeId,
             @Parameter(description = "Count of comments per page", example = "10") int count
     );
 
@@ -231,7 +241,9 @@ public interface ChannelsAPI {
                                                 }) MultipartFile audio);
 
     @Operation(summary = "Returns comment's file")
-    ResponseEntity<?> getCommentFile(@Parameter(description = "Comment id", example = "30") long id);
+    ResponseEntity<?> getCommentFile(@Parameter(description = "Comment id", example = "30") long id,
+                                     @Parameter(description = "Image preview size (128 or 512), returns original file if not set") Integer size,
+                                     WebRequest request);
 
     @Operation(summary = "Updates post's comment")
     ResponseEntity<HttpStatus> updateComment(@Parameter(description = "Comment id", example = "30") long id,
@@ -241,7 +253,7 @@ public interface ChannelsAPI {
     ResponseEntity<HttpStatus> deleteComment(@Parameter(description = "Comment id", example = "30") long id);
 
     @Operation(summary = "Deletes post")
-    ResponseEntity<HttpStatus> deletePost(@Parameter(description = "Post id", example = "20") long id);
+    ResponseEntity<ResponseTeardownJobDTO> deletePost(@Parameter(description = "Post id", example = "20") long id);
 
     @Operation(summary = "Updates post")
     ResponseEntity<HttpStatus> updatePost(UpdateChannelPostDTO updateChannelPostDTO, BindingResult bindingResult);
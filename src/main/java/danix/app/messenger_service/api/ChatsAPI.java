@@ -2,7 +2,8 @@ package danix.app.messenger_service.api;
 
 import danix.app.messenger_service.dto.IdDTO;
 import danix.app.messenger_service.dto.MessageDTO;
-import danix.app.messenger_service.dto.ResponseChatDTO;
+import danix.app.messenger_service.dto.ResponseChatsDTO;
+import danix.app.messenger_service.dto.ResponseTeardownJobDTO;
 import danix.app.messenger_service.dto.ShowChatDTO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,28 +13,35 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.List;
 
 public interface ChatsAPI {
 
-    @Operation(summary = "Returns all user's chats")
-    ResponseEntity<List<ResponseChatDTO>> getAll();
+    @Operation(summary = "Returns user's chats ordered by last activity")
+    ResponseEntity<ResponseChatsDTO> getAll(
+            @Parameter(description = "Cursor returned in 'next_cursor' of previous page, not required for first page")
+            String cursor,
+            @Parameter(description = "Count of chats per page", example = "50") int count
+    );
 
     @Operation(
             summary = "Returns chat info",
             description = "Finds chat by id and returns its info and messages"
     )
     ResponseEntity<ShowChatDTO> show(@Parameter(description = "Chat id", example = "15") int id,
-                                     @Parameter(description = "Page of messages", example = "0") int page,
+                                     @Parameter(description = "Returns messages older than this id", example = "120")
+                                     Long beforeId,
+                                     @Parameter(description = "Returns messages newer than this id", example = "100")
+                                     Long afterId,
                                      @Parameter(description = "Count of messages per page", example = "10") int count);
 
     @Operation(
             summary = "Deletes chat",
-            description = "Finds chat by id and deletes it"
+            description = "Finds chat by id and starts deletion job, returns job which progress can be polled by id"
     )
-    ResponseEntity<HttpStatus> delete(@Parameter(description = "Chat id", example = "15") int id);
+    ResponseEntity<ResponseTeardownJobDTO> delete(@Parameter(description = "Chat id", example = "15") int id);
 
     @Operation(
             summary = "Creates chat",
@@ -95,7 +103,9 @@ public interface ChatsAPI {
             summary = "Returns messages file",
             description = "Finds message by id and returns its file"
     )
-    ResponseEntity<?> getMessageFile(@Parameter(description = "Message id", example = "20") long id);
+    ResponseEntity<?> getMessageFile(@Parameter(description = "Message id", example = "20") long id,
+                                     @Parameter(description = "Image preview size (128 or 512), returns original file if not set") Integer size,
+                                     WebRequest request);
 
     @Operation(
             summary = "Deletes message",
@@ -9,6 +9,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
@@ -34,9 +35,10 @@ public interface GroupsAPI {
             summary = "Returns group messages",
             description = "Finds group by id and returns its messages"
     )
-    ResponseEntity<List<ResponseGroupMessageDTO>> getMessages(
+    ResponseEntity<ResponseGroupMessagesDTO> getMessages(
             @Parameter(description = "Group id", example = "10") int id,
-            @Parameter(description = "Page of messages", example = "0") int page,
+            @Parameter(description = "Returns messages older than this id", example = "120") Long beforeId,
+            @Parameter(description = "Returns messages newer than this id", example = "100") Long afterId,
             @Parameter(description = "Count of messages per page", example = "10") int count
     );
 
@@ -109,7 +111,7 @@ public interface GroupsAPI {
             summary = "Returns group image",
             description = "Finds group by id and returns its image"
     )
-    ResponseEntity<?> getImage(@Parameter(description = "Group id", example = "10") int id);
+    ResponseEntity<?> getImage(@Parameter(description = "Group id", example = "10") int id, WebRequest request);
 
     @Operation(
             summary = "Deletes group image",
@@ -129,9 +131,9 @@ public interface GroupsAPI {
 
     @Operation(
             summary = "Deletes group",
-            description = "Finds group by id and deletes it"
+            description = "Finds group by id and starts deletion job, returns job which progress can be polled by id"
     )
-    ResponseEntity<HttpStatus> deleteGroup(@Parameter(description = "Group id", example = "10") int id);
+    ResponseEntity<ResponseTeardownJobDTO> deleteGroup(@Parameter(description = "Group id", example = "10") int id);
 
     @Operation(
             summary = "Updates group",
@@ -206,7 +208,9 @@ public interface GroupsAPI {
             summary = "Returns message file",
             description = "Finds message by id and returns its file"
     )
-    ResponseEntity<?> getMessageFile(@Parameter(description = "Message id", example = "20") long id);
+    ResponseEntity<?> getMessageFile(@Parameter(description = "Message id", example = "20") long id,
+                                     @Parameter(description = "Image preview size (128 or 512), returns original file if not set") Integer size,
+                                     WebRequest request);
 
     @Operation(
             summary = "Updates message",
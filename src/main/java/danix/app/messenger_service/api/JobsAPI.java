@@ -0,0 +1,15 @@
+package danix.app.messenger_service.api;
+
+import danix.app.messenger_service.dto.ResponseTeardownJobDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import org.springframework.http.ResponseEntity;
+
+public interface JobsAPI {
+
+    @Operation(
+            summary = "Returns deletion job progress",
+            description = "Returns status and progress of chat, group, channel or post deletion started by current user"
+    )
+    ResponseEntity<ResponseTeardownJobDTO> get(@Parameter(description = "Job id") String id);
+}
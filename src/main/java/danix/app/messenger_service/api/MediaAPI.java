@@ -0,0 +1,23 @@
+package danix.app.messenger_service.api;
+
+import danix.app.messenger_service.models.ContentType;
+import danix.app.messenger_service.models.MediaBucket;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+public interface MediaAPI {
+
+    @Operation(
+            summary = "Returns file by signed link",
+            description = "Validates link signature and expiration time and returns file, jwt token is not required"
+    )
+    ResponseEntity<?> getFile(@Parameter(description = "Files bucket", example = "CHATS") MediaBucket bucket,
+                              @Parameter(description = "File uuid with extension") String fileName,
+                              @Parameter(description = "File content type", example = "IMAGE") ContentType type,
+                              @Parameter(description = "Link expiration time in epoch seconds") long expires,
+                              @Parameter(description = "Link signature") String signature,
+                              @Parameter(description = "Image preview size (128 or 512), returns original file if not set") Integer size,
+                              WebRequest request);
+}
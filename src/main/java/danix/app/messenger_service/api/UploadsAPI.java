@@ -0,0 +1,43 @@
+package danix.app.messenger_service.api;
+
+import danix.app.messenger_service.dto.CreateUploadDTO;
+import danix.app.messenger_service.dto.IdDTO;
+import danix.app.messenger_service.dto.ResponseUploadDTO;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
+
+import java.io.InputStream;
+
+public interface UploadsAPI {
+
+    @Operation(
+            summary = "Creates resumable upload",
+            description = "Creates upload of file to chat, group, channel (post) or channel post (comment)"
+    )
+    ResponseEntity<ResponseUploadDTO> create(CreateUploadDTO createUploadDTO, BindingResult bindingResult);
+
+    @Operation(summary = "Returns upload's current offset, used to resume upload after failure")
+    ResponseEntity<ResponseUploadDTO> get(@Parameter(description = "Upload id") String id);
+
+    @Operation(
+            summary = "Appends chunk to upload",
+            description = "Request body is written at offset, which must be equal to the current offset of upload"
+    )
+    ResponseEntity<ResponseUploadDTO> appendChunk(@Parameter(description = "Upload id") String id,
+                                                  @Parameter(description = "Chunk offset", example = "0") long offset,
+                                                  InputStream chunk);
+
+    @Operation(
+            summary = "Finalizes upload",
+            description = "Creates message, post or comment with uploaded file"
+    )
+    @ApiResponse(description = "Created message, post or comment id")
+    ResponseEntity<IdDTO> finalizeUpload(@Parameter(description = "Upload id") String id);
+
+    @Operation(summary = "Cancels upload")
+    ResponseEntity<HttpStatus> cancel(@Parameter(description = "Upload id") String id);
+}
@@ -8,6 +8,7 @@ import io.swagger.v3.oas.annotations.parameters.RequestBody;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
@@ -18,13 +19,13 @@ public interface UserAPI {
     ResponseEntity<UserInfoDTO> getInfo();
 
     @Operation(summary = "Returns user's image")
-    ResponseEntity<?> getImage();
+    ResponseEntity<?> getImage(WebRequest request);
 
     @Operation(
             summary = "Returns user's image",
             description = "Finds user by id and returns his image"
     )
-    ResponseEntity<?> getImage(@Parameter(description = "User ID", example = "10") int id);
+    ResponseEntity<?> getImage(@Parameter(description = "User ID", example = "10") int id, WebRequest request);
 
     @Operation(summary = "Updates user's image")
     ResponseEntity<HttpStatus> updateImage(@RequestBody(description = "New user's image in form data",
@@ -42,6 +43,9 @@ public interface UserAPI {
     @Operation(summary = "Returns user's notifications")
     ResponseEntity<List<ResponseAppMessageDTO>> getNotifications();
 
+    @Operation(summary = "Returns counts of unread messages of user's chats and groups")
+    ResponseEntity<List<ResponseUnreadCountDTO>> getUnreadCounts();
+
     @Operation(summary = "Returns user's friend requests")
     ResponseEntity<List<ResponseUserDTO>> getFriendRequests();
 
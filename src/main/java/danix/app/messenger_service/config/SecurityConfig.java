@@ -31,7 +31,7 @@ public class SecurityConfig {
                 .authorizeHttpRequests(requests -> requests
                         .requestMatchers("/auth/login", "/auth/registration", "/auth/registration/accept",
                                 "/auth/password","/error", "/ws/**", "/swagger-ui/**",
-                                "/v3/api-docs/**").permitAll()
+                                "/v3/api-docs/**", "/media/**").permitAll()
                         .anyRequest()
                         .hasAnyRole("USER", "ADMIN"))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
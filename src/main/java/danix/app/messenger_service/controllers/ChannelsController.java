@@ -5,9 +5,11 @@ import danix.app.messenger_service.dto.*;
 import danix.app.messenger_service.models.ContentType;
 import danix.app.messenger_service.services.ChannelsPostsService;
 import danix.app.messenger_service.services.ChannelsService;
+import danix.app.messenger_service.services.TeardownJobsService;
 import danix.app.messenger_service.util.AbstractException;
 import danix.app.messenger_service.util.ErrorHandler;
 import danix.app.messenger_service.util.ErrorResponse;
+import danix.app.messenger_service.util.FilesResponseBuilder;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -15,6 +17,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
@@ -29,6 +32,7 @@ import static danix.app.messenger_service.util.ExceptionType.MESSAGE_EXCEPTION;
 public class ChannelsController implements ChannelsAPI {
     private final ChannelsService channelsService;
     private final ChannelsPostsService channelsPostsService;
+    private final FilesResponseBuilder filesResponseBuilder;
 
     @Override
     @GetMapping
@@ -86,9 +90,9 @@ public class ChannelsController implements ChannelsAPI {
 
     @Override
     @DeleteMapping("/{id}")
-    public ResponseEntity<HttpStatus> deleteChannel(@PathVariable int id) {
-        channelsService.deleteChannel(id);
-        return new ResponseEntity<>(HttpStatus.OK);
+    public ResponseEntity<ResponseTeardownJobDTO> deleteChannel(@PathVariable int id) {
+        return new ResponseEntity<>(TeardownJobsService.convertToResponseTeardownJobDTO(channelsService.deleteChannel(id)),
+                HttpStatus.ACCEPTED);
     }
 
     @Override
@@ -156,6 +160,13 @@ public class ChannelsController implements ChannelsAPI {
         return new ResponseEntity<>(channelsPostsService.getByChannel(id, page, count), HttpStatus.OK);
     }
 
+    @Override
+    @GetMapping("/feed")
+    public ResponseEntity<ResponseChannelsFeedDTO> getFeed(@RequestParam(required = false) String cursor,
+                                                           @RequestParam int count) {
+        return new ResponseEntity<>(channelsPostsService.getFeed(cursor, count), HttpStatus.OK);
+    }
+
     @Override
     @GetMapping("/{id}/users")
     public ResponseEntity<List<ResponseChannelUserDTO>> getChannelUsers(@PathVariable int id, @RequestParam int page, @RequestParam int count) {
@@ -170,11 +181,9 @@ public class ChannelsController implements ChannelsAPI {
 
     @Override
     @GetMapping("/{id}/image")
-    public ResponseEntity<?> getChannelImage(@PathVariable int id) {
+    public ResponseEntity<?> getChannelImage(@PathVariable int id, WebRequest request) {
         ResponseFileDTO image = channelsService.getImage(id);
-        return ResponseEntity.status(HttpStatus.OK)
-                .contentType(image.getType())
-                .body(image.getFileData());
+        return filesResponseBuilder.buildAvatar(image, request);
     }
 
     @Override
@@ -262,32 +271,31 @@ public class ChannelsController implements ChannelsAPI {
 
     @Override
     @GetMapping("/post/file/{id}")
-    public ResponseEntity<?> getPostFile(@PathVariable long id) {
+    public ResponseEntity<?> getPostFile(@PathVariable long id, @RequestParam(value = "size", required = false) Integer size,
+                                         WebRequest request) {
         ResponseFileDTO file = channelsPostsService.getPostFile(id);
-        return ResponseEntity.status(HttpStatus.OK)
-                .contentType(file.getType())
-                .body(file.getFileData());
+        return filesResponseBuilder.build(file, size, request);
     }
 
     @Override
     @PostMapping("/post/{id}/like")
-    public ResponseEntity<HttpStatus> likePost(@PathVariable long id) {
-        channelsPostsService.addPostLike(id);
-        return new ResponseEntity<>(HttpStatus.CREATED);
+    public ResponseEntity<ResponsePostLikesDTO> likePost(@PathVariable long id) {
+        ResponsePostLikesDTO likesDTO = channelsPostsService.addPostLike(id);
+        return new ResponseEntity<>(likesDTO, likesDTO.getLikesDelta() != 0 ? HttpStatus.CREATED : HttpStatus.OK);
     }
 
     @Override
     @DeleteMapping("/post/{id}/like")
-    public ResponseEntity<HttpStatus> deletePostLike(@PathVariable long id) {
-        channelsPostsService.deletePostLike(id);
-        return new ResponseEntity<>(HttpStatus.OK);
+    public ResponseEntity<ResponsePostLikesDTO> deletePostLike(@PathVariable long id) {
+        return new ResponseEntity<>(channelsPostsService.deletePostLike(id), HttpStatus.OK);
     }
 
     @Override
     @GetMapping("/post/{id}/comments")
-    public ResponseEntity<List<ResponseChannelPostCommentDTO>> getPostComments(@PathVariable long id, @RequestParam int page,
+    public ResponseEntity<List<ResponseChannelPostCommentDTO>> getPostComments(@PathVariable long id,
+                                                                            @RequestParam(value = "before_id", required = false) Long beforeId,
                                                                             @RequestParam int count) {
-        return ResponseEntity.ok(channelsPostsService.getPostComments(id, page, count));
+        return ResponseEntity.ok(channelsPostsService.getPostComments(id, beforeId, count));
     }
 
     @Override
@@ -329,11 +337,10 @@ public class ChannelsController implements ChannelsAPI {
 
     @Override
     @GetMapping("/post/comment/{id}/file")
-    public ResponseEntity<?> getCommentFile(@PathVariable long id) {
+    public ResponseEntity<?> getCommentFile(@PathVariable long id, @RequestParam(value = "size", required = false) Integer size,
+                                            WebRequest request) {
         ResponseFileDTO file = channelsPostsService.getCommentFile(id);
-        return ResponseEntity.status(HttpStatus.OK)
-                .contentType(file.getType())
-                .body(file.getFileData());
+        return filesResponseBuilder.build(file, size, request);
     }
 
     @Override
@@ -363,9 +370,9 @@ public class ChannelsController implements ChannelsAPI {
 
     @Override
     @DeleteMapping("/post/{id}")
-    public ResponseEntity<HttpStatus> deletePost(@PathVariable long id) {
-        channelsPostsService.deletePost(id);
-        return new ResponseEntity<>(HttpStatus.OK);
+    public ResponseEntity<ResponseTeardownJobDTO> deletePost(@PathVariable long id) {
+        return new ResponseEntity<>(TeardownJobsService.convertToResponseTeardownJobDTO(channelsPostsService.deletePost(id)),
+                HttpStatus.ACCEPTED);
     }
 
     @ExceptionHandler
@@ -4,6 +4,7 @@ import danix.app.messenger_service.api.ChatsAPI;
 import danix.app.messenger_service.dto.*;
 import danix.app.messenger_service.models.ContentType;
 import danix.app.messenger_service.services.ChatsService;
+import danix.app.messenger_service.services.TeardownJobsService;
 import danix.app.messenger_service.services.ChatsMessagesService;
 import danix.app.messenger_service.util.*;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -13,9 +14,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
@@ -24,25 +25,28 @@ import java.util.List;
 public class ChatsController implements ChatsAPI {
     private final ChatsService chatsService;
     private final ChatsMessagesService chatsMessagesService;
+    private final FilesResponseBuilder filesResponseBuilder;
 
     @Override
     @GetMapping
-    public ResponseEntity<List<ResponseChatDTO>> getAll() {
-        return new ResponseEntity<>(chatsService.getAllUserChats(), HttpStatus.OK);
+    public ResponseEntity<ResponseChatsDTO> getAll(@RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "50") int count) {
+        return new ResponseEntity<>(chatsService.getAllUserChats(cursor, count), HttpStatus.OK);
     }
 
     @Override
     @GetMapping("/{id}")
-    public ResponseEntity<ShowChatDTO> show(@PathVariable int id, @RequestParam("page") int page,
-                                                @RequestParam("count") int count) {
-        return new ResponseEntity<>(chatsService.showChat(id, page, count), HttpStatus.OK);
+    public ResponseEntity<ShowChatDTO> show(@PathVariable int id,
+                                            @RequestParam(value = "before_id", required = false) Long beforeId,
+                                            @RequestParam(value = "after_id", required = false) Long afterId,
+                                            @RequestParam("count") int count) {
+        return new ResponseEntity<>(chatsService.showChat(id, beforeId, afterId, count), HttpStatus.OK);
     }
 
     @Override
     @DeleteMapping("/{id}")
-    public ResponseEntity<HttpStatus> delete(@PathVariable int id) {
-        chatsService.deleteChat(id);
-        return new ResponseEntity<>(HttpStatus.OK);
+    public ResponseEntity<ResponseTeardownJobDTO> delete(@PathVariable int id) {
+        return new ResponseEntity<>(TeardownJobsService.convertToResponseTeardownJobDTO(chatsService.deleteChat(id)), HttpStatus.ACCEPTED);
     }
 
     @Override
@@ -107,11 +111,10 @@ public class ChatsController implements ChatsAPI {
 
     @Override
     @GetMapping("/message/{id}/file")
-    public ResponseEntity<?> getMessageFile(@PathVariable long id) {
+    public ResponseEntity<?> getMessageFile(@PathVariable long id, @RequestParam(value = "size", required = false) Integer size,
+                                            WebRequest request) {
         ResponseFileDTO image = chatsMessagesService.getMessageFile(id);
-        return ResponseEntity.status(HttpStatus.OK)
-                .contentType(image.getType())
-                .body(image.getFileData());
+        return filesResponseBuilder.build(image, size, request);
     }
 
     @ExceptionHandler
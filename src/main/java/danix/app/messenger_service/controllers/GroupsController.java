@@ -5,6 +5,7 @@ import danix.app.messenger_service.dto.*;
 import danix.app.messenger_service.models.ContentType;
 import danix.app.messenger_service.services.GroupsMessagesService;
 import danix.app.messenger_service.services.GroupsService;
+import danix.app.messenger_service.services.TeardownJobsService;
 import danix.app.messenger_service.util.*;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -13,6 +14,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
@@ -24,6 +26,7 @@ import java.util.List;
 public class GroupsController implements GroupsAPI {
     private final GroupsService groupsService;
     private final GroupsMessagesService groupsMessagesService;
+    private final FilesResponseBuilder filesResponseBuilder;
 
     @Override
     @GetMapping
@@ -45,9 +48,11 @@ public class GroupsController implements GroupsAPI {
 
     @Override
     @GetMapping("/{id}/messages")
-    public ResponseEntity<List<ResponseGroupMessageDTO>> getMessages(@PathVariable int id, @RequestParam int page,
-                                                                     @RequestParam int count) {
-        return new ResponseEntity<>(groupsMessagesService.getMessages(id, page, count), HttpStatus.OK);
+    public ResponseEntity<ResponseGroupMessagesDTO> getMessages(@PathVariable int id,
+                                                                @RequestParam(value = "before_id", required = false) Long beforeId,
+                                                                @RequestParam(value = "after_id", required = false) Long afterId,
+                                                                @RequestParam int count) {
+        return new ResponseEntity<>(groupsMessagesService.getMessages(id, beforeId, afterId, count), HttpStatus.OK);
     }
 
     @Override
@@ -117,11 +122,9 @@ public class GroupsController implements GroupsAPI {
 
     @Override
     @GetMapping("/{id}/image")
-    public ResponseEntity<?> getImage(@PathVariable int id) {
+    public ResponseEntity<?> getImage(@PathVariable int id, WebRequest request) {
         ResponseFileDTO image = groupsService.getImage(id);
-        return ResponseEntity.status(HttpStatus.OK)
-                .contentType(image.getType())
-                .body(image.getFileData());
+        return filesResponseBuilder.buildAvatar(image, request);
     }
 
     @Override
@@ -140,9 +143,9 @@ public class GroupsController implements GroupsAPI {
 
     @Override
     @DeleteMapping("/{id}")
-    public ResponseEntity<HttpStatus> deleteGroup(@PathVariable("id") int groupId) {
-        groupsService.deleteGroup(groupId);
-        return new ResponseEntity<>(HttpStatus.OK);
+    public ResponseEntity<ResponseTeardownJobDTO> deleteGroup(@PathVariable("id") int groupId) {
+        return new ResponseEntity<>(TeardownJobsService.convertToResponseTeardownJobDTO(groupsService.deleteGroup(groupId)),
+                HttpStatus.ACCEPTED);
     }
 
     @Override
@@ -207,11 +210,10 @@ public class GroupsController implements GroupsAPI {
 
     @Override
     @GetMapping("/message/{id}/file")
-    public ResponseEntity<?> getMessageFile(@PathVariable long id) {
+    public ResponseEntity<?> getMessageFile(@PathVariable long id, @RequestParam(value = "size", required = false) Integer size,
+                                            WebRequest request) {
         ResponseFileDTO image = groupsMessagesService.getFile(id);
-        return ResponseEntity.status(HttpStatus.OK)
-                .contentType(image.getType())
-                .body(image.getFileData());
+        return filesResponseBuilder.build(image, size, request);
     }
 
     @Override
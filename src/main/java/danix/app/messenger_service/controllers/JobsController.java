@@ -0,0 +1,31 @@
+package danix.app.messenger_service.controllers;
+
+import danix.app.messenger_service.api.JobsAPI;
+import danix.app.messenger_service.dto.ResponseTeardownJobDTO;
+import danix.app.messenger_service.services.TeardownJobsService;
+import danix.app.messenger_service.util.AbstractException;
+import danix.app.messenger_service.util.ErrorResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/jobs")
+@Tag(name = "Jobs", description = "Deletion jobs API")
+public class JobsController implements JobsAPI {
+    private final TeardownJobsService teardownJobsService;
+
+    @Override
+    @GetMapping("/{id}")
+    public ResponseEntity<ResponseTeardownJobDTO> get(@PathVariable String id) {
+        return new ResponseEntity<>(teardownJobsService.getJob(id), HttpStatus.OK);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> handleException(AbstractException e) {
+        return new ResponseEntity<>(new ErrorResponse(e.getMessage()), HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,45 @@
+package danix.app.messenger_service.controllers;
+
+import danix.app.messenger_service.api.MediaAPI;
+import danix.app.messenger_service.models.ContentType;
+import danix.app.messenger_service.models.MediaBucket;
+import danix.app.messenger_service.services.MediaService;
+import danix.app.messenger_service.util.AbstractException;
+import danix.app.messenger_service.util.AuthenticationException;
+import danix.app.messenger_service.util.ErrorResponse;
+import danix.app.messenger_service.util.FilesResponseBuilder;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/media")
+@Tag(name = "Media", description = "Signed media links API")
+public class MediaController implements MediaAPI {
+    private final MediaService mediaService;
+    private final FilesResponseBuilder filesResponseBuilder;
+
+    @Override
+    @GetMapping("/{bucket}/{fileName}")
+    public ResponseEntity<?> getFile(@PathVariable MediaBucket bucket, @PathVariable String fileName,
+                                     @RequestParam("type") ContentType type, @RequestParam("expires") long expires,
+                                     @RequestParam("signature") String signature,
+                                     @RequestParam(value = "size", required = false) Integer size, WebRequest request) {
+        return filesResponseBuilder.build(mediaService.getFile(bucket, fileName, type, expires, signature), size,
+                request);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> handleException(AuthenticationException e) {
+        return new ResponseEntity<>(new ErrorResponse(e.getMessage()), HttpStatus.FORBIDDEN);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> handleException(AbstractException e) {
+        return new ResponseEntity<>(new ErrorResponse(e.getMessage()), HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,68 @@
+package danix.app.messenger_service.controllers;
+
+import danix.app.messenger_service.api.UploadsAPI;
+import danix.app.messenger_service.dto.CreateUploadDTO;
+import danix.app.messenger_service.dto.IdDTO;
+import danix.app.messenger_service.dto.ResponseUploadDTO;
+import danix.app.messenger_service.services.UploadsService;
+import danix.app.messenger_service.util.AbstractException;
+import danix.app.messenger_service.util.ErrorHandler;
+import danix.app.messenger_service.util.ErrorResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+
+import static danix.app.messenger_service.util.ExceptionType.FILE_EXCEPTION;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/uploads")
+@Tag(name = "Uploads", description = "Resumable uploads API")
+public class UploadsController implements UploadsAPI {
+    private final UploadsService uploadsService;
+
+    @Override
+    @PostMapping
+    public ResponseEntity<ResponseUploadDTO> create(@RequestBody @Valid CreateUploadDTO createUploadDTO,
+                                                    BindingResult bindingResult) {
+        ErrorHandler.handleException(bindingResult, FILE_EXCEPTION);
+        return new ResponseEntity<>(uploadsService.create(createUploadDTO), HttpStatus.CREATED);
+    }
+
+    @Override
+    @GetMapping("/{id}")
+    public ResponseEntity<ResponseUploadDTO> get(@PathVariable String id) {
+        return new ResponseEntity<>(uploadsService.getUpload(id), HttpStatus.OK);
+    }
+
+    @Override
+    @PutMapping("/{id}")
+    public ResponseEntity<ResponseUploadDTO> appendChunk(@PathVariable String id, @RequestParam("offset") long offset,
+                                                         InputStream chunk) {
+        return new ResponseEntity<>(uploadsService.appendChunk(id, offset, chunk), HttpStatus.OK);
+    }
+
+    @Override
+    @PostMapping("/{id}/finalize")
+    public ResponseEntity<IdDTO> finalizeUpload(@PathVariable String id) {
+        return new ResponseEntity<>(new IdDTO(uploadsService.finalizeUpload(id)), HttpStatus.CREATED);
+    }
+
+    @Override
+    @DeleteMapping("/{id}")
+    public ResponseEntity<HttpStatus> cancel(@PathVariable String id) {
+        uploadsService.cancel(id);
+        return ResponseEntity.ok(HttpStatus.OK);
+    }
+
+    @ExceptionHandler
+    public ResponseEntity<ErrorResponse> handleException(AbstractException e) {
+        return new ResponseEntity<>(new ErrorResponse(e.getMessage()), HttpStatus.BAD_REQUEST);
+    }
+}
@@ -3,6 +3,7 @@ package danix.app.messenger_service.controllers;
 import danix.app.messenger_service.api.UserAPI;
 import danix.app.messenger_service.dto.*;
 import danix.app.messenger_service.models.User;
+import danix.app.messenger_service.services.UnreadCountersService;
 import danix.app.messenger_service.services.UserService;
 import danix.app.messenger_service.util.*;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -15,6 +16,7 @@ import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.util.List;
@@ -31,6 +33,8 @@ public class UserController implements UserAPI {
     private final UserService userService;
     private final PasswordValidator passwordValidator;
     private final PasswordEncoder passwordEncoder;
+    private final FilesResponseBuilder filesResponseBuilder;
+    private final UnreadCountersService unreadCountersService;
 
     @Override
     @GetMapping("/info")
@@ -40,20 +44,16 @@ public class UserController implements UserAPI {
 
     @Override
     @GetMapping("/image")
-    public ResponseEntity<?> getImage() {
+    public ResponseEntity<?> getImage(WebRequest request) {
         ResponseFileDTO image = userService.getImage(UserService.getCurrentUser().getId());
-        return ResponseEntity.status(HttpStatus.OK)
-                .contentType(image.getType())
-                .body(image.getFileData());
+        return filesResponseBuilder.buildAvatar(image, request);
     }
 
     @Override
     @GetMapping("/image/{id}")
-    public ResponseEntity<?> getImage(@PathVariable int id) {
+    public ResponseEntity<?> getImage(@PathVariable int id, WebRequest request) {
         ResponseFileDTO image = userService.getImage(id);
-        return ResponseEntity.status(HttpStatus.OK)
-                .contentType(image.getType())
-                .body(image.getFileData());
+        return filesResponseBuilder.buildAvatar(image, request);
     }
 
     @Override
@@ -83,6 +83,12 @@ public class UserController implements UserAPI {
         return new ResponseEntity<>(userService.getAppMessages(), HttpStatus.OK);
     }
 
+    @Override
+    @GetMapping("/unread")
+    public ResponseEntity<List<ResponseUnreadCountDTO>> getUnreadCounts() {
+        return new ResponseEntity<>(unreadCountersService.getUnreadCounts(), HttpStatus.OK);
+    }
+
     @Override
     @GetMapping("/friends/requests")
     public ResponseEntity<List<ResponseUserDTO>> getFriendRequests() {
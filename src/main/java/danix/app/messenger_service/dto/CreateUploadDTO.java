@@ -0,0 +1,29 @@
+package danix.app.messenger_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import danix.app.messenger_service.models.ContentType;
+import danix.app.messenger_service.models.Upload;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class CreateUploadDTO {
+    @NotNull(message = "Target can't be empty")
+    private Upload.Target target;
+    @NotNull(message = "Target id can't be empty")
+    @JsonProperty("target_id")
+    private Long targetId;
+    @NotNull(message = "Content type can't be empty")
+    @JsonProperty("content_type")
+    private ContentType contentType;
+    @NotEmpty(message = "File name can't be empty")
+    @JsonProperty("file_name")
+    private String fileName;
+    @NotNull(message = "Size can't be empty")
+    @Positive(message = "Size must be positive")
+    private Long size;
+}
@@ -0,0 +1,11 @@
+package danix.app.messenger_service.dto;
+
+public record OrphanedFilesReportDTO(long scannedFiles, long orphanedFiles, long orphanedBytes, long reclaimedBytes) {
+
+    public static final OrphanedFilesReportDTO EMPTY = new OrphanedFilesReportDTO(0, 0, 0, 0);
+
+    public OrphanedFilesReportDTO plus(OrphanedFilesReportDTO report) {
+        return new OrphanedFilesReportDTO(scannedFiles + report.scannedFiles, orphanedFiles + report.orphanedFiles,
+                orphanedBytes + report.orphanedBytes, reclaimedBytes + report.reclaimedBytes);
+    }
+}
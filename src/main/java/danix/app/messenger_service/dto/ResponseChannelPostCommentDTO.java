@@ -17,4 +17,6 @@ public class ResponseChannelPostCommentDTO {
     private ResponseUserDTO owner;
     @JsonProperty("created_at")
     private LocalDateTime createdAt;
+    @JsonProperty("file_url")
+    private String fileUrl;
 }
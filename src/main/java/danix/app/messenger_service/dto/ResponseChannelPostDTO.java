@@ -10,9 +10,11 @@ import java.util.List;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class ResponseChannelPostDTO {
     private long id;
+    @JsonProperty("channel_id")
+    private int channelId;
     private String text;
     @JsonProperty("comments_count")
     private int commentsCount;
@@ -1,5 +1,6 @@
 package danix.app.messenger_service.dto;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -7,8 +8,11 @@ import lombok.Setter;
 @Setter
 public class ResponseChannelPostFilesDTO {
     private long id;
+    @JsonProperty("file_url")
+    private String fileUrl;
 
-    public ResponseChannelPostFilesDTO(long id) {
+    public ResponseChannelPostFilesDTO(long id, String fileUrl) {
         this.id = id;
+        this.fileUrl = fileUrl;
     }
 }
@@ -1,11 +1,25 @@
 package danix.app.messenger_service.dto;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import danix.app.messenger_service.models.ContentType;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.time.LocalDateTime;
+
 @Getter
 @Setter
 public class ResponseChatDTO {
     private ResponseUserDTO user;
     private int id;
+    @JsonProperty("last_message_id")
+    private Long lastMessageId;
+    @JsonProperty("last_message")
+    private String lastMessagePreview;
+    @JsonProperty("last_message_type")
+    private ContentType lastMessageType;
+    @JsonProperty("last_activity_at")
+    private LocalDateTime lastActivityAt;
+    @JsonProperty("unread_count")
+    private int unreadCount;
 }
@@ -22,4 +22,6 @@ public class ResponseChatMessageDTO {
     @JsonProperty("type")
     private ContentType contentType;
     private ResponseUserDTO sender;
+    @JsonProperty("file_url")
+    private String fileUrl;
 }
@@ -0,0 +1,16 @@
+package danix.app.messenger_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class ResponseChatReadDTO {
+    @JsonProperty("user_id")
+    private int userId;
+    @JsonProperty("last_read_message_id")
+    private long lastReadMessageId;
+}
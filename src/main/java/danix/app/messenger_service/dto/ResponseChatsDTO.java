@@ -0,0 +1,17 @@
+package danix.app.messenger_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class ResponseChatsDTO {
+    private List<ResponseChatDTO> chats;
+    @JsonProperty("next_cursor")
+    private String nextCursor;
+}
@@ -5,10 +5,13 @@ import lombok.Getter;
 import lombok.Setter;
 import org.springframework.http.MediaType;
 
+import java.nio.file.Path;
+
 @Getter
 @Setter
 @AllArgsConstructor
 public class ResponseFileDTO {
-    private byte[] fileData;
+    private String uuid;
+    private Path file;
     private MediaType type;
 }
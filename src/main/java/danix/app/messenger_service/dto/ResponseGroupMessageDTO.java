@@ -15,4 +15,6 @@ public class ResponseGroupMessageDTO {
     private LocalDateTime sentTime;
     @JsonProperty("content_type")
     private ContentType contentType;
+    @JsonProperty("file_url")
+    private String fileUrl;
 }
@@ -0,0 +1,17 @@
+package danix.app.messenger_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class ResponseGroupMessagesDTO {
+    private List<ResponseGroupMessageDTO> messages;
+    @JsonProperty("next_cursor")
+    private Long nextCursor;
+}
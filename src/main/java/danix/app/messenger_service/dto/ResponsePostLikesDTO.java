@@ -0,0 +1,16 @@
+package danix.app.messenger_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class ResponsePostLikesDTO {
+    @JsonProperty("post_id")
+    private long postId;
+    @JsonProperty("likes_delta")
+    private int likesDelta;
+}
@@ -0,0 +1,26 @@
+package danix.app.messenger_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import danix.app.messenger_service.util.TeardownJob;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+public class ResponseTeardownJobDTO {
+    private String id;
+    private TeardownJob.Type type;
+    @JsonProperty("target_id")
+    private long targetId;
+    private TeardownJob.Status status;
+    @JsonProperty("processed_rows")
+    private long processedRows;
+    @JsonProperty("deleted_files")
+    private long deletedFiles;
+    @JsonProperty("created_at")
+    private LocalDateTime createdAt;
+    @JsonProperty("finished_at")
+    private LocalDateTime finishedAt;
+}
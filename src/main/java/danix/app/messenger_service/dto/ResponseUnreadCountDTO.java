@@ -0,0 +1,20 @@
+package danix.app.messenger_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class ResponseUnreadCountDTO {
+    private Type type;
+    private int id;
+    @JsonProperty("unread_count")
+    private int unreadCount;
+
+    public enum Type {
+        CHAT, GROUP
+    }
+}
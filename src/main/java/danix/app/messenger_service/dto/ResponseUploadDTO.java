@@ -0,0 +1,14 @@
+package danix.app.messenger_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class ResponseUploadDTO {
+    private String id;
+    private long offset;
+    private long size;
+}
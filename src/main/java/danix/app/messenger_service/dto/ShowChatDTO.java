@@ -13,6 +13,8 @@ public class ShowChatDTO {
     private int id;
     private List<ResponseChatMessageDTO> messages;
     private ResponseUserDTO user;
+    @JsonProperty("next_cursor")
+    private Long nextCursor;
     @JsonProperty("web_socket")
     private String webSocketUUID;
 }
@@ -0,0 +1,4 @@
+package danix.app.messenger_service.dto;
+
+public record StoredFileDTO(String uuid, String extension) {
+}
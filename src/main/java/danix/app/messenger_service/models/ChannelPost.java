@@ -47,4 +47,11 @@ public class ChannelPost {
 
     @OneToMany(mappedBy = "post")
     private List<ChannelPostLike> likes;
+
+    // Maintained only by ChannelsPostsRepository queries, never written from the entity
+    @Column(name = "likes_count", insertable = false, updatable = false)
+    private int likesCount;
+
+    @Column(name = "comments_count", insertable = false, updatable = false)
+    private int commentsCount;
 }
@@ -37,4 +37,7 @@ public class ChannelPostComment {
     @Enumerated(EnumType.STRING)
     @Column(name = "content_type")
     private ContentType contentType;
+
+    @Column(name = "file_extension")
+    private String fileExtension;
 }
@@ -24,4 +24,7 @@ public class ChannelPostFile {
     @Enumerated(EnumType.STRING)
     @Column(name = "content_type")
     private ContentType contentType;
+
+    @Column(name = "file_extension")
+    private String fileExtension;
 }
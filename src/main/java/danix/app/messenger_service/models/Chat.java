@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
@@ -28,6 +29,32 @@ public class Chat {
     @Column(name = "web_socket_uuid")
     private String webSocketUUID;
 
+    // Changed only by ChatsRepository.markRead, so a flush can't move them back
+    @Column(name = "user1_last_read_message_id", insertable = false, updatable = false)
+    private long user1LastReadMessageId;
+
+    @Column(name = "user2_last_read_message_id", insertable = false, updatable = false)
+    private long user2LastReadMessageId;
+
+    @Column(name = "user1_unread_count", insertable = false, updatable = false)
+    private int user1UnreadCount;
+
+    @Column(name = "user2_unread_count", insertable = false, updatable = false)
+    private int user2UnreadCount;
+
+    @Column(name = "last_message_id", insertable = false, updatable = false)
+    private Long lastMessageId;
+
+    @Column(name = "last_message_preview", insertable = false, updatable = false)
+    private String lastMessagePreview;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "last_message_type", insertable = false, updatable = false)
+    private ContentType lastMessageType;
+
+    @Column(name = "last_activity_at", insertable = false, updatable = false)
+    private LocalDateTime lastActivityAt;
+
     @OneToMany(mappedBy = "chat")
     private List<ChatMessage> messages;
 
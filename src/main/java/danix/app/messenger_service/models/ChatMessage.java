@@ -33,10 +33,10 @@ public class ChatMessage {
     @Column(name = "sent_time")
     private LocalDateTime sentTime;
 
-    @Column(name = "is_read")
-    private boolean isRead;
-
     @Enumerated(EnumType.STRING)
     @Column(name = "content_type")
     private ContentType contentType;
+
+    @Column(name = "file_extension")
+    private String fileExtension;
 }
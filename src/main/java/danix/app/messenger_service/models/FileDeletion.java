@@ -0,0 +1,37 @@
+package danix.app.messenger_service.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "files_deletions")
+@Data
+@NoArgsConstructor
+public class FileDeletion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private long id;
+
+    @Column(name = "files_path")
+    private String filesPath;
+
+    @Column(name = "file_uuid")
+    private String fileUUID;
+
+    @Column(name = "file_extension")
+    private String fileExtension;
+
+    @Column(name = "attempts")
+    private int attempts;
+
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+}
@@ -35,4 +35,7 @@ public class GroupMessage {
     @Enumerated(EnumType.STRING)
     @Column(name = "content_type")
     private ContentType contentType;
+
+    @Column(name = "file_extension")
+    private String fileExtension;
 }
@@ -27,6 +27,12 @@ public class GroupUser {
     @Column(name = "is_admin")
     private boolean isAdmin;
 
+    @Column(name = "last_read_message_id", insertable = false, updatable = false)
+    private long lastReadMessageId;
+
+    @Column(name = "unread_count", insertable = false, updatable = false)
+    private int unreadCount;
+
     public String getUsername() {
         return user.getUsername();
     }
@@ -0,0 +1,30 @@
+package danix.app.messenger_service.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "media_blobs")
+@Data
+@NoArgsConstructor
+public class MediaBlob {
+
+    @Id
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Column(name = "ref_count")
+    private int refCount;
+
+    @Column(name = "size")
+    private long size;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Column(name = "referenced_at")
+    private LocalDateTime referencedAt;
+}
@@ -0,0 +1,8 @@
+package danix.app.messenger_service.models;
+
+public enum MediaBucket {
+    CHATS,
+    GROUPS,
+    CHANNELS_POSTS,
+    CHANNELS_POSTS_COMMENTS
+}
@@ -0,0 +1,58 @@
+package danix.app.messenger_service.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "uploads")
+@Data
+@NoArgsConstructor
+public class Upload {
+
+    @Id
+    @Column(name = "id")
+    private String id;
+
+    @ManyToOne
+    @JoinColumn(name = "owner_id", referencedColumnName = "id")
+    private User owner;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "target")
+    private Target target;
+
+    @Column(name = "target_id")
+    private long targetId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "content_type")
+    private ContentType contentType;
+
+    @Column(name = "file_name")
+    private String fileName;
+
+    @Column(name = "size")
+    private long size;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private Status status;
+
+    public enum Target {
+        CHAT,
+        GROUP,
+        CHANNEL,
+        CHANNEL_POST
+    }
+
+    public enum Status {
+        OPEN,
+        FINALIZING
+    }
+}
@@ -5,16 +5,67 @@ import danix.app.messenger_service.models.ChannelPostComment;
 import danix.app.messenger_service.models.ContentType;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ChannelsPostsCommentsRepository extends JpaRepository<ChannelPostComment, Long> {
 
-    List<ChannelPostComment> findAllByPost(ChannelPost post, Pageable pageable);
+    /**
+     * Returns comments of the post older than {@code beforeId}, newest first, together with their owners.
+     */
+    @Query("""
+            select c.id as id, c.text as text, c.contentType as contentType, c.fileExtension as fileExtension,
+                   c.createdAt as createdAt, u.id as ownerId, u.username as ownerUsername,
+                   u.onlineStatus as ownerOnlineStatus, u.isBanned as ownerBanned
+            from ChannelPostComment c join c.owner o join o.user u
+            where c.post.id = :postId and c.id < :beforeId
+            order by c.id desc
+            """)
+    List<PostCommentProjection> findPostComments(@Param("postId") long postId, @Param("beforeId") long beforeId,
+                                                 Pageable pageable);
 
     List<ChannelPostComment> findAllByPostAndContentTypeIsNot(ChannelPost post, ContentType contentType, Pageable pageable);
 
-    int countByPost(ChannelPost post);
+    @Query(value = "select c.comment from channels_posts_comments c where c.content_type <> 'TEXT' and c.comment in (:files)",
+            nativeQuery = true)
+    List<String> findReferencedFiles(@Param("files") Collection<String> files);
+
+    /**
+     * Deletes up to {@code limit} comments of the channel posts with id in ({@code afterPostId}, {@code toPostId}]
+     * ordered by (post_id, id) after ({@code lastPostId}, {@code lastId}), and schedules deletion of their files
+     * in the same statement. Chunks follow the (post_id, id) index, so posts with many comments are deleted
+     * in several bounded statements.
+     */
+    @Query(value = """
+            WITH chunk AS (SELECT c.post_id, c.id FROM channels_posts_comments c JOIN channels_posts p ON p.id = c.post_id
+                           WHERE p.channel_id = :channelId AND c.post_id > :afterPostId AND c.post_id <= :toPostId
+                             AND (c.post_id, c.id) > (:lastPostId, :lastId)
+                           ORDER BY c.post_id, c.id LIMIT :limit),
+                 deleted AS (DELETE FROM channels_posts_comments WHERE id IN (SELECT id FROM chunk)
+                             RETURNING comment, content_type, file_extension),
+                 files AS (INSERT INTO files_deletions (files_path, file_uuid, file_extension, attempts, next_attempt_at, created_at)
+                           SELECT CASE content_type WHEN 'IMAGE' THEN :imagesPath WHEN 'VIDEO' THEN :videosPath
+                                      ELSE :audioPath END,
+                                  comment, file_extension, 0, :now, :now
+                           FROM deleted WHERE content_type IN ('IMAGE', 'VIDEO', 'AUDIO_MP3', 'AUDIO_OGG')
+                           RETURNING id),
+                 last AS (SELECT post_id, id FROM chunk ORDER BY post_id DESC, id DESC LIMIT 1)
+            SELECT (SELECT post_id FROM last) AS "lastPostId",
+                   (SELECT id FROM last) AS "lastId",
+                   (SELECT count(*) FROM deleted) AS "deletedRows",
+                   (SELECT count(*) FROM files) AS "deletedFiles"
+            """, nativeQuery = true)
+    DeletedCommentsChunkProjection deleteChunk(@Param("channelId") int channelId, @Param("afterPostId") long afterPostId,
+                                               @Param("toPostId") long toPostId, @Param("lastPostId") long lastPostId,
+                                               @Param("lastId") long lastId, @Param("limit") int limit,
+                                               @Param("imagesPath") String imagesPath,
+                                               @Param("videosPath") String videosPath,
+                                               @Param("audioPath") String audioPath,
+                                               @Param("now") LocalDateTime now);
 }
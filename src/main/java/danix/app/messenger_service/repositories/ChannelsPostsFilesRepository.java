@@ -3,11 +3,17 @@ package danix.app.messenger_service.repositories;
 import danix.app.messenger_service.models.ChannelPost;
 import danix.app.messenger_service.models.ChannelPostFile;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ChannelsPostsFilesRepository extends JpaRepository<ChannelPostFile, Long> {
     List<ChannelPostFile> findAllByPostIn(List<ChannelPost> posts);
+
+    @Query("select f.fileUUID from ChannelPostFile f where f.fileUUID in :files")
+    List<String> findReferencedFiles(@Param("files") Collection<String> files);
 }
@@ -1,19 +1,44 @@
 package danix.app.messenger_service.repositories;
 
-import danix.app.messenger_service.models.ChannelPost;
 import danix.app.messenger_service.models.ChannelPostLike;
-import danix.app.messenger_service.models.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
+import java.util.Collection;
+import java.util.Set;
 
 @Repository
 public interface ChannelsPostsLikesRepository extends JpaRepository<ChannelPostLike, Long> {
 
-    Optional<ChannelPostLike> findByPostAndUser(ChannelPost post, User user);
+    /**
+     * Adds the like and increments post's likes counter if the post was not liked by the user.
+     *
+     * @return 1 if the like was added, 0 if the post was already liked
+     */
+    @Modifying
+    @Query(value = """
+            WITH inserted AS (INSERT INTO channels_posts_likes (post_id, user_id) VALUES (:postId, :userId)
+                              ON CONFLICT (post_id, user_id) DO NOTHING RETURNING post_id)
+            UPDATE channels_posts SET likes_count = likes_count + 1 WHERE id IN (SELECT post_id FROM inserted)
+            """, nativeQuery = true)
+    int like(@Param("postId") long postId, @Param("userId") int userId);
 
-    boolean existsByPostAndUser(ChannelPost post, User user);
+    /**
+     * Deletes the like and decrements post's likes counter if the post was liked by the user.
+     *
+     * @return 1 if the like was deleted, 0 if the post was not liked
+     */
+    @Modifying
+    @Query(value = """
+            WITH deleted AS (DELETE FROM channels_posts_likes WHERE post_id = :postId AND user_id = :userId
+                             RETURNING post_id)
+            UPDATE channels_posts SET likes_count = likes_count - 1 WHERE id IN (SELECT post_id FROM deleted)
+            """, nativeQuery = true)
+    int unlike(@Param("postId") long postId, @Param("userId") int userId);
 
-    int countByPost(ChannelPost post);
+    @Query("select l.post.id from ChannelPostLike l where l.post.id in :postsIds and l.user.id = :userId")
+    Set<Long> findLikedPostsIds(@Param("postsIds") Collection<Long> postsIds, @Param("userId") int userId);
 }
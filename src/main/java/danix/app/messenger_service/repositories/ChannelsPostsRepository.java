@@ -12,6 +12,8 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -19,10 +21,139 @@ public interface ChannelsPostsRepository extends JpaRepository<ChannelPost, Long
 
     List<IdProjection> findAllByChannel(Channel channel, Pageable pageable);
 
-    @Query("select p from ChannelPost p left join fetch p.files where p.id in (:ids)")
+    @Query("select p from ChannelPost p left join fetch p.files left join fetch p.owner o left join fetch o.user " +
+           "left join fetch p.channel where p.id in (:ids)")
     List<ChannelPost> findAllByIdIn(List<Long> ids, Sort sort);
 
+    /**
+     * Newest posts with id less than {@code beforeId} from all channels of the user. Every channel gives at most
+     * {@code limit} posts from its (channel_id, id) index and the result is merged by id, so the cost depends
+     * on the count of channels and the page size, not on the count of posts.
+     */
+    @Query(value = """
+            SELECT p.id
+            FROM channels_users cu
+            JOIN channels c ON c.id = cu.channel_id AND NOT c.is_banned
+            CROSS JOIN LATERAL (SELECT cp.id FROM channels_posts cp
+                                WHERE cp.channel_id = cu.channel_id AND cp.id < :beforeId
+                                ORDER BY cp.id DESC LIMIT :limit) p
+            WHERE cu.user_id = :userId
+            ORDER BY p.id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Long> findFeedIds(@Param("userId") int userId, @Param("beforeId") long beforeId, @Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "UPDATE channels_posts SET comments_count = comments_count + :delta WHERE id = :id", nativeQuery = true)
+    void addCommentsCount(@Param("id") long id, @Param("delta") int delta);
+
+    /**
+     * Locks up to {@code limit} posts with id greater than {@code lastId}, so their counters can't be changed
+     * until they are reconciled.
+     */
+    @Query(value = "SELECT id FROM channels_posts WHERE id > :lastId ORDER BY id LIMIT :limit FOR UPDATE", nativeQuery = true)
+    List<Long> lockIdsAfter(@Param("lastId") long lastId, @Param("limit") int limit);
+
+    /**
+     * Sets likes and comments counters of the posts to the actual counts.
+     *
+     * @return count of posts whose counters were wrong
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE channels_posts p
+            SET likes_count = c.likes, comments_count = c.comments
+            FROM (SELECT q.id,
+                         (SELECT count(*) FROM channels_posts_likes l WHERE l.post_id = q.id) AS likes,
+                         (SELECT count(*) FROM channels_posts_comments m WHERE m.post_id = q.id) AS comments
+                  FROM channels_posts q WHERE q.id IN (:ids)) c
+            WHERE p.id = c.id AND (p.likes_count <> c.likes OR p.comments_count <> c.comments)
+            """, nativeQuery = true)
+    int reconcileCounters(@Param("ids") Collection<Long> ids);
+
     @Modifying
     @Query("delete from ChannelPost p where p.id = :id")
     void deleteById(@Param("id") long id);
+
+    /**
+     * @return id of the last of up to {@code limit} posts of the channel with id greater than {@code lastId},
+     * or null if there are no such posts
+     */
+    @Query(value = """
+            SELECT max(id) FROM (SELECT id FROM channels_posts WHERE channel_id = :channelId AND id > :lastId
+                                 ORDER BY id LIMIT :limit) chunk
+            """, nativeQuery = true)
+    Long findChunkEnd(@Param("channelId") int channelId, @Param("lastId") long lastId, @Param("limit") int limit);
+
+    /**
+     * Deletes posts of the channel with id in ({@code lastId}, {@code toId}] together with their files,
+     * and schedules deletion of the files in the same statement. Comments are expected to be deleted
+     * by {@link ChannelsPostsCommentsRepository#deleteChunk} before, the ones added since then are deleted here.
+     * Deleted rows are counted as posts and comments, likes are removed by cascade.
+     */
+    @Query(value = """
+            WITH chunk AS (SELECT id FROM channels_posts WHERE channel_id = :channelId AND id > :lastId AND id <= :toId),
+                 deleted_files AS (DELETE FROM channels_posts_files WHERE post_id IN (SELECT id FROM chunk)
+                                   RETURNING file_uuid, content_type, file_extension),
+                 deleted_comments AS (DELETE FROM channels_posts_comments WHERE post_id IN (SELECT id FROM chunk)
+                                      RETURNING comment, content_type, file_extension),
+                 deleted_posts AS (DELETE FROM channels_posts WHERE id IN (SELECT id FROM chunk) RETURNING id),
+                 files AS (INSERT INTO files_deletions (files_path, file_uuid, file_extension, attempts, next_attempt_at, created_at)
+                           SELECT CASE content_type WHEN 'IMAGE' THEN :postsImagesPath WHEN 'VIDEO' THEN :postsVideosPath
+                                      ELSE :postsAudioPath END,
+                                  file_uuid, file_extension, 0, :now, :now
+                           FROM deleted_files
+                           UNION ALL
+                           SELECT CASE content_type WHEN 'IMAGE' THEN :commentsImagesPath WHEN 'VIDEO' THEN :commentsVideosPath
+                                      ELSE :commentsAudioPath END,
+                                  comment, file_extension, 0, :now, :now
+                           FROM deleted_comments WHERE content_type IN ('IMAGE', 'VIDEO', 'AUDIO_MP3', 'AUDIO_OGG')
+                           RETURNING id)
+            SELECT (SELECT max(id) FROM chunk) AS "lastId",
+                   (SELECT count(*) FROM deleted_posts) + (SELECT count(*) FROM deleted_comments) AS "deletedRows",
+                   (SELECT count(*) FROM files) AS "deletedFiles"
+            """, nativeQuery = true)
+    DeletedChunkProjection deleteChunk(@Param("channelId") int channelId, @Param("lastId") long lastId, @Param("toId") long toId,
+                                       @Param("postsImagesPath") String postsImagesPath,
+                                       @Param("postsVideosPath") String postsVideosPath,
+                                       @Param("postsAudioPath") String postsAudioPath,
+                                       @Param("commentsImagesPath") String commentsImagesPath,
+                                       @Param("commentsVideosPath") String commentsVideosPath,
+                                       @Param("commentsAudioPath") String commentsAudioPath,
+                                       @Param("now") LocalDateTime now);
+
+    /**
+     * Same as {@link #deleteChunk} for a single post of the channel. {@code lastId} of the result
+     * is {@code null} if the post doesn't exist.
+     */
+    @Query(value = """
+            WITH post AS (SELECT id FROM channels_posts WHERE id = :postId AND channel_id = :channelId),
+                 deleted_files AS (DELETE FROM channels_posts_files WHERE post_id IN (SELECT id FROM post)
+                                   RETURNING file_uuid, content_type, file_extension),
+                 deleted_comments AS (DELETE FROM channels_posts_comments WHERE post_id IN (SELECT id FROM post)
+                                      RETURNING comment, content_type, file_extension),
+                 deleted_posts AS (DELETE FROM channels_posts WHERE id IN (SELECT id FROM post) RETURNING id),
+                 files AS (INSERT INTO files_deletions (files_path, file_uuid, file_extension, attempts, next_attempt_at, created_at)
+                           SELECT CASE content_type WHEN 'IMAGE' THEN :postsImagesPath WHEN 'VIDEO' THEN :postsVideosPath
+                                      ELSE :postsAudioPath END,
+                                  file_uuid, file_extension, 0, :now, :now
+                           FROM deleted_files
+                           UNION ALL
+                           SELECT CASE content_type WHEN 'IMAGE' THEN :commentsImagesPath WHEN 'VIDEO' THEN :commentsVideosPath
+                                      ELSE :commentsAudioPath END,
+                                  comment, file_extension, 0, :now, :now
+                           FROM deleted_comments WHERE content_type IN ('IMAGE', 'VIDEO', 'AUDIO_MP3', 'AUDIO_OGG')
+                           RETURNING id)
+            SELECT (SELECT max(id) FROM deleted_posts) AS "lastId",
+                   (SELECT count(*) FROM deleted_posts) + (SELECT count(*) FROM deleted_comments) AS "deletedRows",
+                   (SELECT count(*) FROM files) AS "deletedFiles"
+            """, nativeQuery = true)
+    DeletedChunkProjection deletePost(@Param("channelId") int channelId, @Param("postId") long postId,
+                                      @Param("postsImagesPath") String postsImagesPath,
+                                      @Param("postsVideosPath") String postsVideosPath,
+                                      @Param("postsAudioPath") String postsAudioPath,
+                                      @Param("commentsImagesPath") String commentsImagesPath,
+                                      @Param("commentsVideosPath") String commentsVideosPath,
+                                      @Param("commentsAudioPath") String commentsAudioPath,
+                                      @Param("now") LocalDateTime now);
 }
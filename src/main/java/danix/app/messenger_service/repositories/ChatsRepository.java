@@ -7,7 +7,9 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +19,66 @@ public interface ChatsRepository extends JpaRepository<Chat, Integer> {
 
     List<Chat> findByUser1OrUser2(User user1, User user2);
 
+    /**
+     * Ids of chats of the user with last activity before {@code beforeTime} (or at it with id less than
+     * {@code beforeId}), newest first. Chats where the user is user1 and user2 are read from their own indexes
+     * and merged.
+     */
+    @Query(value = """
+            SELECT id FROM (
+                (SELECT id, last_activity_at FROM users_chats
+                 WHERE user1 = :userId AND (last_activity_at, id) < (:beforeTime, :beforeId)
+                 ORDER BY last_activity_at DESC, id DESC LIMIT :limit)
+                UNION ALL
+                (SELECT id, last_activity_at FROM users_chats
+                 WHERE user2 = :userId AND (last_activity_at, id) < (:beforeTime, :beforeId)
+                 ORDER BY last_activity_at DESC, id DESC LIMIT :limit)) c
+            ORDER BY last_activity_at DESC, id DESC
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<Integer> findInboxIds(@Param("userId") int userId, @Param("beforeTime") LocalDateTime beforeTime,
+                               @Param("beforeId") int beforeId, @Param("limit") int limit);
+
+    @Query("select c from Chat c join fetch c.user1 join fetch c.user2 where c.id in (:ids) " +
+           "order by c.lastActivityAt desc, c.id desc")
+    List<Chat> findInbox(@Param("ids") List<Integer> ids);
+
+    /**
+     * Makes the message the last message of the chat, unless a newer message is already the last one.
+     */
+    @Modifying
+    @Query(value = """
+            UPDATE users_chats
+            SET last_message_id = :messageId, last_message_preview = :preview, last_message_type = :type,
+                last_activity_at = :sentTime
+            WHERE id = :chatId AND (last_message_id IS NULL OR last_message_id < :messageId)
+            """, nativeQuery = true)
+    void updateLastMessage(@Param("chatId") int chatId, @Param("messageId") long messageId,
+                           @Param("preview") String preview, @Param("type") String type,
+                           @Param("sentTime") LocalDateTime sentTime);
+
+    @Modifying
+    @Query(value = """
+            UPDATE users_chats SET last_message_preview = :preview
+            WHERE id = :chatId AND last_message_id = :messageId
+            """, nativeQuery = true)
+    void updateLastMessagePreview(@Param("chatId") int chatId, @Param("messageId") long messageId,
+                                  @Param("preview") String preview);
+
+    /**
+     * Makes the newest remaining message the last one if the deleted message was the last message of the chat.
+     * Preview length must be the same as {@code ChatsMessagesService.PREVIEW_LENGTH}.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+            UPDATE users_chats c
+            SET (last_message_id, last_message_preview, last_message_type) =
+                (SELECT m.id, CASE WHEN m.content_type = 'TEXT' THEN left(m.message, 100) END, m.content_type
+                 FROM chats_messages m WHERE m.chat = c.id ORDER BY m.id DESC LIMIT 1)
+            WHERE c.id = :chatId AND c.last_message_id = :messageId
+            """, nativeQuery = true)
+    void refreshLastMessage(@Param("chatId") int chatId, @Param("messageId") long messageId);
+
     @Query(
             """
             select exists (select c.id from Chat c where (c.user1.id = :user_id or c.user2.id = :user_id)
@@ -25,6 +87,64 @@ public interface ChatsRepository extends JpaRepository<Chat, Integer> {
     )
     boolean existByWebSocketUUIDAndUserId(@Param("web_socket_uuid") String webSocketUUID, @Param("user_id") Integer userId);
 
+    /**
+     * Moves the last message read by the user in the chat forward to {@code messageId}, it never moves back,
+     * and recounts messages of the other user after it.
+     *
+     * <p>
+     * Not {@code @Modifying}, as modifying queries are run by {@code executeUpdate}, which can't return
+     * the recounted value. The native query flushes pending changes before it's run, and the updated columns
+     * are read only in {@link Chat}, so the persistence context doesn't need to be cleared after it.
+     *
+     * @return unread messages count of the user, {@code null} if the last read message was not changed
+     */
+    @Transactional
+    @Query(value = """
+            WITH updated AS (
+                UPDATE users_chats c
+                SET user1_last_read_message_id = CASE WHEN user1 = :userId THEN :messageId ELSE user1_last_read_message_id END,
+                    user2_last_read_message_id = CASE WHEN user2 = :userId THEN :messageId ELSE user2_last_read_message_id END,
+                    user1_unread_count = CASE WHEN user1 = :userId THEN unread.count ELSE user1_unread_count END,
+                    user2_unread_count = CASE WHEN user2 = :userId THEN unread.count ELSE user2_unread_count END
+                FROM (SELECT CAST(count(*) AS INTEGER) AS count FROM chats_messages m
+                      WHERE m.chat = :chatId AND m.message_owner <> :userId AND m.id > :messageId) unread
+                WHERE c.id = :chatId AND ((c.user1 = :userId AND c.user1_last_read_message_id < :messageId)
+                                          OR (c.user2 = :userId AND c.user2_last_read_message_id < :messageId))
+                RETURNING unread.count)
+            SELECT count FROM updated
+            """, nativeQuery = true)
+    Integer markRead(@Param("chatId") int chatId, @Param("userId") int userId, @Param("messageId") long messageId);
+
+    /**
+     * Adds {@code delta} to unread messages count of the user if the user has not read the message yet.
+     *
+     * Like {@link #markRead} it returns the changed count, so it's not {@code @Modifying}.
+     *
+     * @return unread messages count of the user, {@code null} if the message is already read
+     */
+    @Transactional
+    @Query(value = """
+            WITH updated AS (
+                UPDATE users_chats
+                SET user1_unread_count = CASE WHEN user1 = :userId THEN greatest(user1_unread_count + :delta, 0)
+                                              ELSE user1_unread_count END,
+                    user2_unread_count = CASE WHEN user2 = :userId THEN greatest(user2_unread_count + :delta, 0)
+                                              ELSE user2_unread_count END
+                WHERE id = :chatId AND ((user1 = :userId AND user1_last_read_message_id < :messageId)
+                                        OR (user2 = :userId AND user2_last_read_message_id < :messageId))
+                RETURNING CASE WHEN user1 = :userId THEN user1_unread_count ELSE user2_unread_count END AS count)
+            SELECT count FROM updated
+            """, nativeQuery = true)
+    Integer changeUnreadCount(@Param("chatId") int chatId, @Param("userId") int userId,
+                              @Param("messageId") long messageId, @Param("delta") int delta);
+
+    @Query(value = """
+            SELECT id, CASE WHEN user1 = :userId THEN user1_unread_count ELSE user2_unread_count END AS "unreadCount"
+            FROM users_chats
+            WHERE (user1 = :userId AND user1_unread_count > 0) OR (user2 = :userId AND user2_unread_count > 0)
+            """, nativeQuery = true)
+    List<UnreadCountProjection> findUnreadCounts(@Param("userId") int userId);
+
     @Modifying
     @Query("delete from Chat c where c.id = :id")
     void deleteById(@Param("id") int id);
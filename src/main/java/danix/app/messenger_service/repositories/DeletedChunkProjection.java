@@ -0,0 +1,12 @@
+package danix.app.messenger_service.repositories;
+
+public interface DeletedChunkProjection {
+    /**
+     * @return id of the last row in the chunk, the next chunk starts after it, or null if nothing was left
+     */
+    Long getLastId();
+
+    long getDeletedRows();
+
+    long getDeletedFiles();
+}
@@ -0,0 +1,9 @@
+package danix.app.messenger_service.repositories;
+
+public interface DeletedCommentsChunkProjection extends DeletedChunkProjection {
+    /**
+     * @return post id of the last comment in the chunk, the next chunk starts after ({@link #getLastPostId()},
+     * {@link #getLastId()}), or null if nothing was left
+     */
+    Long getLastPostId();
+}
@@ -0,0 +1,22 @@
+package danix.app.messenger_service.repositories;
+
+import danix.app.messenger_service.models.FileDeletion;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface FilesDeletionsRepository extends JpaRepository<FileDeletion, Long> {
+
+    @Query("select d.id from FileDeletion d where d.nextAttemptAt <= :time order by d.id")
+    List<Long> findDueIds(@Param("time") LocalDateTime time, Pageable pageable);
+
+    @Query(value = "SELECT * FROM files_deletions WHERE id = :id FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    Optional<FileDeletion> lockById(@Param("id") long id);
+}
@@ -1,19 +1,52 @@
 package danix.app.messenger_service.repositories;
 
-import danix.app.messenger_service.models.ContentType;
 import danix.app.messenger_service.models.Group;
 import danix.app.messenger_service.models.GroupMessage;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface GroupsMessagesRepository extends JpaRepository<GroupMessage, Long> {
 
-    List<GroupMessage> findAllByGroup(Group group, Pageable pageable);
+    @Query("select m from GroupMessage m join fetch m.messageOwner where m.group = :group and m.id < :beforeId " +
+           "order by m.id desc")
+    List<GroupMessage> findAllByGroupBefore(@Param("group") Group group, @Param("beforeId") long beforeId,
+                                            Pageable pageable);
 
-    List<GroupMessage> findAllByGroupAndContentTypeIsNot(Group group, ContentType contentType, Pageable pageable);
+    @Query("select m from GroupMessage m join fetch m.messageOwner where m.group = :group and m.id > :afterId " +
+           "order by m.id")
+    List<GroupMessage> findAllByGroupAfter(@Param("group") Group group, @Param("afterId") long afterId,
+                                           Pageable pageable);
+
+    @Query(value = "select m.message from groups_messages m where m.content_type <> 'TEXT' and m.message in (:files)",
+            nativeQuery = true)
+    List<String> findReferencedFiles(@Param("files") Collection<String> files);
+
+    /**
+     * Deletes up to {@code limit} messages of the group with id greater than {@code lastId}
+     * and schedules deletion of their files in the same statement.
+     */
+    @Query(value = """
+            WITH chunk AS (SELECT id FROM groups_messages WHERE group_id = :groupId AND id > :lastId ORDER BY id LIMIT :limit),
+                 deleted AS (DELETE FROM groups_messages WHERE id IN (SELECT id FROM chunk)
+                             RETURNING message, content_type, file_extension),
+                 files AS (INSERT INTO files_deletions (files_path, file_uuid, file_extension, attempts, next_attempt_at, created_at)
+                           SELECT CASE content_type WHEN 'IMAGE' THEN :imagesPath WHEN 'VIDEO' THEN :videosPath ELSE :audioPath END,
+                                  message, file_extension, 0, :now, :now
+                           FROM deleted WHERE content_type IN ('IMAGE', 'VIDEO', 'AUDIO_MP3', 'AUDIO_OGG')
+                           RETURNING id)
+            SELECT (SELECT max(id) FROM chunk) AS "lastId", (SELECT count(*) FROM deleted) AS "deletedRows",
+                   (SELECT count(*) FROM files) AS "deletedFiles"
+            """, nativeQuery = true)
+    DeletedChunkProjection deleteChunk(@Param("groupId") int groupId, @Param("lastId") long lastId, @Param("limit") int limit,
+                                       @Param("imagesPath") String imagesPath, @Param("videosPath") String videosPath,
+                                       @Param("audioPath") String audioPath, @Param("now") LocalDateTime now);
 }
@@ -5,7 +5,10 @@ import danix.app.messenger_service.models.GroupUser;
 import danix.app.messenger_service.models.User;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
@@ -19,4 +22,50 @@ public interface GroupsUsersRepository extends JpaRepository<GroupUser, Integer>
     List<GroupUser> findAllByGroup(Group group, Pageable pageable);
 
     int countByGroup(Group group);
+
+    /**
+     * Moves the last message read by the group user forward to {@code messageId} and recounts messages
+     * of other users after it.
+     *
+     * Returns the recounted value, so it's a plain query instead of {@code @Modifying} (see {@link ChatsRepository#markRead}).
+     *
+     * @return unread messages count, {@code null} if the last read message was not changed
+     */
+    @Transactional
+    @Query(value = """
+            WITH updated AS (
+                UPDATE group_users gu
+                SET last_read_message_id = :messageId,
+                    unread_count = (SELECT count(*) FROM groups_messages m
+                                    WHERE m.group_id = gu.group_id AND m.message_owner <> gu.user_id AND m.id > :messageId)
+                WHERE gu.id = :id AND gu.last_read_message_id < :messageId
+                RETURNING gu.unread_count)
+            SELECT unread_count FROM updated
+            """, nativeQuery = true)
+    Integer markRead(@Param("id") int id, @Param("messageId") long messageId);
+
+    /**
+     * Adds {@code delta} to unread messages count of every user of the group, except the owner of the message,
+     * who has not read the message yet. The changed counts are returned to be sent to the users,
+     * that's why it's a plain query and not {@code @Modifying}.
+     */
+    @Transactional
+    @Query(value = """
+            WITH updated AS (
+                UPDATE group_users gu
+                SET unread_count = greatest(gu.unread_count + :delta, 0)
+                FROM person p
+                WHERE gu.group_id = :groupId AND gu.user_id <> :ownerId AND gu.last_read_message_id < :messageId
+                      AND p.id = gu.user_id
+                RETURNING p.web_socket_uuid, gu.unread_count)
+            SELECT web_socket_uuid AS "webSocketUUID", unread_count AS "unreadCount" FROM updated
+            """, nativeQuery = true)
+    List<UserUnreadCountProjection> changeUnreadCounts(@Param("groupId") int groupId, @Param("ownerId") int ownerId,
+                                                       @Param("messageId") long messageId, @Param("delta") int delta);
+
+    @Query(value = """
+            SELECT group_id AS id, unread_count AS "unreadCount" FROM group_users
+            WHERE user_id = :userId AND unread_count > 0
+            """, nativeQuery = true)
+    List<UnreadCountProjection> findUnreadCounts(@Param("userId") int userId);
 }
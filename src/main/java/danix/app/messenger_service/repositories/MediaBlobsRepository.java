@@ -0,0 +1,95 @@
+package danix.app.messenger_service.repositories;
+
+import danix.app.messenger_service.models.MediaBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface MediaBlobsRepository extends JpaRepository<MediaBlob, String> {
+
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO media_blobs (file_name, ref_count, size, created_at, referenced_at) " +
+                   "VALUES (:fileName, 1, :size, current_timestamp, current_timestamp) " +
+                   "ON CONFLICT (file_name) DO UPDATE SET ref_count = media_blobs.ref_count + 1, " +
+                   "referenced_at = current_timestamp", nativeQuery = true)
+    void incrementReferences(@Param("fileName") String fileName, @Param("size") long size);
+
+    @Query("select b.refCount from MediaBlob b where b.fileName = :fileName")
+    int getReferences(@Param("fileName") String fileName);
+
+    @Transactional
+    @Modifying
+    @Query("update MediaBlob set refCount = refCount - 1 where fileName = :fileName")
+    void decrementReferences(@Param("fileName") String fileName);
+
+    @Transactional
+    @Modifying
+    @Query("delete from MediaBlob where fileName = :fileName and refCount <= 0")
+    int deleteIfUnreferenced(@Param("fileName") String fileName);
+
+    @Query("select b.fileName from MediaBlob b where b.fileName in :files")
+    List<String> findReferencedFiles(@Param("files") Collection<String> files);
+
+    /**
+     * Locks up to {@code limit} blobs with name greater than {@code lastName} not referenced since {@code before},
+     * so uploads and deletions of them wait until they are reconciled.
+     */
+    @Query(value = "SELECT file_name FROM media_blobs WHERE file_name > :lastName AND referenced_at < :before " +
+                   "ORDER BY file_name LIMIT :limit FOR UPDATE", nativeQuery = true)
+    List<String> lockNamesAfter(@Param("lastName") String lastName, @Param("before") LocalDateTime before,
+                                @Param("limit") int limit);
+
+    /**
+     * Sets reference counts of the blobs to the count of messages, posts files, comments and avatars storing
+     * their hash. Scheduled deletions are counted too, they decrement the count when processed.
+     *
+     * @return count of blobs whose reference counts were wrong
+     */
+    @Modifying
+    @Query(value = """
+            WITH blobs AS (SELECT file_name, left(file_name, 64) AS hash, substr(file_name, 65) AS extension
+                           FROM media_blobs WHERE file_name IN (:fileNames)),
+                 refs AS (SELECT b.file_name FROM blobs b JOIN chats_messages m
+                              ON m.content_type <> 'TEXT' AND m.message = b.hash AND m.file_extension = b.extension
+                          UNION ALL
+                          SELECT b.file_name FROM blobs b JOIN groups_messages m
+                              ON m.content_type <> 'TEXT' AND m.message = b.hash AND m.file_extension = b.extension
+                          UNION ALL
+                          SELECT b.file_name FROM blobs b JOIN channels_posts_files f
+                              ON f.file_uuid = b.hash AND f.file_extension = b.extension
+                          UNION ALL
+                          SELECT b.file_name FROM blobs b JOIN channels_posts_comments c
+                              ON c.content_type <> 'TEXT' AND c.comment = b.hash AND c.file_extension = b.extension
+                          UNION ALL
+                          SELECT b.file_name FROM blobs b JOIN person p ON p.image = b.hash
+                          UNION ALL
+                          SELECT b.file_name FROM blobs b JOIN groups g ON g.image = b.hash
+                          UNION ALL
+                          SELECT b.file_name FROM blobs b JOIN channels c ON c.image = b.hash
+                          UNION ALL
+                          SELECT b.file_name FROM blobs b JOIN files_deletions d
+                              ON d.file_uuid = b.hash AND (d.file_extension IS NULL OR d.file_extension = b.extension)),
+                 counts AS (SELECT b.file_name, count(r.file_name) AS actual
+                            FROM blobs b LEFT JOIN refs r ON r.file_name = b.file_name GROUP BY b.file_name)
+            UPDATE media_blobs mb SET ref_count = c.actual
+            FROM counts c
+            WHERE mb.file_name = c.file_name AND mb.ref_count <> c.actual
+            """, nativeQuery = true)
+    int reconcileReferences(@Param("fileNames") Collection<String> fileNames);
+
+    /**
+     * Deletes the blobs which are not referenced anymore, their files are removed by the orphaned files collector.
+     */
+    @Modifying
+    @Query("delete from MediaBlob where fileName in :fileNames and refCount <= 0")
+    int deleteUnreferenced(@Param("fileNames") Collection<String> fileNames);
+}
@@ -0,0 +1,26 @@
+package danix.app.messenger_service.repositories;
+
+import danix.app.messenger_service.models.ContentType;
+import danix.app.messenger_service.models.User;
+
+import java.time.LocalDateTime;
+
+public interface PostCommentProjection {
+    Long getId();
+
+    String getText();
+
+    ContentType getContentType();
+
+    String getFileExtension();
+
+    LocalDateTime getCreatedAt();
+
+    Integer getOwnerId();
+
+    String getOwnerUsername();
+
+    User.OnlineStatus getOwnerOnlineStatus();
+
+    boolean isOwnerBanned();
+}
@@ -0,0 +1,36 @@
+package danix.app.messenger_service.repositories;
+
+import danix.app.messenger_service.models.Upload;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface UploadsRepository extends JpaRepository<Upload, String> {
+    List<Upload> findAllByCreatedAtBefore(LocalDateTime createdAt);
+
+    @Query("select u.id from Upload u where u.id in :ids")
+    List<String> findExistingIds(@Param("ids") Collection<String> ids);
+
+    /**
+     * Marks the open upload as finalizing, so concurrent finalize requests create only one message.
+     *
+     * @return 1 if the upload was claimed, 0 if it's already being finalized
+     */
+    @Modifying
+    @Query(value = "UPDATE uploads SET status = 'FINALIZING' WHERE id = :id AND status = 'OPEN'", nativeQuery = true)
+    int claim(@Param("id") String id);
+
+    /**
+     * Opens the claimed upload again, so the client can append the rest of it.
+     */
+    @Modifying
+    @Query(value = "UPDATE uploads SET status = 'OPEN' WHERE id = :id AND status = 'FINALIZING'", nativeQuery = true)
+    void release(@Param("id") String id);
+}
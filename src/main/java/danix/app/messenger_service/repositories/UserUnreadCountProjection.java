@@ -0,0 +1,7 @@
+package danix.app.messenger_service.repositories;
+
+public interface UserUnreadCountProjection {
+    String getWebSocketUUID();
+
+    int getUnreadCount();
+}
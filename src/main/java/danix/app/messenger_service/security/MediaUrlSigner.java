@@ -0,0 +1,62 @@
+package danix.app.messenger_service.security;
+
+import danix.app.messenger_service.models.ContentType;
+import danix.app.messenger_service.models.MediaBucket;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Base64;
+
+@Component
+public class MediaUrlSigner {
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final String secret;
+    private final long ttlMinutes;
+
+    public MediaUrlSigner(@Value("${media_url_secret}") String secret,
+                          @Value("${media_url_ttl_minutes}") long ttlMinutes) {
+        // Expiration is rounded to ttl windows, zero or negative ttl can't be used
+        if (ttlMinutes <= 0) {
+            throw new IllegalArgumentException("media_url_ttl_minutes must be positive");
+        }
+        this.secret = secret;
+        this.ttlMinutes = ttlMinutes;
+    }
+
+    public String sign(MediaBucket bucket, String uuid, String extension, ContentType contentType) {
+        // Extension is a part of the signed file name, so the file is resolved without probing the filesystem
+        String fileName = extension != null ? uuid + extension : uuid;
+        long ttl = ttlMinutes * 60;
+        // Expiration is rounded to the ttl window, so the url stays the same and cacheable during the window
+        long expires = (Instant.now().getEpochSecond() / ttl + 2) * ttl;
+        return "/media/" + bucket + "/" + fileName + "?type=" + contentType + "&expires=" + expires +
+               "&signature=" + signature(bucket, fileName, contentType, expires);
+    }
+
+    public boolean isValid(MediaBucket bucket, String fileName, ContentType contentType, long expires,
+                           String signature) {
+        if (signature == null || expires < Instant.now().getEpochSecond()) {
+            return false;
+        }
+        return MessageDigest.isEqual(signature(bucket, fileName, contentType, expires).getBytes(StandardCharsets.UTF_8),
+                signature.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String signature(MediaBucket bucket, String fileName, ContentType contentType, long expires) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            byte[] data = (bucket + ":" + fileName + ":" + contentType + ":" + expires).getBytes(StandardCharsets.UTF_8);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(mac.doFinal(data));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Error signing media url", e);
+        }
+    }
+}
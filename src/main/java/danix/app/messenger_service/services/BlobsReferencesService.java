@@ -0,0 +1,60 @@
+package danix.app.messenger_service.services;
+
+import danix.app.messenger_service.repositories.MediaBlobsRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repairs reference counts of content addressed blobs. Counts are changed together with files,
+ * but rows deleted by cascades (deleted users or channels members) don't decrement them,
+ * so their blobs would never be deleted.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class BlobsReferencesService {
+    private static final int BATCH_SIZE = 500;
+    // The blob is referenced before the row storing its hash is committed, recently referenced blobs are skipped
+    private static final Duration GRACE_PERIOD = Duration.ofDays(1);
+
+    private final MediaBlobsRepository blobsRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * @return count of blobs whose reference counts were repaired
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int reconcile() {
+        LocalDateTime before = LocalDateTime.now().minus(GRACE_PERIOD);
+        int fixed = 0;
+        String lastName = "";
+        while (true) {
+            String batchStart = lastName;
+            // Blobs of the batch stay locked until they are recounted, so concurrent uploads wait instead of being lost
+            BatchResult result = transactionTemplate.execute(status -> {
+                List<String> fileNames = blobsRepository.lockNamesAfter(batchStart, before, BATCH_SIZE);
+                if (fileNames.isEmpty()) {
+                    return null;
+                }
+                int batchFixed = blobsRepository.reconcileReferences(fileNames);
+                blobsRepository.deleteUnreferenced(fileNames);
+                return new BatchResult(fileNames.get(fileNames.size() - 1), batchFixed);
+            });
+            if (result == null) {
+                return fixed;
+            }
+            fixed += result.fixed();
+            lastName = result.lastName();
+        }
+    }
+
+    private record BatchResult(String lastName, int fixed) {
+    }
+}
@@ -0,0 +1,158 @@
+package danix.app.messenger_service.services;
+
+import danix.app.messenger_service.repositories.ChannelsPostsCommentsRepository;
+import danix.app.messenger_service.repositories.ChannelsPostsRepository;
+import danix.app.messenger_service.repositories.ChatsMessagesRepository;
+import danix.app.messenger_service.repositories.DeletedChunkProjection;
+import danix.app.messenger_service.repositories.DeletedCommentsChunkProjection;
+import danix.app.messenger_service.repositories.GroupsMessagesRepository;
+import danix.app.messenger_service.util.TeardownJob;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.function.LongFunction;
+
+/**
+ * Deletes contents of chats, groups and channels in chunks of {@link #CHUNK_SIZE} rows.
+ * Every chunk is a single statement which deletes rows after the last deleted id (so the rest of rows
+ * is never rescanned) and schedules their files in {@link FilesDeletionsService},
+ * and is committed in its own transaction, so locks are held only for one chunk.
+ */
+@Service
+@RequiredArgsConstructor
+public class BulkDeletionService {
+    private static final int CHUNK_SIZE = 500;
+
+    private final ChatsMessagesRepository chatsMessagesRepository;
+    private final GroupsMessagesRepository groupsMessagesRepository;
+    private final ChannelsPostsRepository channelsPostsRepository;
+    private final ChannelsPostsCommentsRepository commentsRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${chats_images_path}")
+    private String CHATS_IMAGES_PATH;
+    @Value("${chats_videos_path}")
+    private String CHATS_VIDEOS_PATH;
+    @Value("${chats_audio_path}")
+    private String CHATS_AUDIO_PATH;
+    @Value("${groups_messages_images_path}")
+    private String GROUPS_MESSAGES_IMAGES_PATH;
+    @Value("${groups_messages_videos_path}")
+    private String GROUPS_MESSAGES_VIDEOS_PATH;
+    @Value("${groups_messages_audio_path}")
+    private String GROUPS_MESSAGES_AUDIO_PATH;
+    @Value("${channels_posts_images_path}")
+    private String POSTS_IMAGES_PATH;
+    @Value("${channels_posts_videos_path}")
+    private String POSTS_VIDEOS_PATH;
+    @Value("${channels_posts_audio_path}")
+    private String POSTS_AUDIO_PATH;
+    @Value("${channels_posts_comments_images_path}")
+    private String COMMENTS_IMAGES_PATH;
+    @Value("${channels_posts_comments_videos_path}")
+    private String COMMENTS_VIDEOS_PATH;
+    @Value("${channels_posts_comments_audio_path}")
+    private String COMMENTS_AUDIO_PATH;
+
+    public void deleteChatMessages(int chatId, TeardownJob job) {
+        deleteInChunks(job, lastId -> chatsMessagesRepository.deleteChunk(chatId, lastId, CHUNK_SIZE,
+                path(CHATS_IMAGES_PATH), path(CHATS_VIDEOS_PATH), path(CHATS_AUDIO_PATH), LocalDateTime.now()));
+    }
+
+    public void deleteGroupMessages(int groupId, TeardownJob job) {
+        deleteInChunks(job, lastId -> groupsMessagesRepository.deleteChunk(groupId, lastId, CHUNK_SIZE,
+                path(GROUPS_MESSAGES_IMAGES_PATH), path(GROUPS_MESSAGES_VIDEOS_PATH), path(GROUPS_MESSAGES_AUDIO_PATH),
+                LocalDateTime.now()));
+    }
+
+    /**
+     * Posts are deleted by chunks of {@link #CHUNK_SIZE} posts, comments of every chunk are deleted before it
+     * in their own chunks, so the count of comments doesn't change the size of a statement.
+     */
+    public void deleteChannelPosts(int channelId, TeardownJob job) {
+        long lastId = 0;
+        while (true) {
+            long chunkStart = lastId;
+            Long chunkEnd = transactionTemplate.execute(status ->
+                    channelsPostsRepository.findChunkEnd(channelId, chunkStart, CHUNK_SIZE));
+            if (chunkEnd == null) {
+                return;
+            }
+            deletePostsComments(channelId, chunkStart, chunkEnd, job);
+            DeletedChunkProjection chunk = transactionTemplate.execute(status -> channelsPostsRepository.deleteChunk(
+                    channelId, chunkStart, chunkEnd, path(POSTS_IMAGES_PATH), path(POSTS_VIDEOS_PATH),
+                    path(POSTS_AUDIO_PATH), path(COMMENTS_IMAGES_PATH), path(COMMENTS_VIDEOS_PATH),
+                    path(COMMENTS_AUDIO_PATH), LocalDateTime.now()));
+            if (chunk != null) {
+                job.addProcessedRows(chunk.getDeletedRows());
+                job.addDeletedFiles(chunk.getDeletedFiles());
+            }
+            lastId = chunkEnd;
+        }
+    }
+
+    /**
+     * Deletes comments of the post in chunks, then the post with its files in one statement.
+     *
+     * @return {@code false} if the post doesn't exist, e.g. it was deleted by another job
+     */
+    public boolean deleteChannelPost(int channelId, long postId, TeardownJob job) {
+        deletePostsComments(channelId, postId - 1, postId, job);
+        DeletedChunkProjection deleted = transactionTemplate.execute(status -> channelsPostsRepository.deletePost(
+                channelId, postId, path(POSTS_IMAGES_PATH), path(POSTS_VIDEOS_PATH), path(POSTS_AUDIO_PATH),
+                path(COMMENTS_IMAGES_PATH), path(COMMENTS_VIDEOS_PATH), path(COMMENTS_AUDIO_PATH), LocalDateTime.now()));
+        if (deleted == null || deleted.getLastId() == null) {
+            return false;
+        }
+        job.addProcessedRows(deleted.getDeletedRows());
+        job.addDeletedFiles(deleted.getDeletedFiles());
+        return true;
+    }
+
+    private void deletePostsComments(int channelId, long afterPostId, long toPostId, TeardownJob job) {
+        long lastPostId = afterPostId;
+        long lastId = 0;
+        while (true) {
+            long chunkPostId = lastPostId;
+            long chunkId = lastId;
+            DeletedCommentsChunkProjection chunk = transactionTemplate.execute(status ->
+                    commentsRepository.deleteChunk(channelId, afterPostId, toPostId, chunkPostId, chunkId, CHUNK_SIZE,
+                            path(COMMENTS_IMAGES_PATH), path(COMMENTS_VIDEOS_PATH), path(COMMENTS_AUDIO_PATH),
+                            LocalDateTime.now()));
+            if (chunk == null || chunk.getLastId() == null) {
+                return;
+            }
+            job.addProcessedRows(chunk.getDeletedRows());
+            job.addDeletedFiles(chunk.getDeletedFiles());
+            // A partial chunk was the last one, no need to look for more comments
+            if (chunk.getDeletedRows() < CHUNK_SIZE) {
+                return;
+            }
+            lastPostId = chunk.getLastPostId();
+            lastId = chunk.getLastId();
+        }
+    }
+
+    private void deleteInChunks(TeardownJob job, LongFunction<DeletedChunkProjection> deleteChunk) {
+        long lastId = 0;
+        while (true) {
+            long chunkStart = lastId;
+            DeletedChunkProjection chunk = transactionTemplate.execute(status -> deleteChunk.apply(chunkStart));
+            if (chunk == null || chunk.getLastId() == null) {
+                return;
+            }
+            job.addProcessedRows(chunk.getDeletedRows());
+            job.addDeletedFiles(chunk.getDeletedFiles());
+            lastId = chunk.getLastId();
+        }
+    }
+
+    // Same form as paths saved by FilesDeletionsService
+    private static String path(String path) {
+        return Path.of(path).toString();
+    }
+}
@@ -3,9 +3,13 @@ package danix.app.messenger_service.services;
 import danix.app.messenger_service.dto.*;
 import danix.app.messenger_service.models.*;
 import danix.app.messenger_service.repositories.*;
+import danix.app.messenger_service.security.MediaUrlSigner;
 import danix.app.messenger_service.util.ChannelException;
+import danix.app.messenger_service.util.ChannelPostsCache;
 import danix.app.messenger_service.util.FileException;
-import danix.app.messenger_service.util.FilesUtils;
+import danix.app.messenger_service.util.BlobStore;
+import danix.app.messenger_service.util.TeardownExecutor;
+import danix.app.messenger_service.util.TeardownJob;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
@@ -14,15 +18,14 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import static danix.app.messenger_service.services.UserService.getCurrentUser;
 
@@ -39,7 +42,13 @@ public class ChannelsPostsService {
     private final ChannelsPostsFilesRepository filesRepository;
     private final ChannelsPostsLikesRepository likesRepository;
     private final SimpMessagingTemplate messagingTemplate;
-    private final UserService userService;
+    private final MediaUrlSigner mediaUrlSigner;
+    private final BlobStore blobStore;
+    private final TransactionTemplate transactionTemplate;
+    private final FilesDeletionsService filesDeletionsService;
+    private final TeardownExecutor teardownExecutor;
+    private final ChannelPostsCache postsCache;
+    private final BulkDeletionService bulkDeletionService;
 
     @Value("${channels_posts_images_path}")
     private String POSTS_IMAGES_PATH;
@@ -58,12 +67,61 @@ public class ChannelsPostsService {
         User currentUser = getCurrentUser();
         Channel channel = channelsService.getById(id);
         channelsService.getChannelUser(currentUser, channel);
+        List<ResponseChannelPostDTO> posts = page == 0 && count <= postsCache.getPageSize() ?
+                postsCache.getFirstPage(channel.getId(), () -> findPosts(channel, 0, postsCache.getPageSize())).stream()
+                        .limit(count)
+                        .toList() :
+                findPosts(channel, page, count);
+        if (posts.isEmpty()) {
+            return posts;
+        }
+        Set<Long> likedPostsIds = likesRepository.findLikedPostsIds(posts.stream()
+                .map(ResponseChannelPostDTO::getId)
+                .toList(), currentUser.getId());
+        return posts.stream()
+                .map(post -> post.toBuilder().isLiked(likedPostsIds.contains(post.getId())).build())
+                .toList();
+    }
+
+    private List<ResponseChannelPostDTO> findPosts(Channel channel, int page, int count) {
         Sort sort = Sort.by(Sort.Direction.DESC, "id");
         List<Long> ids = channelsPostsRepository.findAllByChannel(channel, PageRequest.of(page, count, sort)).stream()
                                  .map(IdProjection::getId)
                                  .toList();
-        List<ChannelPost> posts = channelsPostsRepository.findAllByIdIn(ids, sort);
-        return posts.stream().map(this::convertToResponseChannelPostDTO).toList();
+        return channelsPostsRepository.findAllByIdIn(ids, sort).stream()
+                .map(post -> convertToResponseChannelPostDTO(post, false))
+                .toList();
+    }
+
+    /**
+     * Returns newest posts from all channels of the current user, merged by id. The cursor is an opaque value
+     * returned in the previous page, {@code null} for the first page.
+     */
+    public ResponseChannelsFeedDTO getFeed(String cursor, int count) {
+        User currentUser = getCurrentUser();
+        long beforeId = cursor == null ? Long.MAX_VALUE : decodeFeedCursor(cursor);
+        List<Long> ids = channelsPostsRepository.findFeedIds(currentUser.getId(), beforeId, count);
+        if (ids.isEmpty()) {
+            return new ResponseChannelsFeedDTO(Collections.emptyList(), null);
+        }
+        List<ChannelPost> posts = channelsPostsRepository.findAllByIdIn(ids, Sort.by(Sort.Direction.DESC, "id"));
+        Set<Long> likedPostsIds = likesRepository.findLikedPostsIds(ids, currentUser.getId());
+        String nextCursor = ids.size() < count ? null : encodeFeedCursor(ids.get(ids.size() - 1));
+        return new ResponseChannelsFeedDTO(posts.stream()
+                .map(post -> convertToResponseChannelPostDTO(post, likedPostsIds.contains(post.getId())))
+                .toList(), nextCursor);
+    }
+
+    private static String encodeFeedCursor(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Long.toString(lastId).getBytes());
+    }
+
+    private static long decodeFeedCursor(String cursor) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor)));
+        } catch (IllegalArgumentException e) {
+            throw new ChannelException("Invalid cursor");
+        }
     }
 
     @Transactional
@@ -71,21 +129,34 @@ public class ChannelsPostsService {
         return savePost(post.getText(), post.getChannelId(), ContentType.TEXT).getId();
     }
 
-    @Transactional
+    /**
+     * Writes the file outside of a transaction, then saves the post in a short one.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public long createPost(MultipartFile file, int id, ContentType contentType) {
         String uuid = UUID.randomUUID().toString();
-        switch (contentType) {
-            case IMAGE -> FilesUtils.upload(Path.of(POSTS_IMAGES_PATH), file, uuid, contentType);
-            case VIDEO -> FilesUtils.upload(Path.of(POSTS_VIDEOS_PATH), file, uuid, contentType);
-            case AUDIO_MP3, AUDIO_OGG -> FilesUtils.upload(Path.of(POSTS_AUDIO_PATH), file, uuid, contentType);
+        Path path = switch (contentType) {
+            case IMAGE -> Path.of(POSTS_IMAGES_PATH);
+            case VIDEO -> Path.of(POSTS_VIDEOS_PATH);
+            case AUDIO_MP3, AUDIO_OGG -> Path.of(POSTS_AUDIO_PATH);
+            default -> throw new ChannelException("Unsupported content type");
+        };
+        StoredFileDTO storedFile = blobStore.upload(path, file, uuid, contentType);
+        try {
+            return transactionTemplate.execute(status -> {
+                ChannelPost post = savePost(null, id, ContentType.IMAGE);
+                ChannelPostFile postFile = new ChannelPostFile();
+                postFile.setPost(post);
+                postFile.setFileUUID(storedFile.uuid());
+                postFile.setContentType(contentType);
+                postFile.setFileExtension(storedFile.extension());
+                filesRepository.save(postFile);
+                return post.getId();
+            });
+        } catch (RuntimeException e) {
+            blobStore.delete(path, storedFile.uuid(), storedFile.extension());
+            throw e;
         }
-        ChannelPost post = savePost(null, id, ContentType.IMAGE);
-        ChannelPostFile postFile = new ChannelPostFile();
-        postFile.setPost(post);
-        postFile.setFileUUID(uuid);
-        postFile.setContentType(contentType);
-        filesRepository.save(postFile);
-        return post.getId();
     }
 
     private ChannelPost savePost(String text, int groupId, ContentType contentType) {
@@ -105,6 +176,7 @@ public class ChannelsPostsService {
             channelLog.setChannel(channel);
             channelsPostsRepository.save(post);
             channelsLogsRepository.save(channelLog);
+            postsCache.evictAfterCommit(channel.getId());
             ResponseChannelPostDTO postDTO = convertToResponseChannelPostDTO(post);
             messagingTemplate.convertAndSend("/topic/channel/" + channel.getWebSocketUUID(), postDTO);
             return post;
@@ -112,8 +184,28 @@ public class ChannelsPostsService {
         throw new ChannelException("Current user is not admin in this channel");
     }
 
-    @Transactional
+    /**
+     * Like {@link #createPost(MultipartFile, int, ContentType)} the file is stored before the transaction,
+     * and deleted if the checks or saving the file fail.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public long addFile(long postId, MultipartFile file, ContentType contentType) {
+        Path path = switch (contentType) {
+            case IMAGE -> Path.of(POSTS_IMAGES_PATH);
+            case VIDEO -> Path.of(POSTS_VIDEOS_PATH);
+            case AUDIO_MP3, AUDIO_OGG -> Path.of(POSTS_AUDIO_PATH);
+            default -> throw new ChannelException("Unsupported content type");
+        };
+        StoredFileDTO storedFile = blobStore.upload(path, file, UUID.randomUUID().toString(), contentType);
+        try {
+            return transactionTemplate.execute(status -> savePostFile(postId, storedFile, contentType));
+        } catch (RuntimeException e) {
+            blobStore.delete(path, storedFile.uuid(), storedFile.extension());
+            throw e;
+        }
+    }
+
+    private long savePostFile(long postId, StoredFileDTO storedFile, ContentType contentType) {
         User curentUser = getCurrentUser();
         ChannelPost post = getById(postId);
         Channel channel = post.getChannel();
@@ -122,21 +214,16 @@ public class ChannelsPostsService {
             if (post.getFiles().size() >= 10) {
                 throw new ChannelException("Files limit exceeded");
             }
-            String uuid = UUID.randomUUID().toString();
-            switch (contentType) {
-                case IMAGE -> FilesUtils.upload(Path.of(POSTS_IMAGES_PATH), file, uuid, contentType);
-                case VIDEO -> FilesUtils.upload(Path.of(POSTS_VIDEOS_PATH), file, uuid, contentType);
-                case AUDIO_MP3, AUDIO_OGG -> FilesUtils.upload(Path.of(POSTS_AUDIO_PATH), file, uuid, contentType);
-                default -> throw new ChannelException("Unsupported content type");
-            }
             ChannelPostFile postFile = new ChannelPostFile();
-            postFile.setFileUUID(uuid);
+            postFile.setFileUUID(storedFile.uuid());
             postFile.setPost(post);
             postFile.setContentType(contentType);
+            postFile.setFileExtension(storedFile.extension());
             filesRepository.save(postFile);
             if (post.getContentType() == ContentType.TEXT) {
                 post.setContentType(ContentType.TEXT_FILE);
             }
+            postsCache.evictAfterCommit(channel.getId());
             messagingTemplate.convertAndSend("/topic/channel/" + channel.getWebSocketUUID(),
                     new ResponsePostUpdatingDTO(convertToResponseChannelPostDTO(post)));
             return postFile.getId();
@@ -151,79 +238,77 @@ public class ChannelsPostsService {
         channelsService.getChannelUser(getCurrentUser(), file.getPost().getChannel());
         switch (file.getContentType()) {
             case IMAGE -> {
-                return FilesUtils.download(Path.of(POSTS_IMAGES_PATH), file.getFileUUID(), file.getContentType());
+                return blobStore.download(Path.of(POSTS_IMAGES_PATH), file.getFileUUID(), file.getFileExtension(),
+                        file.getContentType());
             }
             case VIDEO -> {
-                return FilesUtils.download(Path.of(POSTS_VIDEOS_PATH), file.getFileUUID(), file.getContentType());
+                return blobStore.download(Path.of(POSTS_VIDEOS_PATH), file.getFileUUID(), file.getFileExtension(),
+                        file.getContentType());
             }
             case AUDIO_MP3, AUDIO_OGG -> {
-                return FilesUtils.download(Path.of(POSTS_AUDIO_PATH), file.getFileUUID(), file.getContentType());
+                return blobStore.download(Path.of(POSTS_AUDIO_PATH), file.getFileUUID(), file.getFileExtension(),
+                        file.getContentType());
             }
             default -> throw new FileException("File not found");
         }
     }
 
     @Transactional
-    public CompletableFuture<Void> deletePost(long postId) {
+    public TeardownJob deletePost(long postId) {
         User curentUser = getCurrentUser();
         ChannelPost post = getById(postId);
         Channel channel = post.getChannel();
         ChannelUser channelUser = channelsService.getChannelUser(curentUser, channel);
         if (channelUser.getIsAdmin()) {
-            ChannelLog channelLog = new ChannelLog();
-            channelLog.setMessage(channelUser.getUsername() + " deleted post");
-            channelLog.setChannel(channel);
-            channelsLogsRepository.save(channelLog);
-            messagingTemplate.convertAndSend("/topic/channel/" + channel.getWebSocketUUID(),
-                    Map.of("deleted_post_id", postId));
-            ExecutorService executorService = Executors.newFixedThreadPool(2);
-            try {
-                CompletableFuture<Void> deleteFilesTask = CompletableFuture
-                        .runAsync(() -> post.getFiles().forEach(file -> deletePostFile(file, POSTS_IMAGES_PATH,
-                                POSTS_VIDEOS_PATH, POSTS_AUDIO_PATH)), executorService);
-                CompletableFuture<Void> deleteCommentsTask = CompletableFuture.runAsync(() -> {
-                    List<ChannelPostComment> comments;
-                    int page = 0;
-                    do {
-                        comments = commentsRepository.findAllByPostAndContentTypeIsNot(post, ContentType.TEXT,
-                                PageRequest.of(page, 50));
-                        comments.forEach(comment -> deleteCommentFile(comment, COMMENTS_IMAGES_PATH, COMMENTS_VIDEOS_PATH,
-                                COMMENTS_AUDIO_PATH));
-                        page++;
-                    } while (!comments.isEmpty());
-                }, executorService);
-                return CompletableFuture.allOf(deleteFilesTask, deleteCommentsTask)
-                        .thenRun(() -> channelsPostsRepository.deleteById(postId));
-            } finally {
-                executorService.shutdown();
-            }
+            // Only values are passed to the job, entities of this request can't be used on its thread
+            int channelId = channel.getId();
+            String webSocketUUID = channel.getWebSocketUUID();
+            String username = channelUser.getUsername();
+            return teardownExecutor.submit(TeardownJob.Type.CHANNEL_POST, postId, curentUser.getId(), job -> {
+                if (!bulkDeletionService.deleteChannelPost(channelId, postId, job)) {
+                    return;
+                }
+                postsCache.evictAfterCommit(channelId);
+                transactionTemplate.executeWithoutResult(status -> {
+                    ChannelLog channelLog = new ChannelLog();
+                    channelLog.setMessage(username + " deleted post");
+                    channelLog.setChannel(channelsService.getById(channelId));
+                    channelsLogsRepository.save(channelLog);
+                });
+                messagingTemplate.convertAndSend("/topic/channel/" + webSocketUUID, Map.of("deleted_post_id", postId));
+            });
         } else {
             throw new ChannelException("Current user is not admin of this channel");
         }
     }
 
+    /**
+     * Likes the post, liking already liked post changes nothing.
+     *
+     * @return change of post's likes count, which is also sent to channel's subscribers
+     */
     @Transactional
-    public void addPostLike(long postId) {
-        User currentUser = getCurrentUser();
-        ChannelPost post = getById(postId);
-        channelsService.getChannelUser(currentUser, post.getChannel());
-        if (likesRepository.existsByPostAndUser(post, currentUser)) {
-            throw new ChannelException("Post already liked");
-        }
-        likesRepository.save(ChannelPostLike.builder()
-                .post(post)
-                .user(currentUser)
-                .build());
+    public ResponsePostLikesDTO addPostLike(long postId) {
+        return changePostLike(postId, true);
     }
 
     @Transactional
-    public void deletePostLike(long postId) {
+    public ResponsePostLikesDTO deletePostLike(long postId) {
+        return changePostLike(postId, false);
+    }
+
+    private ResponsePostLikesDTO changePostLike(long postId, boolean like) {
         User currentUser = getCurrentUser();
         ChannelPost post = getById(postId);
-        channelsService.getChannelUser(currentUser, post.getChannel());
-        likesRepository.findByPostAndUser(post, currentUser).ifPresentOrElse(likesRepository::delete, () -> {
-            throw new ChannelException("Post is not liked");
-        });
+        Channel channel = post.getChannel();
+        channelsService.getChannelUser(currentUser, channel);
+        int changed = like ? likesRepository.like(postId, currentUser.getId()) :
+                likesRepository.unlike(postId, currentUser.getId());
+        ResponsePostLikesDTO likesDTO = new ResponsePostLikesDTO(postId, like ? changed : -changed);
+        if (changed > 0) {
+            messagingTemplate.convertAndSend("/topic/channel/" + channel.getWebSocketUUID(), likesDTO);
+        }
+        return likesDTO;
     }
 
     @Transactional
@@ -237,6 +322,7 @@ public class ChannelsPostsService {
                 channelPost.setContentType(ContentType.TEXT_FILE);
             }
             channelPost.setText(post.getText());
+            postsCache.evictAfterCommit(channel.getId());
             messagingTemplate.convertAndSend("/topic/channel/" + channel.getWebSocketUUID(),
                     new ResponsePostUpdatingDTO(convertToResponseChannelPostDTO(channelPost)));
         } else {
@@ -246,37 +332,29 @@ public class ChannelsPostsService {
 
     @Transactional
     public long createComment(CreateChannelPostCommentDTO commentDTO) {
-        return saveComment(commentDTO.getPostId(), commentDTO.getComment(), ContentType.TEXT);
+        return saveComment(commentDTO.getPostId(), commentDTO.getComment(), ContentType.TEXT, null);
     }
 
-    @Transactional
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public long createComment(long postId, MultipartFile file, ContentType contentType) {
         String uuid = UUID.randomUUID().toString();
-        Path path;
-        switch (contentType) {
-            case IMAGE -> {
-                path = Path.of(COMMENTS_IMAGES_PATH);
-                FilesUtils.upload(path, file, uuid, contentType);
-            }
-            case VIDEO -> {
-                path = Path.of(COMMENTS_VIDEOS_PATH);
-                FilesUtils.upload(path, file, uuid, contentType);
-            }
-            case AUDIO_MP3, AUDIO_OGG -> {
-                path = Path.of(COMMENTS_AUDIO_PATH);
-                FilesUtils.upload(path, file, uuid, contentType);
-            }
+        Path path = switch (contentType) {
+            case IMAGE -> Path.of(COMMENTS_IMAGES_PATH);
+            case VIDEO -> Path.of(COMMENTS_VIDEOS_PATH);
+            case AUDIO_MP3, AUDIO_OGG -> Path.of(COMMENTS_AUDIO_PATH);
             default -> throw new ChannelException("Unsupported content type");
-        }
+        };
+        StoredFileDTO storedFile = blobStore.upload(path, file, uuid, contentType);
         try {
-            return saveComment(postId, uuid, contentType);
-        } catch (ChannelException e) {
-            FilesUtils.delete(path, uuid);
+            return transactionTemplate.execute(status ->
+                    saveComment(postId, storedFile.uuid(), contentType, storedFile.extension()));
+        } catch (RuntimeException e) {
+            blobStore.delete(path, storedFile.uuid(), storedFile.extension());
             throw e;
         }
     }
 
-    private long saveComment(Long postId, String text, ContentType contentType) {
+    private long saveComment(Long postId, String text, ContentType contentType, String fileExtension) {
         ChannelPost post = getById(postId);
         Channel channel = post.getChannel();
         ChannelUser user = channelsService.getChannelUser(getCurrentUser(), channel);
@@ -294,13 +372,17 @@ public class ChannelsPostsService {
                 .text(text)
                 .owner(user)
                 .contentType(contentType)
+                .fileExtension(fileExtension)
                 .post(post)
                 .createdAt(LocalDateTime.now())
                 .build();
         commentsRepository.save(comment);
+        channelsPostsRepository.addCommentsCount(post.getId(), 1);
         ResponseChannelPostCommentDTO commentDTO = modelMapper.map(comment, ResponseChannelPostCommentDTO.class);
         if (isFile) {
             commentDTO.setText(null);
+            commentDTO.setFileUrl(mediaUrlSigner.sign(MediaBucket.CHANNELS_POSTS_COMMENTS, text, fileExtension,
+                    contentType));
         }
         commentDTO.setOwner(modelMapper.map(comment.getOwner(), ResponseUserDTO.class));
         messagingTemplate.convertAndSend("/topic/channel/" + channel.getWebSocketUUID() + "/post/" + post.getId() + "/comments", commentDTO);
@@ -314,13 +396,16 @@ public class ChannelsPostsService {
         channelsService.getChannelUser(getCurrentUser(), channel);
         switch (comment.getContentType()) {
             case IMAGE -> {
-                return FilesUtils.download(Path.of(COMMENTS_IMAGES_PATH), comment.getText(), comment.getContentType());
+                return blobStore.download(Path.of(COMMENTS_IMAGES_PATH), comment.getText(), comment.getFileExtension(),
+                        comment.getContentType());
             }
             case VIDEO -> {
-                return FilesUtils.download(Path.of(COMMENTS_VIDEOS_PATH), comment.getText(), comment.getContentType());
+                return blobStore.download(Path.of(COMMENTS_VIDEOS_PATH), comment.getText(), comment.getFileExtension(),
+                        comment.getContentType());
             }
             case AUDIO_MP3, AUDIO_OGG -> {
-                return FilesUtils.download(Path.of(COMMENTS_AUDIO_PATH), comment.getText(), comment.getContentType());
+                return blobStore.download(Path.of(COMMENTS_AUDIO_PATH), comment.getText(), comment.getFileExtension(),
+                        comment.getContentType());
             }
             default -> throw new ChannelException("Comment is not file");
         }
@@ -335,9 +420,10 @@ public class ChannelsPostsService {
         Channel channel = post.getChannel();
         ChannelUser channelUser = channelsService.getChannelUser(currentUser, channel);
         if (comment.getOwner().getId() == channelUser.getId() || channelUser.getIsAdmin()) {
-            deleteCommentFile(comment, COMMENTS_IMAGES_PATH, COMMENTS_VIDEOS_PATH, COMMENTS_AUDIO_PATH);
+            deleteCommentFile(filesDeletionsService, comment, COMMENTS_IMAGES_PATH, COMMENTS_VIDEOS_PATH, COMMENTS_AUDIO_PATH);
             commentsRepository.delete(comment);
             post.getComments().remove(comment);
+            channelsPostsRepository.addCommentsCount(post.getId(), -1);
             messagingTemplate.convertAndSend("/topic/channel/" + channel.getWebSocketUUID() + "/post/" + post.getId() + "/comments",
                     Map.of("deleted_comment_id", commentId));
         } else {
@@ -365,20 +451,30 @@ public class ChannelsPostsService {
         }
     }
 
-    public List<ResponseChannelPostCommentDTO> getPostComments(long postId, int page, int count) {
+    /**
+     * @param beforeId id of the last comment of the previous page, null for the first page
+     */
+    public List<ResponseChannelPostCommentDTO> getPostComments(long postId, Long beforeId, int count) {
         ChannelPost post = getById(postId);
         Channel channel = post.getChannel();
         channelsService.getChannelUser(getCurrentUser(), channel);
         if (!channel.isPostsCommentsAllowed()) {
             return Collections.emptyList();
         }
-        return commentsRepository.findAllByPost(post, PageRequest.of(page, count, Sort.by(Sort.Direction.DESC, "id"))).stream()
+        return commentsRepository.findPostComments(postId, beforeId != null ? beforeId : Long.MAX_VALUE,
+                        PageRequest.of(0, count)).stream()
                 .map(comment -> {
-                    ResponseChannelPostCommentDTO commentDTO = modelMapper.map(comment, ResponseChannelPostCommentDTO.class);
-                    User commentOwner = userService.getByUsername(comment.getOwner().getUsername());
-                    commentDTO.setOwner(modelMapper.map(commentOwner, ResponseUserDTO.class));
+                    ResponseChannelPostCommentDTO commentDTO = new ResponseChannelPostCommentDTO();
+                    commentDTO.setId(comment.getId());
+                    commentDTO.setContentType(comment.getContentType());
+                    commentDTO.setCreatedAt(comment.getCreatedAt());
+                    commentDTO.setOwner(new ResponseUserDTO(comment.getOwnerId(), comment.getOwnerUsername(),
+                            comment.getOwnerOnlineStatus(), comment.isOwnerBanned()));
                     if (comment.getContentType() != ContentType.TEXT) {
-                        commentDTO.setText(null);
+                        commentDTO.setFileUrl(mediaUrlSigner.sign(MediaBucket.CHANNELS_POSTS_COMMENTS, comment.getText(),
+                                comment.getFileExtension(), comment.getContentType()));
+                    } else {
+                        commentDTO.setText(comment.getText());
                     }
                     return commentDTO;
                 }).toList();
@@ -390,35 +486,36 @@ public class ChannelsPostsService {
     }
 
     private ResponseChannelPostDTO convertToResponseChannelPostDTO(ChannelPost post) {
-        User currentUser = userService.getById(getCurrentUser().getId());
+        return convertToResponseChannelPostDTO(post, !likesRepository.findLikedPostsIds(List.of(post.getId()),
+                getCurrentUser().getId()).isEmpty());
+    }
+
+    private ResponseChannelPostDTO convertToResponseChannelPostDTO(ChannelPost post, boolean liked) {
         return ResponseChannelPostDTO.builder()
                 .text(post.getText())
                 .id(post.getId())
+                .channelId(post.getChannel().getId())
                 .owner(modelMapper.map(post.getOwner(), ResponseUserDTO.class))
-                .commentsCount(commentsRepository.countByPost(post))
-                .likes(likesRepository.countByPost(post))
-                .isLiked(likesRepository.existsByPostAndUser(post, currentUser))
+                .commentsCount(post.getCommentsCount())
+                .likes(post.getLikesCount())
+                .isLiked(liked)
                 .contentType(post.getContentType())
                 .files(post.getFiles() != null ? post.getFiles().stream()
-                        .map(file -> new ResponseChannelPostFilesDTO(file.getId()))
+                        .map(file -> new ResponseChannelPostFilesDTO(file.getId(), mediaUrlSigner.sign(
+                                MediaBucket.CHANNELS_POSTS, file.getFileUUID(), file.getFileExtension(),
+                                file.getContentType())))
                         .toList() : Collections.emptyList())
                 .createdAt(post.getCreatedAt())
                 .build();
     }
 
-    static void deletePostFile(ChannelPostFile file, String imagesPath, String videosPath, String audioPath) {
-        switch (file.getContentType()) {
-            case IMAGE -> FilesUtils.delete(Path.of(imagesPath), file.getFileUUID());
-            case VIDEO -> FilesUtils.delete(Path.of(videosPath), file.getFileUUID());
-            case AUDIO_MP3, AUDIO_OGG -> FilesUtils.delete(Path.of(audioPath), file.getFileUUID());
-        }
-    }
-
-    static void deleteCommentFile(ChannelPostComment comment, String imagesPath, String videosPath, String audioPath) {
+    static void deleteCommentFile(FilesDeletionsService filesDeletionsService, ChannelPostComment comment,
+                                  String imagesPath, String videosPath, String audioPath) {
         switch (comment.getContentType()) {
-            case IMAGE -> FilesUtils.delete(Path.of(imagesPath), comment.getText());
-            case VIDEO -> FilesUtils.delete(Path.of(videosPath), comment.getText());
-            case AUDIO_OGG, AUDIO_MP3 -> FilesUtils.delete(Path.of(audioPath), comment.getText());
+            case IMAGE -> filesDeletionsService.delete(Path.of(imagesPath), comment.getText(), comment.getFileExtension());
+            case VIDEO -> filesDeletionsService.delete(Path.of(videosPath), comment.getText(), comment.getFileExtension());
+            case AUDIO_OGG, AUDIO_MP3 -> filesDeletionsService.delete(Path.of(audioPath), comment.getText(),
+                    comment.getFileExtension());
         }
     }
 }
@@ -5,13 +5,14 @@ import danix.app.messenger_service.models.*;
 import danix.app.messenger_service.repositories.*;
 import danix.app.messenger_service.util.ChannelException;
 import danix.app.messenger_service.util.FileException;
-import danix.app.messenger_service.util.FilesUtils;
+import danix.app.messenger_service.util.BlobStore;
+import danix.app.messenger_service.util.TeardownExecutor;
+import danix.app.messenger_service.util.TeardownJob;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
@@ -21,9 +22,6 @@ import org.springframework.web.multipart.MultipartFile;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 import static danix.app.messenger_service.services.UserService.getCurrentUser;
@@ -45,23 +43,14 @@ public class ChannelsService {
     private final ChannelsPostsRepository channelsPostsRepository;
     private final SimpMessagingTemplate messagingTemplate;
     private final ChannelsPostsCommentsRepository postsCommentsRepository;
+    private final BlobStore blobStore;
+    private final TeardownExecutor teardownExecutor;
+    private final BulkDeletionService bulkDeletionService;
 
     @Value("${default_channels_image_uuid}")
     private String DEFAULT_IMAGE_UUID;
     @Value("${channels_avatars_path}")
     private String AVATARS_PATH;
-    @Value("${channels_posts_images_path}")
-    private String POSTS_IMAGES_PATH;
-    @Value("${channels_posts_comments_images_path}")
-    private String COMMENTS_IMAGES_PATH;
-    @Value("${channels_posts_comments_videos_path}")
-    private String COMMENTS_VIDEOS_PATH;
-    @Value("${channels_posts_videos_path}")
-    private String POSTS_VIDEOS_PATH;
-    @Value("${channels_posts_comments_audio_path}")
-    private String COMMENTS_AUDIO_PATH;
-    @Value("${channels_posts_audio_path}")
-    private String POSTS_AUDIO_PATH;
 
     public List<ResponseChannelDTO> getAllUserChannels() {
         User currentUser = userService.getById(getCurrentUser().getId());
@@ -122,13 +111,13 @@ public class ChannelsService {
         if (channel.getOwner().getId() != getCurrentUser().getId()) {
             throw new ChannelException("Current user must be owner of channel");
         }
-        String uuid = UUID.randomUUID().toString();
-        FilesUtils.upload(Path.of(AVATARS_PATH), image, uuid, ContentType.IMAGE);
+        String uuid = blobStore.upload(Path.of(AVATARS_PATH), image, UUID.randomUUID().toString(), ContentType.IMAGE)
+                .uuid();
         if (channel.getImage().equals(DEFAULT_IMAGE_UUID)) {
             channel.setImage(uuid);
             return;
         }
-        FilesUtils.delete(Path.of(AVATARS_PATH), channel.getImage());
+        blobStore.delete(Path.of(AVATARS_PATH), channel.getImage());
         channel.setImage(uuid);
         sendUpdateChannelMessage(channel, true);
     }
@@ -136,7 +125,7 @@ public class ChannelsService {
     public ResponseFileDTO getImage(int channelId) {
         Channel channel = getById(channelId);
         getChannelUser(getCurrentUser(), channel);
-        return FilesUtils.download(Path.of(AVATARS_PATH), channel.getImage(), ContentType.IMAGE);
+        return blobStore.download(Path.of(AVATARS_PATH), channel.getImage(), ContentType.IMAGE);
     }
 
     @Transactional
@@ -148,7 +137,7 @@ public class ChannelsService {
         if (channel.getImage().equals(DEFAULT_IMAGE_UUID)) {
             throw new FileException("Channel already have default image");
         }
-        FilesUtils.delete(Path.of(AVATARS_PATH), channel.getImage());
+        blobStore.delete(Path.of(AVATARS_PATH), channel.getImage());
         channel.setImage(DEFAULT_IMAGE_UUID);
         sendUpdateChannelMessage(channel, true);
     }
@@ -191,7 +180,7 @@ public class ChannelsService {
     }
 
     @Transactional
-    public CompletableFuture<Void> leaveChannel(int id) {
+    public TeardownJob leaveChannel(int id) {
         Channel channel = getById(id);
         User currentUser = getCurrentUser();
         ChannelUser currentChannelUser = channelsUsersRepository.findByUserAndChannel(currentUser, channel)
@@ -389,58 +378,20 @@ public class ChannelsService {
     }
 
     @Transactional
-    public CompletableFuture<Void> deleteChannel(int id) {
+    public TeardownJob deleteChannel(int id) {
         Channel channel = getById(id);
         User currentUser = getCurrentUser();
         if (channel.getOwner().getId() == currentUser.getId()) {
-            if (channel.getImage() != null && !channel.getImage().equals(DEFAULT_IMAGE_UUID)) {
-                FilesUtils.delete(Path.of(AVATARS_PATH), channel.getImage());
-            }
-            ExecutorService executorService = Executors.newFixedThreadPool(3);
-            return CompletableFuture.runAsync(() -> {
-                try {
-                    int postsPage = 0;
-                    while (true) {
-                        Sort sort = Sort.by(Sort.Direction.DESC, "id");
-                        List<Long> ids = channelsPostsRepository.findAllByChannel(channel,
-                                PageRequest.of(postsPage, 50, sort)).stream()
-                                                 .map(IdProjection::getId)
-                                                 .toList();
-                        if (ids.isEmpty()) {
-                            break;
-                        }
-                        List<ChannelPost> posts = channelsPostsRepository.findAllByIdIn(ids, sort);
-                        CompletableFuture<Void> deleteFilesTask = CompletableFuture.runAsync(() -> {
-                            for (ChannelPost post : posts) {
-                                for (ChannelPostFile file : post.getFiles()) {
-                                    ChannelsPostsService.deletePostFile(file, POSTS_IMAGES_PATH, POSTS_VIDEOS_PATH,
-                                            POSTS_AUDIO_PATH);
-                                }
-                            }
-                        });
-                        CompletableFuture<Void> deleteCommentsTask = CompletableFuture.runAsync(() -> {
-                            for (ChannelPost post : posts) {
-                                int commentsPage = 0;
-                                List<ChannelPostComment> comments;
-                                do {
-                                    comments = postsCommentsRepository.findAllByPostAndContentTypeIsNot(post, ContentType.TEXT,
-                                            PageRequest.of(commentsPage, 50));
-                                    comments.forEach(comment -> ChannelsPostsService.deleteCommentFile(comment, COMMENTS_IMAGES_PATH,
-                                            COMMENTS_VIDEOS_PATH, COMMENTS_AUDIO_PATH));
-                                    commentsPage++;
-                                } while (!comments.isEmpty());
-                            }
-                        }, executorService);
-                        CompletableFuture.allOf(deleteFilesTask, deleteCommentsTask).join();
-                        postsPage++;
-                    }
-                    channelsRepository.deleteById(channel.getId());
-                    messagingTemplate.convertAndSend("/topic/channel/" + channel.getWebSocketUUID(),
-                            Map.of("deleted", true));
-                } finally {
-                    executorService.shutdown();
+            String image = channel.getImage();
+            String webSocketUUID = channel.getWebSocketUUID();
+            return teardownExecutor.submit(TeardownJob.Type.CHANNEL, id, currentUser.getId(), job -> {
+                bulkDeletionService.deleteChannelPosts(id, job);
+                channelsRepository.deleteById(id);
+                if (image != null && !image.equals(DEFAULT_IMAGE_UUID)) {
+                    blobStore.delete(Path.of(AVATARS_PATH), image);
                 }
-            }, executorService);
+                messagingTemplate.convertAndSend("/topic/channel/" + webSocketUUID, Map.of("deleted", true));
+            });
         } else {
             throw new ChannelException("Current user must be owner of channel");
         }
@@ -5,15 +5,18 @@ import danix.app.messenger_service.models.*;
 import danix.app.messenger_service.repositories.BlockedUsersRepository;
 import danix.app.messenger_service.repositories.ChatsMessagesRepository;
 import danix.app.messenger_service.repositories.ChatsRepository;
+import danix.app.messenger_service.security.MediaUrlSigner;
 import danix.app.messenger_service.util.ChatException;
-import danix.app.messenger_service.util.FilesUtils;
+import danix.app.messenger_service.util.BlobStore;
 import danix.app.messenger_service.util.MessageException;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.nio.file.Path;
@@ -27,11 +30,19 @@ import static danix.app.messenger_service.services.UserService.getCurrentUser;
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class ChatsMessagesService {
+    // Length of last message preview in chats list, also used by ChatsRepository.refreshLastMessage
+    private static final int PREVIEW_LENGTH = 100;
+
     private final ChatsMessagesRepository messagesRepository;
     private final ChatsRepository chatsUsersRepository;
     private final BlockedUsersRepository blockedUsersRepository;
     private final SimpMessagingTemplate messagingTemplate;
     private final ModelMapper modelMapper;
+    private final MediaUrlSigner mediaUrlSigner;
+    private final BlobStore blobStore;
+    private final TransactionTemplate transactionTemplate;
+    private final FilesDeletionsService filesDeletionsService;
+    private final UnreadCountersService unreadCountersService;
 
     @Value("${chats_images_path}")
     private String CHATS_IMAGES_PATH;
@@ -42,10 +53,14 @@ public class ChatsMessagesService {
 
     @Transactional
     public long sendTextMessage(String message, int chatId) {
-       return sendMessage(message, ContentType.TEXT, chatId);
+       return sendMessage(message, ContentType.TEXT, null, chatId);
     }
 
-    @Transactional
+    /**
+     * The file is stored before the transaction is opened, so the upload doesn't hold a database connection.
+     * If the message can't be saved the stored file is deleted.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public long sendFile(MultipartFile file, int chatId, ContentType contentType) {
         String uuid = UUID.randomUUID().toString();
         String path = switch (contentType) {
@@ -54,17 +69,17 @@ public class ChatsMessagesService {
             case AUDIO_OGG, AUDIO_MP3 -> CHATS_AUDIO_PATH;
             default -> throw new MessageException("Unsupported content type");
         };
-        FilesUtils.upload(Path.of(path), file, uuid, contentType);
+        StoredFileDTO storedFile = blobStore.upload(Path.of(path), file, uuid, contentType);
         try {
-            return sendMessage(uuid, contentType, chatId);
-        } catch (MessageException e) {
-            FilesUtils.delete(Path.of(CHATS_IMAGES_PATH), uuid);
-            FilesUtils.delete(Path.of(CHATS_VIDEOS_PATH), uuid);
+            return transactionTemplate.execute(status ->
+                    sendMessage(storedFile.uuid(), contentType, storedFile.extension(), chatId));
+        } catch (RuntimeException e) {
+            blobStore.delete(Path.of(path), storedFile.uuid(), storedFile.extension());
             throw e;
         }
     }
 
-    private long sendMessage(String message, ContentType contentType, int chatId) {
+    private long sendMessage(String message, ContentType contentType, String fileExtension, int chatId) {
         User currentUser = getCurrentUser();
         Chat chat = chatsUsersRepository.findById(chatId)
                 .orElseThrow(() -> new ChatException("Chat not found"));
@@ -78,15 +93,19 @@ public class ChatsMessagesService {
                 .text(message)
                 .owner(currentUser)
                 .contentType(contentType)
+                .fileExtension(fileExtension)
                 .sentTime(LocalDateTime.now())
                 .chat(chat)
-                .isRead(false)
                 .build();
         messagesRepository.save(chatMessage);
+        chatsUsersRepository.updateLastMessage(chat.getId(), chatMessage.getId(), preview(chatMessage),
+                contentType.name(), chatMessage.getSentTime());
+        unreadCountersService.changeChatUnreadCount(chat, user, chatMessage.getId(), 1);
         ResponseChatMessageDTO messageDTO = modelMapper.map(chatMessage, ResponseChatMessageDTO.class);
         messageDTO.setSender(modelMapper.map(chatMessage.getOwner(), ResponseUserDTO.class));
         if (contentType != ContentType.TEXT) {
             messageDTO.setText(null);
+            messageDTO.setFileUrl(mediaUrlSigner.sign(MediaBucket.CHATS, message, fileExtension, contentType));
         }
         messagingTemplate.convertAndSend("/topic/chat/" + chat.getWebSocketUUID(), messageDTO);
         return chatMessage.getId();
@@ -96,11 +115,18 @@ public class ChatsMessagesService {
     public void deleteMessage(long messageId) {
         ChatMessage message = checkMessage(messageId);
         switch (message.getContentType()) {
-            case IMAGE -> FilesUtils.delete(Path.of(CHATS_IMAGES_PATH), message.getText());
-            case VIDEO -> FilesUtils.delete(Path.of(CHATS_VIDEOS_PATH), message.getText());
-            case AUDIO_MP3, AUDIO_OGG -> FilesUtils.delete(Path.of(CHATS_AUDIO_PATH), message.getText());
+            case IMAGE -> filesDeletionsService.delete(Path.of(CHATS_IMAGES_PATH), message.getText(),
+                    message.getFileExtension());
+            case VIDEO -> filesDeletionsService.delete(Path.of(CHATS_VIDEOS_PATH), message.getText(),
+                    message.getFileExtension());
+            case AUDIO_MP3, AUDIO_OGG -> filesDeletionsService.delete(Path.of(CHATS_AUDIO_PATH), message.getText(),
+                    message.getFileExtension());
         }
         messagesRepository.delete(message);
+        Chat chat = message.getChat();
+        chatsUsersRepository.refreshLastMessage(chat.getId(), messageId);
+        unreadCountersService.changeChatUnreadCount(chat, chat.getUser1().getId() == message.getOwner().getId() ?
+                chat.getUser2() : chat.getUser1(), messageId, -1);
         messagingTemplate.convertAndSend("/topic/chat/" + message.getChat().getWebSocketUUID(),
                 Map.of("deleted_message_id", messageId));
     }
@@ -112,6 +138,7 @@ public class ChatsMessagesService {
             throw new MessageException("The image cannot be changed");
         }
         message.setText(text);
+        chatsUsersRepository.updateLastMessagePreview(message.getChat().getId(), messageId, preview(message));
         ResponseMessageUpdatingDTO response = modelMapper.map(message, ResponseMessageUpdatingDTO.class);
         response.setSenderId(message.getOwner().getId());
         messagingTemplate.convertAndSend("/topic/chat/" + message.getChat().getWebSocketUUID(), response);
@@ -127,18 +154,29 @@ public class ChatsMessagesService {
         }
         switch (chatMessage.getContentType()) {
             case IMAGE -> {
-                return FilesUtils.download(Path.of(CHATS_IMAGES_PATH), chatMessage.getText(), ContentType.IMAGE);
+                return blobStore.download(Path.of(CHATS_IMAGES_PATH), chatMessage.getText(),
+                        chatMessage.getFileExtension(), ContentType.IMAGE);
             }
             case VIDEO -> {
-                return FilesUtils.download(Path.of(CHATS_VIDEOS_PATH), chatMessage.getText(), ContentType.VIDEO);
+                return blobStore.download(Path.of(CHATS_VIDEOS_PATH), chatMessage.getText(),
+                        chatMessage.getFileExtension(), ContentType.VIDEO);
             }
             case AUDIO_MP3, AUDIO_OGG -> {
-                return FilesUtils.download(Path.of(CHATS_AUDIO_PATH), chatMessage.getText(), chatMessage.getContentType());
+                return blobStore.download(Path.of(CHATS_AUDIO_PATH), chatMessage.getText(),
+                        chatMessage.getFileExtension(), chatMessage.getContentType());
             }
             default -> throw new MessageException("Message is not file");
         }
     }
 
+    private static String preview(ChatMessage message) {
+        if (message.getContentType() != ContentType.TEXT) {
+            return null;
+        }
+        String text = message.getText();
+        return text.length() > PREVIEW_LENGTH ? text.substring(0, PREVIEW_LENGTH) : text;
+    }
+
     private ChatMessage checkMessage(long messageId) {
         User currentUser = getCurrentUser();
         ChatMessage message = messagesRepository.findById(messageId)
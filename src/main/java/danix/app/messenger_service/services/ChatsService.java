@@ -3,27 +3,26 @@ package danix.app.messenger_service.services;
 import danix.app.messenger_service.dto.*;
 import danix.app.messenger_service.models.ChatMessage;
 import danix.app.messenger_service.models.ContentType;
+import danix.app.messenger_service.models.MediaBucket;
 import danix.app.messenger_service.models.User;
 import danix.app.messenger_service.models.Chat;
 import danix.app.messenger_service.repositories.BlockedUsersRepository;
 import danix.app.messenger_service.repositories.ChatsMessagesRepository;
 import danix.app.messenger_service.repositories.ChatsRepository;
+import danix.app.messenger_service.security.MediaUrlSigner;
 import danix.app.messenger_service.util.ChatException;
-import danix.app.messenger_service.util.FilesUtils;
+import danix.app.messenger_service.util.TeardownExecutor;
+import danix.app.messenger_service.util.TeardownJob;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.nio.file.Path;
-import java.util.List;
-import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
 
 import static danix.app.messenger_service.services.UserService.getCurrentUser;
 
@@ -31,48 +30,91 @@ import static danix.app.messenger_service.services.UserService.getCurrentUser;
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class ChatsService {
+    // Later than last activity of any chat, PostgreSQL timestamp can't store LocalDateTime.MAX
+    private static final LocalDateTime FIRST_PAGE_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+
     private final UserService userService;
     private final ChatsRepository chatsRepository;
     private final ChatsMessagesRepository messagesRepository;
     private final BlockedUsersRepository blockedUsersRepository;
     private final ModelMapper modelMapper;
     private final SimpMessagingTemplate messagingTemplate;
-    @Value("${chats_images_path}")
-    private String IMAGES_PATH;
-    @Value("${chats_videos_path}")
-    private String VIDEOS_PATH;
-    @Value("${chats_audio_path}")
-    private String AUDIO_PATH;
+    private final MediaUrlSigner mediaUrlSigner;
+    private final TeardownExecutor teardownExecutor;
+    private final BulkDeletionService bulkDeletionService;
+    private final UnreadCountersService unreadCountersService;
 
+    /**
+     * Returns chat with {@code count} messages older than {@code beforeId}, newest first, or newer than
+     * {@code afterId}, oldest first. Without both the newest messages are returned.
+     * Messages of the other user up to the newest returned one become read by the current user.
+     */
     @Transactional
-    public ShowChatDTO showChat(int id, int page, int count) {
+    public ShowChatDTO showChat(int id, Long beforeId, Long afterId, int count) {
         User currentUser = getCurrentUser();
         Chat chat = chatsRepository.findById(id)
                 .orElseThrow(() -> new ChatException("Chat not found"));
         if (chat.getUser1().getId() != currentUser.getId() && chat.getUser2().getId() != currentUser.getId()) {
             throw new ChatException("User not exist in this chat");
         }
-        List<ChatMessage> messages = messagesRepository.findAllByChat(chat,
-                PageRequest.of(page, count, Sort.by(Sort.Direction.DESC, "id")));
-        messages.forEach(message -> message.setRead(true));
+        if (beforeId != null && afterId != null) {
+            throw new ChatException("Only one of before_id and after_id can be set");
+        }
+        List<ChatMessage> messages = afterId != null ?
+                messagesRepository.findAllByChatAfter(chat, afterId, PageRequest.of(0, count)) :
+                messagesRepository.findAllByChatBefore(chat, beforeId != null ? beforeId : Long.MAX_VALUE,
+                        PageRequest.of(0, count));
+        boolean isUser1 = chat.getUser1().getId() == currentUser.getId();
+        long readByOtherUser = isUser1 ? chat.getUser2LastReadMessageId() : chat.getUser1LastReadMessageId();
+        long lastReadMessageId = isUser1 ? chat.getUser1LastReadMessageId() : chat.getUser2LastReadMessageId();
+        long readByCurrentUser = Math.max(lastReadMessageId, markRead(chat, currentUser, lastReadMessageId, messages));
         return ShowChatDTO.builder()
                 .id(chat.getId())
                 .messages(messages.stream()
                         .map(message -> {
                             ResponseChatMessageDTO messageDTO = modelMapper.map(message, ResponseChatMessageDTO.class);
+                            messageDTO.setRead(message.getId() <= (message.getOwner().getId() == currentUser.getId() ?
+                                    readByOtherUser : readByCurrentUser));
                             if (message.getContentType() != ContentType.TEXT) {
                                 messageDTO.setText(null);
+                                messageDTO.setFileUrl(mediaUrlSigner.sign(MediaBucket.CHATS, message.getText(),
+                                        message.getFileExtension(), message.getContentType()));
                             }
                             messageDTO.setSender(modelMapper.map(message.getOwner(), ResponseUserDTO.class));
                             return messageDTO;
                         })
                         .toList())
+                .nextCursor(messages.size() < count ? null : messages.get(messages.size() - 1).getId())
                 .webSocketUUID(chat.getWebSocketUUID())
                 .user(modelMapper.map(chat.getUser1().getId() == getCurrentUser().getId() ? chat.getUser2() : chat.getUser1(),
                         ResponseUserDTO.class))
                 .build();
     }
 
+    /**
+     * Marks the newest of the other user's messages as the last read one and sends it to the chat,
+     * new unread messages count is sent to the current user.
+     *
+     * @return id of the marked message or 0 if there is nothing to mark
+     */
+    private long markRead(Chat chat, User currentUser, long lastReadMessageId, List<ChatMessage> messages) {
+        long lastMessageId = messages.stream()
+                .filter(message -> message.getOwner().getId() != currentUser.getId())
+                .mapToLong(ChatMessage::getId)
+                .max()
+                .orElse(0);
+        Integer unreadCount = lastMessageId <= lastReadMessageId ? null :
+                chatsRepository.markRead(chat.getId(), currentUser.getId(), lastMessageId);
+        if (unreadCount == null) {
+            return 0;
+        }
+        messagingTemplate.convertAndSend("/topic/chat/" + chat.getWebSocketUUID(),
+                new ResponseChatReadDTO(currentUser.getId(), lastMessageId));
+        unreadCountersService.send(currentUser.getWebSocketUUID(), ResponseUnreadCountDTO.Type.CHAT, chat.getId(),
+                unreadCount);
+        return lastMessageId;
+    }
+
     @Transactional
     public long createChat(int userId) {
         User currentUser = getCurrentUser();
@@ -105,41 +147,57 @@ public class ChatsService {
     }
 
     @Transactional
-    public CompletableFuture<Void> deleteChat(int id) {
+    public TeardownJob deleteChat(int id) {
         Chat chat = getById(id);
         checkUserInChat(chat);
-        return CompletableFuture.runAsync(() -> {
-           List<ChatMessage> messages;
-           int page = 0;
-           do {
-               messages = messagesRepository.findAllByChatAndContentTypeIsNot(chat, ContentType.TEXT,
-                       PageRequest.of(page, 50));
-               for (ChatMessage message : messages) {
-                   switch (message.getContentType()) {
-                       case IMAGE -> FilesUtils.delete(Path.of(IMAGES_PATH), message.getText());
-                       case VIDEO -> FilesUtils.delete(Path.of(VIDEOS_PATH), message.getText());
-                       case AUDIO_MP3, AUDIO_OGG -> FilesUtils.delete(Path.of(AUDIO_PATH), message.getText());
-                   }
-               }
-               page++;
-           } while (!messages.isEmpty());
-           chatsRepository.deleteById(id);
-           messagingTemplate.convertAndSend("/topic/chat/" + chat.getWebSocketUUID(),
-                    Map.of("deleted", true));
+        String webSocketUUID = chat.getWebSocketUUID();
+        return teardownExecutor.submit(TeardownJob.Type.CHAT, id, getCurrentUser().getId(), job -> {
+            bulkDeletionService.deleteChatMessages(id, job);
+            chatsRepository.deleteById(id);
+            messagingTemplate.convertAndSend("/topic/chat/" + webSocketUUID, Map.of("deleted", true));
         });
     }
 
-    public List<ResponseChatDTO> getAllUserChats() {
+    /**
+     * Returns chats of the current user ordered by last activity, newest first. The cursor is an opaque value
+     * returned in the previous page, {@code null} for the first page.
+     */
+    public ResponseChatsDTO getAllUserChats(String cursor, int count) {
         User currentUser = getCurrentUser();
-        return chatsRepository.findByUser1OrUser2(currentUser, currentUser).stream()
+        LocalDateTime beforeTime = FIRST_PAGE_TIME;
+        int beforeId = Integer.MAX_VALUE;
+        if (cursor != null) {
+            try {
+                String[] key = new String(Base64.getUrlDecoder().decode(cursor)).split(";");
+                beforeTime = LocalDateTime.parse(key[0]);
+                beforeId = Integer.parseInt(key[1]);
+            } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+                throw new ChatException("Invalid cursor");
+            }
+        }
+        List<Integer> ids = chatsRepository.findInboxIds(currentUser.getId(), beforeTime, beforeId, count);
+        if (ids.isEmpty()) {
+            return new ResponseChatsDTO(Collections.emptyList(), null);
+        }
+        List<Chat> chats = chatsRepository.findInbox(ids);
+        Chat lastChat = chats.get(chats.size() - 1);
+        String nextCursor = ids.size() < count ? null : Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((lastChat.getLastActivityAt() + ";" + lastChat.getId()).getBytes());
+        return new ResponseChatsDTO(chats.stream()
                 .map(chat -> {
+                    boolean isUser1 = chat.getUser1().getId() == currentUser.getId();
                     ResponseChatDTO responseChatDTO = new ResponseChatDTO();
-                    User user = chat.getUser1().getId() == getCurrentUser().getId() ? chat.getUser2() : chat.getUser1();
-                    responseChatDTO.setUser(modelMapper.map(user, ResponseUserDTO.class));
+                    responseChatDTO.setUser(modelMapper.map(isUser1 ? chat.getUser2() : chat.getUser1(),
+                            ResponseUserDTO.class));
                     responseChatDTO.setId(chat.getId());
+                    responseChatDTO.setLastMessageId(chat.getLastMessageId());
+                    responseChatDTO.setLastMessagePreview(chat.getLastMessagePreview());
+                    responseChatDTO.setLastMessageType(chat.getLastMessageType());
+                    responseChatDTO.setLastActivityAt(chat.getLastActivityAt());
+                    responseChatDTO.setUnreadCount(isUser1 ? chat.getUser1UnreadCount() : chat.getUser2UnreadCount());
                     return responseChatDTO;
                 })
-                .toList();
+                .toList(), nextCursor);
     }
 
     private Chat getById(int id) {
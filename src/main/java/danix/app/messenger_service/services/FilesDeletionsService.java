@@ -0,0 +1,112 @@
+package danix.app.messenger_service.services;
+
+import danix.app.messenger_service.models.FileDeletion;
+import danix.app.messenger_service.repositories.FilesDeletionsRepository;
+import danix.app.messenger_service.util.BlobStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Deletes files in background. Services save the deletion in the same transaction as the deleted row,
+ * so the file is deleted only if the row is, and requests don't wait for the storage.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class FilesDeletionsService {
+    private static final int BATCH_SIZE = 100;
+    private static final int MAX_ATTEMPTS = 10;
+    private static final Duration MAX_RETRY_DELAY = Duration.ofHours(6);
+
+    private final FilesDeletionsRepository deletionsRepository;
+    private final BlobStore blobStore;
+    private final TransactionTemplate transactionTemplate;
+
+    @Transactional
+    public void delete(Path filesPath, String fileUUID, String fileExtension) {
+        FileDeletion deletion = new FileDeletion();
+        deletion.setFilesPath(filesPath.toString());
+        deletion.setFileUUID(fileUUID);
+        deletion.setFileExtension(fileExtension);
+        deletion.setCreatedAt(LocalDateTime.now());
+        deletion.setNextAttemptAt(deletion.getCreatedAt());
+        deletionsRepository.save(deletion);
+    }
+
+    /**
+     * @return count of deleted files
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int deleteScheduledFiles() {
+        int deleted = 0;
+        List<Long> ids;
+        boolean processed;
+        do {
+            ids = deletionsRepository.findDueIds(LocalDateTime.now(), PageRequest.of(0, BATCH_SIZE));
+            processed = false;
+            for (long id : ids) {
+                switch (deleteFile(id)) {
+                    case DELETED -> {
+                        deleted++;
+                        processed = true;
+                    }
+                    case FAILED -> processed = true;
+                }
+            }
+            // Rows locked by another instance are left to it
+        } while (ids.size() == BATCH_SIZE && processed);
+        return deleted;
+    }
+
+    private enum Result {
+        DELETED,
+        FAILED,
+        LOCKED
+    }
+
+    // Every file is deleted in its own transaction, so a failed one doesn't roll back the others
+    private Result deleteFile(long id) {
+        try {
+            return transactionTemplate.execute(status -> deletionsRepository.lockById(id)
+                    .map(deletion -> {
+                        blobStore.delete(Path.of(deletion.getFilesPath()), deletion.getFileUUID(),
+                                deletion.getFileExtension());
+                        deletionsRepository.delete(deletion);
+                        return Result.DELETED;
+                    })
+                    .orElse(Result.LOCKED));
+        } catch (RuntimeException e) {
+            transactionTemplate.executeWithoutResult(status -> deletionsRepository.findById(id)
+                    .ifPresent(deletion -> retry(deletion, e)));
+            return Result.FAILED;
+        }
+    }
+
+    private void retry(FileDeletion deletion, RuntimeException e) {
+        int attempts = deletion.getAttempts() + 1;
+        if (attempts >= MAX_ATTEMPTS) {
+            // The file is left to the orphaned files collector
+            log.error("Failed to delete file {} after {} attempts - {}", deletion.getFileUUID(), attempts,
+                    e.getMessage());
+            deletionsRepository.delete(deletion);
+            return;
+        }
+        log.warn("Failed to delete file {}, attempt {} - {}", deletion.getFileUUID(), attempts, e.getMessage());
+        Duration delay = Duration.ofMinutes(1L << attempts);
+        deletion.setAttempts(attempts);
+        deletion.setNextAttemptAt(LocalDateTime.now().plus(delay.compareTo(MAX_RETRY_DELAY) > 0 ?
+                MAX_RETRY_DELAY : delay));
+        deletionsRepository.save(deletion);
+    }
+}
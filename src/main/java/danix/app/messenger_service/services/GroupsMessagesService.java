@@ -4,9 +4,10 @@ import danix.app.messenger_service.dto.*;
 import danix.app.messenger_service.models.*;
 import danix.app.messenger_service.repositories.GroupsActionsMessagesRepository;
 import danix.app.messenger_service.repositories.GroupsMessagesRepository;
+import danix.app.messenger_service.repositories.GroupsUsersRepository;
+import danix.app.messenger_service.security.MediaUrlSigner;
 import danix.app.messenger_service.util.FileException;
-import danix.app.messenger_service.util.FilesUtils;
-import danix.app.messenger_service.util.GroupException;
+import danix.app.messenger_service.util.BlobStore;
 import danix.app.messenger_service.util.MessageException;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
@@ -15,7 +16,9 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.nio.file.Path;
@@ -32,8 +35,14 @@ public class GroupsMessagesService {
     private final GroupsMessagesRepository messagesRepository;
     private final GroupsActionsMessagesRepository actionsMessagesRepository;
     private final GroupsService groupsService;
+    private final GroupsUsersRepository groupsUsersRepository;
     private final SimpMessagingTemplate messagingTemplate;
     private final ModelMapper modelMapper;
+    private final MediaUrlSigner mediaUrlSigner;
+    private final BlobStore blobStore;
+    private final TransactionTemplate transactionTemplate;
+    private final FilesDeletionsService filesDeletionsService;
+    private final UnreadCountersService unreadCountersService;
 
     @Value("${groups_messages_images_path}")
     private String GROUPS_MESSAGES_IMAGES_PATH;
@@ -42,30 +51,35 @@ public class GroupsMessagesService {
     @Value("${groups_messages_audio_path}")
     private String GROUPS_MESSAGES_AUDIO_PATH;
 
-    @Transactional
+    /**
+     * Only saving the message runs in a transaction, the file is written before it
+     * and deleted if the message is not saved.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public long sendFile(MultipartFile image, int groupId, ContentType contentType) {
         if (contentType != ContentType.IMAGE && contentType != ContentType.VIDEO &&
             contentType != ContentType.AUDIO_MP3 && contentType != ContentType.AUDIO_OGG) {
             throw new MessageException("Unsupported content type");
         }
         String uuid = UUID.randomUUID().toString();
-        switch (contentType) {
-            case IMAGE -> FilesUtils.upload(Path.of(GROUPS_MESSAGES_IMAGES_PATH), image, uuid, contentType);
-            case VIDEO -> FilesUtils.upload(Path.of(GROUPS_MESSAGES_VIDEOS_PATH), image, uuid, contentType);
-            case AUDIO_MP3, AUDIO_OGG -> FilesUtils.upload(Path.of(GROUPS_MESSAGES_AUDIO_PATH), image, uuid, contentType);
-        }
+        Path path = switch (contentType) {
+            case IMAGE -> Path.of(GROUPS_MESSAGES_IMAGES_PATH);
+            case VIDEO -> Path.of(GROUPS_MESSAGES_VIDEOS_PATH);
+            default -> Path.of(GROUPS_MESSAGES_AUDIO_PATH);
+        };
+        StoredFileDTO storedFile = blobStore.upload(path, image, uuid, contentType);
         try {
-            return sendMessage(uuid, groupId, contentType);
-        } catch (GroupException e) {
-            FilesUtils.delete(Path.of(GROUPS_MESSAGES_IMAGES_PATH), uuid);
-            FilesUtils.delete(Path.of(GROUPS_MESSAGES_VIDEOS_PATH), uuid);
+            return transactionTemplate.execute(status ->
+                    sendMessage(storedFile.uuid(), groupId, contentType, storedFile.extension()));
+        } catch (RuntimeException e) {
+            blobStore.delete(path, storedFile.uuid(), storedFile.extension());
             throw e;
         }
     }
 
     @Transactional
     public long sendTextMessage(String message, int groupId) {
-        return sendMessage(message, groupId, ContentType.TEXT);
+        return sendMessage(message, groupId, ContentType.TEXT, null);
     }
 
     public ResponseFileDTO getFile(long messageId) {
@@ -75,19 +89,22 @@ public class GroupsMessagesService {
         groupsService.getGroupUser(group, getCurrentUser());
         switch (groupMessage.getContentType()) {
             case IMAGE -> {
-                return FilesUtils.download(Path.of(GROUPS_MESSAGES_IMAGES_PATH), groupMessage.getText(), groupMessage.getContentType());
+                return blobStore.download(Path.of(GROUPS_MESSAGES_IMAGES_PATH), groupMessage.getText(),
+                        groupMessage.getFileExtension(), groupMessage.getContentType());
             }
             case VIDEO -> {
-                return FilesUtils.download(Path.of(GROUPS_MESSAGES_VIDEOS_PATH), groupMessage.getText(), groupMessage.getContentType());
+                return blobStore.download(Path.of(GROUPS_MESSAGES_VIDEOS_PATH), groupMessage.getText(),
+                        groupMessage.getFileExtension(), groupMessage.getContentType());
             }
             case AUDIO_OGG, AUDIO_MP3 -> {
-                return FilesUtils.download(Path.of(GROUPS_MESSAGES_AUDIO_PATH), groupMessage.getText(), groupMessage.getContentType());
+                return blobStore.download(Path.of(GROUPS_MESSAGES_AUDIO_PATH), groupMessage.getText(),
+                        groupMessage.getFileExtension(), groupMessage.getContentType());
             }
             default -> throw new MessageException("Message is not file");
         }
     }
 
-    private long sendMessage(String message, int groupId, ContentType contentType) {
+    private long sendMessage(String message, int groupId, ContentType contentType, String fileExtension) {
         User currentUser = getCurrentUser();
         Group group = groupsService.getById(groupId);
         groupsService.getGroupUser(group, currentUser);
@@ -95,12 +112,17 @@ public class GroupsMessagesService {
                 .text(message)
                 .group(group)
                 .contentType(contentType)
+                .fileExtension(fileExtension)
                 .messageOwner(currentUser)
                 .sentTime(LocalDateTime.now())
                 .build();
         messagesRepository.save(groupMessage);
+        unreadCountersService.changeGroupUnreadCounts(group, currentUser, groupMessage.getId(), 1);
         ResponseGroupMessageDTO messageDTO = modelMapper.map(groupMessage, ResponseGroupMessageDTO.class);
         messageDTO.setText(message);
+        if (contentType != ContentType.TEXT) {
+            messageDTO.setFileUrl(mediaUrlSigner.sign(MediaBucket.GROUPS, message, fileExtension, contentType));
+        }
         messageDTO.setSender(modelMapper.map(currentUser, ResponseUserDTO.class));
         messagingTemplate.convertAndSend("/topic/group/" + group.getWebSocketUUID(), messageDTO);
         return groupMessage.getId();
@@ -114,11 +136,15 @@ public class GroupsMessagesService {
         GroupUser groupUser = groupsService.getGroupUser(group, currentUser);
         if (message.getMessageOwner().getId() == currentUser.getId() || groupUser.isAdmin()) {
             switch (message.getContentType()) {
-                case IMAGE -> FilesUtils.delete(Path.of(GROUPS_MESSAGES_IMAGES_PATH), message.getText());
-                case VIDEO -> FilesUtils.delete(Path.of(GROUPS_MESSAGES_VIDEOS_PATH), message.getText());
-                case AUDIO_MP3, AUDIO_OGG -> FilesUtils.delete(Path.of(GROUPS_MESSAGES_AUDIO_PATH), message.getText());
+                case IMAGE -> filesDeletionsService.delete(Path.of(GROUPS_MESSAGES_IMAGES_PATH), message.getText(),
+                        message.getFileExtension());
+                case VIDEO -> filesDeletionsService.delete(Path.of(GROUPS_MESSAGES_VIDEOS_PATH), message.getText(),
+                        message.getFileExtension());
+                case AUDIO_MP3, AUDIO_OGG -> filesDeletionsService.delete(Path.of(GROUPS_MESSAGES_AUDIO_PATH),
+                        message.getText(), message.getFileExtension());
             }
             messagesRepository.delete(message);
+            unreadCountersService.changeGroupUnreadCounts(group, message.getMessageOwner(), messageId, -1);
             messagingTemplate.convertAndSend("/topic/group/" + group.getWebSocketUUID(),
                     Map.of("deleted_message_id", messageId));
         } else {
@@ -145,19 +171,47 @@ public class GroupsMessagesService {
         }
     }
 
-    public List<ResponseGroupMessageDTO> getMessages(int id, int page, int count) {
+    /**
+     * Returns {@code count} messages older than {@code beforeId}, newest first, or newer than {@code afterId},
+     * oldest first, so every page is read from the (group_id, id) index without skipping rows.
+     * Messages of other users up to the newest returned one become read by the current user.
+     */
+    @Transactional
+    public ResponseGroupMessagesDTO getMessages(int id, Long beforeId, Long afterId, int count) {
+        User currentUser = getCurrentUser();
         Group group = groupsService.getById(id);
-        return messagesRepository.findAllByGroup(group, PageRequest.of(page, count,
-                Sort.by(Sort.Direction.DESC, "id"))).stream()
+        GroupUser groupUser = groupsService.getGroupUser(group, currentUser);
+        if (beforeId != null && afterId != null) {
+            throw new MessageException("Only one of before_id and after_id can be set");
+        }
+        List<GroupMessage> messages = afterId != null ?
+                messagesRepository.findAllByGroupAfter(group, afterId, PageRequest.of(0, count)) :
+                messagesRepository.findAllByGroupBefore(group, beforeId != null ? beforeId : Long.MAX_VALUE,
+                        PageRequest.of(0, count));
+        long lastMessageId = messages.stream()
+                .filter(message -> message.getMessageOwner().getId() != currentUser.getId())
+                .mapToLong(GroupMessage::getId)
+                .max()
+                .orElse(0);
+        if (lastMessageId > groupUser.getLastReadMessageId()) {
+            Integer unreadCount = groupsUsersRepository.markRead(groupUser.getId(), lastMessageId);
+            if (unreadCount != null) {
+                unreadCountersService.send(currentUser.getWebSocketUUID(), ResponseUnreadCountDTO.Type.GROUP,
+                        group.getId(), unreadCount);
+            }
+        }
+        return new ResponseGroupMessagesDTO(messages.stream()
                 .map(message -> {
                     ResponseGroupMessageDTO messageDTO = modelMapper.map(message, ResponseGroupMessageDTO.class);
                     if (message.getContentType() != ContentType.TEXT) {
                         messageDTO.setText(null);
+                        messageDTO.setFileUrl(mediaUrlSigner.sign(MediaBucket.GROUPS, message.getText(),
+                                message.getFileExtension(), message.getContentType()));
                     }
                     messageDTO.setSender(modelMapper.map(message.getMessageOwner(), ResponseUserDTO.class));
                     return messageDTO;
                 })
-                .toList();
+                .toList(), messages.size() < count ? null : messages.get(messages.size() - 1).getId());
     }
 
     public List<ResponseGroupActionMessageDTO> getActionMessages(int id, int page, int count) {
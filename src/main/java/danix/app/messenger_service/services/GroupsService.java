@@ -5,7 +5,9 @@ import danix.app.messenger_service.models.*;
 import danix.app.messenger_service.repositories.*;
 import danix.app.messenger_service.util.GroupException;
 import danix.app.messenger_service.util.FileException;
-import danix.app.messenger_service.util.FilesUtils;
+import danix.app.messenger_service.util.BlobStore;
+import danix.app.messenger_service.util.TeardownExecutor;
+import danix.app.messenger_service.util.TeardownJob;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.modelmapper.ModelMapper;
@@ -19,7 +21,6 @@ import org.springframework.web.multipart.MultipartFile;
 import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static danix.app.messenger_service.services.UserService.getCurrentUser;
@@ -39,17 +40,14 @@ public class GroupsService {
     private final GroupsActionsMessagesRepository groupsActionsMessagesRepository;
     private final GroupsMessagesRepository messagesRepository;
     private final SimpMessagingTemplate messagingTemplate;
+    private final BlobStore blobStore;
+    private final TeardownExecutor teardownExecutor;
+    private final BulkDeletionService bulkDeletionService;
 
     @Value("${default_groups_image_uuid}")
     private String DEFAULT_IMAGE_UUID;
     @Value("${groups_avatars_path}")
     private String AVATARS_PATH;
-    @Value("${groups_messages_images_path}")
-    private String MESSAGES_IMAGES_PATH;
-    @Value("${groups_messages_videos_path}")
-    private String MESSAGES_VIDEOS_PATH;
-    @Value("${groups_messages_audio_path}")
-    private String MESSAGES_AUDIO_PATH;
 
     public List<ResponseGroupDTO> getAllUserGroups() {
         return groupsUsersRepository.findAllByUser(getCurrentUser()).stream()
@@ -128,15 +126,15 @@ public class GroupsService {
         if (group.getOwner().getId() != getCurrentUser().getId()) {
             throw new FileException("User must be owner of group");
         }
-        String uuid = UUID.randomUUID().toString();
-        FilesUtils.upload(Path.of(AVATARS_PATH), image, uuid, ContentType.IMAGE);
+        String uuid = blobStore.upload(Path.of(AVATARS_PATH), image, UUID.randomUUID().toString(), ContentType.IMAGE)
+                .uuid();
         sendGroupActionMessage(id, getCurrentUser().getUsername() + " updated group image");
         sendUpdatedGroupMessage(group, true);
         if (group.getImage().equals(DEFAULT_IMAGE_UUID)) {
             group.setImage(uuid);
             return;
         }
-        FilesUtils.delete(Path.of(AVATARS_PATH), group.getImage());
+        blobStore.delete(Path.of(AVATARS_PATH), group.getImage());
         group.setImage(uuid);
     }
 
@@ -149,7 +147,7 @@ public class GroupsService {
         if (group.getImage().equals(DEFAULT_IMAGE_UUID)) {
             throw new FileException("Group already have default image");
         }
-        FilesUtils.delete(Path.of(AVATARS_PATH), group.getImage());
+        blobStore.delete(Path.of(AVATARS_PATH), group.getImage());
         group.setImage(DEFAULT_IMAGE_UUID);
         sendGroupActionMessage(id, getCurrentUser().getUsername() + " deleted group image");
         sendUpdatedGroupMessage(group, true);
@@ -158,7 +156,7 @@ public class GroupsService {
     public ResponseFileDTO getImage(int id) {
         Group group = getById(id);
         getGroupUser(group, getCurrentUser());
-        return FilesUtils.download(Path.of(AVATARS_PATH), group.getImage(), ContentType.IMAGE);
+        return blobStore.download(Path.of(AVATARS_PATH), group.getImage(), ContentType.IMAGE);
     }
 
     @Transactional
@@ -254,30 +252,21 @@ public class GroupsService {
     }
 
     @Transactional
-    public CompletableFuture<Void> deleteGroup(int groupId) {
+    public TeardownJob deleteGroup(int groupId) {
         Group group = getById(groupId);
-        if (group.getOwner().getId() == getCurrentUser().getId()) {
-            if (group.getImage() != null && !group.getImage().equals(DEFAULT_IMAGE_UUID)) {
-                FilesUtils.delete(Path.of(AVATARS_PATH), group.getImage());
-            }
-            return CompletableFuture.runAsync(() -> {
-                List<GroupMessage> messages;
-                int page = 0;
-                do {
-                    messages = messagesRepository.findAllByGroupAndContentTypeIsNot(group, ContentType.TEXT,
-                            PageRequest.of(page, 50));
-                    for (GroupMessage message : messages) {
-                        switch (message.getContentType()) {
-                            case IMAGE -> FilesUtils.delete(Path.of(MESSAGES_IMAGES_PATH), message.getText());
-                            case VIDEO -> FilesUtils.delete(Path.of(MESSAGES_VIDEOS_PATH), message.getText());
-                            case AUDIO_MP3, AUDIO_OGG -> FilesUtils.delete(Path.of(MESSAGES_AUDIO_PATH), message.getText());
-                        }
-                    }
-                    page++;
-                } while (!messages.isEmpty());
+        User currentUser = getCurrentUser();
+        if (group.getOwner().getId() == currentUser.getId()) {
+            // The job runs on another thread, so it gets values instead of the group entity
+            String image = group.getImage();
+            String webSocketUUID = group.getWebSocketUUID();
+            return teardownExecutor.submit(TeardownJob.Type.GROUP, groupId, currentUser.getId(), job -> {
+                bulkDeletionService.deleteGroupMessages(groupId, job);
                 groupsRepository.deleteById(groupId);
-                messagingTemplate.convertAndSend("/topic/group/" + group.getWebSocketUUID(),
-                        new ResponseDeletionGroupDTO(groupId));
+                // Deleted only with the group, so a rejected job keeps the avatar
+                if (image != null && !image.equals(DEFAULT_IMAGE_UUID)) {
+                    blobStore.delete(Path.of(AVATARS_PATH), image);
+                }
+                messagingTemplate.convertAndSend("/topic/group/" + webSocketUUID, new ResponseDeletionGroupDTO(groupId));
             });
         } else {
             throw new GroupException("You are not owner of this group");
@@ -285,7 +274,7 @@ public class GroupsService {
     }
 
     @Transactional
-    public CompletableFuture<Void> leaveGroup(int groupId) {
+    public TeardownJob leaveGroup(int groupId) {
         User currentUser = getCurrentUser();
         Group group = getById(groupId);
         GroupUser groupUser = getGroupUser(group, currentUser);
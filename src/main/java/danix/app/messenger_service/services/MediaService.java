@@ -0,0 +1,89 @@
+package danix.app.messenger_service.services;
+
+import danix.app.messenger_service.dto.ResponseFileDTO;
+import danix.app.messenger_service.models.ContentType;
+import danix.app.messenger_service.models.MediaBucket;
+import danix.app.messenger_service.security.MediaUrlSigner;
+import danix.app.messenger_service.util.AuthenticationException;
+import danix.app.messenger_service.util.FileException;
+import danix.app.messenger_service.util.BlobStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+
+@Service
+@RequiredArgsConstructor
+public class MediaService {
+    private final MediaUrlSigner mediaUrlSigner;
+    private final BlobStore blobStore;
+
+    @Value("${chats_images_path}")
+    private String CHATS_IMAGES_PATH;
+    @Value("${chats_videos_path}")
+    private String CHATS_VIDEOS_PATH;
+    @Value("${chats_audio_path}")
+    private String CHATS_AUDIO_PATH;
+    @Value("${groups_messages_images_path}")
+    private String GROUPS_MESSAGES_IMAGES_PATH;
+    @Value("${groups_messages_videos_path}")
+    private String GROUPS_MESSAGES_VIDEOS_PATH;
+    @Value("${groups_messages_audio_path}")
+    private String GROUPS_MESSAGES_AUDIO_PATH;
+    @Value("${channels_posts_images_path}")
+    private String POSTS_IMAGES_PATH;
+    @Value("${channels_posts_videos_path}")
+    private String POSTS_VIDEOS_PATH;
+    @Value("${channels_posts_audio_path}")
+    private String POSTS_AUDIO_PATH;
+    @Value("${channels_posts_comments_images_path}")
+    private String COMMENTS_IMAGES_PATH;
+    @Value("${channels_posts_comments_videos_path}")
+    private String COMMENTS_VIDEOS_PATH;
+    @Value("${channels_posts_comments_audio_path}")
+    private String COMMENTS_AUDIO_PATH;
+
+    public ResponseFileDTO getFile(MediaBucket bucket, String fileName, ContentType contentType, long expires,
+                                   String signature) {
+        if (!mediaUrlSigner.isValid(bucket, fileName, contentType, expires, signature)) {
+            throw new AuthenticationException("Invalid or expired link");
+        }
+        int extensionIndex = fileName.lastIndexOf('.');
+        if (extensionIndex == -1) {
+            return blobStore.download(getPath(bucket, contentType), fileName, contentType);
+        }
+        return blobStore.download(getPath(bucket, contentType), fileName.substring(0, extensionIndex),
+                fileName.substring(extensionIndex), contentType);
+    }
+
+    private Path getPath(MediaBucket bucket, ContentType contentType) {
+        String path = switch (bucket) {
+            case CHATS -> switch (contentType) {
+                case IMAGE -> CHATS_IMAGES_PATH;
+                case VIDEO -> CHATS_VIDEOS_PATH;
+                case AUDIO_MP3, AUDIO_OGG -> CHATS_AUDIO_PATH;
+                default -> throw new FileException("Unsupported content type");
+            };
+            case GROUPS -> switch (contentType) {
+                case IMAGE -> GROUPS_MESSAGES_IMAGES_PATH;
+                case VIDEO -> GROUPS_MESSAGES_VIDEOS_PATH;
+                case AUDIO_MP3, AUDIO_OGG -> GROUPS_MESSAGES_AUDIO_PATH;
+                default -> throw new FileException("Unsupported content type");
+            };
+            case CHANNELS_POSTS -> switch (contentType) {
+                case IMAGE -> POSTS_IMAGES_PATH;
+                case VIDEO -> POSTS_VIDEOS_PATH;
+                case AUDIO_MP3, AUDIO_OGG -> POSTS_AUDIO_PATH;
+                default -> throw new FileException("Unsupported content type");
+            };
+            case CHANNELS_POSTS_COMMENTS -> switch (contentType) {
+                case IMAGE -> COMMENTS_IMAGES_PATH;
+                case VIDEO -> COMMENTS_VIDEOS_PATH;
+                case AUDIO_MP3, AUDIO_OGG -> COMMENTS_AUDIO_PATH;
+                default -> throw new FileException("Unsupported content type");
+            };
+        };
+        return Path.of(path);
+    }
+}
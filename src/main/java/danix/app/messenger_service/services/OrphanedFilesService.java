@@ -0,0 +1,287 @@
+package danix.app.messenger_service.services;
+
+import danix.app.messenger_service.dto.OrphanedFilesReportDTO;
+import danix.app.messenger_service.repositories.*;
+import danix.app.messenger_service.util.RateLimiter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Finds files which are not referenced by any message, post, comment, blob or upload
+ * (left after failed inserts, interrupted deletions or cascaded SQL deletes) and deletes or quarantines them.
+ * Directories are walked in parallel, references are checked in batches
+ * and file operations are rate limited to not compete with serving files.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OrphanedFilesService {
+    private static final int BATCH_SIZE = 500;
+    // Files are written before their rows are committed, recent files are never treated as orphaned
+    private static final Duration GRACE_PERIOD = Duration.ofDays(1);
+    private static final Duration QUARANTINE_PERIOD = Duration.ofDays(7);
+    private static final Pattern PREVIEW_SUFFIX = Pattern.compile("_\\d+$");
+
+    public enum Mode {
+        DELETE,
+        QUARANTINE
+    }
+
+    private final ChatsMessagesRepository chatsMessagesRepository;
+    private final GroupsMessagesRepository groupsMessagesRepository;
+    private final ChannelsPostsFilesRepository postsFilesRepository;
+    private final ChannelsPostsCommentsRepository commentsRepository;
+    private final MediaBlobsRepository blobsRepository;
+    private final UploadsRepository uploadsRepository;
+
+    @Value("${chats_images_path}")
+    private String CHATS_IMAGES_PATH;
+    @Value("${chats_videos_path}")
+    private String CHATS_VIDEOS_PATH;
+    @Value("${chats_audio_path}")
+    private String CHATS_AUDIO_PATH;
+    @Value("${groups_messages_images_path}")
+    private String GROUPS_MESSAGES_IMAGES_PATH;
+    @Value("${groups_messages_videos_path}")
+    private String GROUPS_MESSAGES_VIDEOS_PATH;
+    @Value("${groups_messages_audio_path}")
+    private String GROUPS_MESSAGES_AUDIO_PATH;
+    @Value("${channels_posts_images_path}")
+    private String POSTS_IMAGES_PATH;
+    @Value("${channels_posts_videos_path}")
+    private String POSTS_VIDEOS_PATH;
+    @Value("${channels_posts_audio_path}")
+    private String POSTS_AUDIO_PATH;
+    @Value("${channels_posts_comments_images_path}")
+    private String COMMENTS_IMAGES_PATH;
+    @Value("${channels_posts_comments_videos_path}")
+    private String COMMENTS_VIDEOS_PATH;
+    @Value("${channels_posts_comments_audio_path}")
+    private String COMMENTS_AUDIO_PATH;
+    @Value("${files_blobs_path}")
+    private String FILES_BLOBS_PATH;
+    @Value("${files_uploads_path}")
+    private String UPLOADS_PATH;
+    @Value("${files_quarantine_path}")
+    private String QUARANTINE_PATH;
+    @Value("${orphaned_files_mode}")
+    private Mode MODE;
+    @Value("${orphaned_files_threads}")
+    private int THREADS;
+    @Value("${orphaned_files_rate_limit}")
+    private int RATE_LIMIT;
+
+    private record Source(Path directory, UnaryOperator<String> key,
+                          Function<Collection<String>, List<String>> referencedKeys) {
+    }
+
+    public OrphanedFilesReportDTO collect() throws InterruptedException {
+        RateLimiter rateLimiter = new RateLimiter(RATE_LIMIT);
+        Instant threshold = Instant.now().minus(GRACE_PERIOD);
+        OrphanedFilesReportDTO report = OrphanedFilesReportDTO.EMPTY;
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<OrphanedFilesReportDTO>> results = new ArrayList<>();
+            for (Source source : getSources()) {
+                results.add(executor.submit(() -> collect(source, threshold, rateLimiter)));
+            }
+            for (Future<OrphanedFilesReportDTO> result : results) {
+                try {
+                    report = report.plus(result.get());
+                } catch (ExecutionException e) {
+                    log.error("Error collecting orphaned files - {}", e.getCause().getMessage());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        if (MODE == Mode.QUARANTINE) {
+            report = report.plus(purgeQuarantine(rateLimiter));
+        }
+        return report;
+    }
+
+    private List<Source> getSources() {
+        Path blobsPath = Path.of(FILES_BLOBS_PATH);
+        List<Source> sources = new ArrayList<>();
+        Function<Collection<String>, List<String>> chatsReferences = chatsMessagesRepository::findReferencedFiles;
+        Function<Collection<String>, List<String>> groupsReferences = groupsMessagesRepository::findReferencedFiles;
+        Function<Collection<String>, List<String>> postsReferences = postsFilesRepository::findReferencedFiles;
+        Function<Collection<String>, List<String>> commentsReferences = commentsRepository::findReferencedFiles;
+        for (String path : List.of(CHATS_IMAGES_PATH, CHATS_VIDEOS_PATH, CHATS_AUDIO_PATH)) {
+            sources.add(new Source(Path.of(path), OrphanedFilesService::getUUID, chatsReferences));
+        }
+        for (String path : List.of(GROUPS_MESSAGES_IMAGES_PATH, GROUPS_MESSAGES_VIDEOS_PATH, GROUPS_MESSAGES_AUDIO_PATH)) {
+            sources.add(new Source(Path.of(path), OrphanedFilesService::getUUID, groupsReferences));
+        }
+        for (String path : List.of(POSTS_IMAGES_PATH, POSTS_VIDEOS_PATH, POSTS_AUDIO_PATH)) {
+            sources.add(new Source(Path.of(path), OrphanedFilesService::getUUID, postsReferences));
+        }
+        for (String path : List.of(COMMENTS_IMAGES_PATH, COMMENTS_VIDEOS_PATH, COMMENTS_AUDIO_PATH)) {
+            sources.add(new Source(Path.of(path), OrphanedFilesService::getUUID, commentsReferences));
+        }
+        // Blobs left referenced by cascaded deletes are dropped by BlobsReferencesService before the collection
+        sources.add(new Source(blobsPath, OrphanedFilesService::getBlobName, blobsRepository::findReferencedFiles));
+        // Temporary files of content addressed uploads are never referenced
+        sources.add(new Source(blobsPath.resolve("tmp"), UnaryOperator.identity(), files -> List.of()));
+        sources.add(new Source(Path.of(UPLOADS_PATH), name -> name.replace(".part", ""),
+                uploadsRepository::findExistingIds));
+        return sources;
+    }
+
+    private OrphanedFilesReportDTO collect(Source source, Instant threshold, RateLimiter rateLimiter)
+            throws IOException, InterruptedException {
+        if (!Files.isDirectory(source.directory())) {
+            return OrphanedFilesReportDTO.EMPTY;
+        }
+        Path tempPath = Path.of(FILES_BLOBS_PATH).resolve("tmp");
+        OrphanedFilesReportDTO report = OrphanedFilesReportDTO.EMPTY;
+        long scannedFiles = 0;
+        // Previews are stored next to the original and share its key
+        Map<String, List<Path>> batch = new HashMap<>();
+        try (Stream<Path> files = Files.walk(source.directory())) {
+            Iterator<Path> iterator = files.filter(Files::isRegularFile).iterator();
+            while (iterator.hasNext()) {
+                Path file = iterator.next();
+                if (!source.directory().equals(tempPath) && file.startsWith(tempPath)) {
+                    continue;
+                }
+                scannedFiles++;
+                try {
+                    if (!isOlderThan(file, threshold)) {
+                        continue;
+                    }
+                } catch (NoSuchFileException e) {
+                    continue;
+                }
+                String key = source.key().apply(file.getFileName().toString());
+                batch.computeIfAbsent(key, k -> new ArrayList<>()).add(file);
+                if (batch.size() == BATCH_SIZE) {
+                    report = report.plus(collectBatch(source, batch, threshold, rateLimiter));
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            report = report.plus(collectBatch(source, batch, threshold, rateLimiter));
+        }
+        log.info("Scanned {} files in {}, orphaned - {}", scannedFiles, source.directory().getFileName(),
+                report.orphanedFiles());
+        return report.plus(new OrphanedFilesReportDTO(scannedFiles, 0, 0, 0));
+    }
+
+    private OrphanedFilesReportDTO collectBatch(Source source, Map<String, List<Path>> batch, Instant threshold,
+                                                RateLimiter rateLimiter) throws InterruptedException {
+        Set<String> referenced = new HashSet<>(source.referencedKeys().apply(batch.keySet()));
+        long orphanedFiles = 0;
+        long orphanedBytes = 0;
+        long reclaimedBytes = 0;
+        for (Map.Entry<String, List<Path>> entry : batch.entrySet()) {
+            if (referenced.contains(entry.getKey())) {
+                continue;
+            }
+            for (Path file : entry.getValue()) {
+                rateLimiter.acquire();
+                try {
+                    // The file may have been stored again since it was listed
+                    if (!isOlderThan(file, threshold)) {
+                        continue;
+                    }
+                    long size = Files.size(file);
+                    if (MODE == Mode.DELETE) {
+                        Files.delete(file);
+                        reclaimedBytes += size;
+                    } else {
+                        quarantine(source.directory(), file);
+                    }
+                    orphanedFiles++;
+                    orphanedBytes += size;
+                } catch (NoSuchFileException e) {
+                    // Deleted concurrently
+                } catch (IOException e) {
+                    log.error("Error removing orphaned file {} - {}", file, e.getMessage());
+                }
+            }
+        }
+        return new OrphanedFilesReportDTO(0, orphanedFiles, orphanedBytes, reclaimedBytes);
+    }
+
+    private void quarantine(Path directory, Path file) throws IOException {
+        Path target = Path.of(QUARANTINE_PATH).resolve(directory.getFileName())
+                .resolve(directory.relativize(file));
+        Files.createDirectories(target.getParent());
+        Files.move(file, target, StandardCopyOption.REPLACE_EXISTING);
+        // Quarantine period is counted from the moment the file was moved
+        Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+    }
+
+    private OrphanedFilesReportDTO purgeQuarantine(RateLimiter rateLimiter) throws InterruptedException {
+        Path quarantinePath = Path.of(QUARANTINE_PATH);
+        if (!Files.isDirectory(quarantinePath)) {
+            return OrphanedFilesReportDTO.EMPTY;
+        }
+        Instant threshold = Instant.now().minus(QUARANTINE_PERIOD);
+        long reclaimedBytes = 0;
+        try (Stream<Path> files = Files.walk(quarantinePath)) {
+            Iterator<Path> iterator = files.filter(Files::isRegularFile).iterator();
+            while (iterator.hasNext()) {
+                Path file = iterator.next();
+                try {
+                    if (!isOlderThan(file, threshold)) {
+                        continue;
+                    }
+                    rateLimiter.acquire();
+                    long size = Files.size(file);
+                    Files.delete(file);
+                    reclaimedBytes += size;
+                } catch (NoSuchFileException e) {
+                    // Deleted concurrently
+                }
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Error purging quarantined files - {}", e.getMessage());
+        }
+        return new OrphanedFilesReportDTO(0, 0, 0, reclaimedBytes);
+    }
+
+    private static boolean isOlderThan(Path file, Instant threshold) throws IOException {
+        return Files.getLastModifiedTime(file).toInstant().isBefore(threshold);
+    }
+
+    // <uuid>.<ext> or <uuid>_<size>.<ext> -> <uuid>
+    private static String getUUID(String fileName) {
+        int extensionIndex = fileName.lastIndexOf('.');
+        String name = extensionIndex == -1 ? fileName : fileName.substring(0, extensionIndex);
+        return PREVIEW_SUFFIX.matcher(name).replaceFirst("");
+    }
+
+    // <hash>.<ext> or <hash>_<size>.<ext> -> <hash>.<ext>
+    private static String getBlobName(String fileName) {
+        int extensionIndex = fileName.lastIndexOf('.');
+        if (extensionIndex == -1) {
+            return fileName;
+        }
+        return getUUID(fileName) + fileName.substring(extensionIndex);
+    }
+}
@@ -0,0 +1,52 @@
+package danix.app.messenger_service.services;
+
+import danix.app.messenger_service.repositories.ChannelsPostsRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Repairs likes and comments counters of posts. Counters are changed together with likes and comments,
+ * but rows deleted by cascades (deleted users or channels members) don't update them.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class PostsCountersService {
+    private static final int BATCH_SIZE = 500;
+
+    private final ChannelsPostsRepository channelsPostsRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * @return count of posts whose counters were repaired
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int reconcile() {
+        int fixed = 0;
+        long lastId = 0;
+        while (true) {
+            long batchStart = lastId;
+            // Posts of the batch stay locked until they are recounted, so concurrent likes wait instead of being lost
+            BatchResult result = transactionTemplate.execute(status -> {
+                List<Long> ids = channelsPostsRepository.lockIdsAfter(batchStart, BATCH_SIZE);
+                if (ids.isEmpty()) {
+                    return null;
+                }
+                return new BatchResult(ids.get(ids.size() - 1), channelsPostsRepository.reconcileCounters(ids));
+            });
+            if (result == null) {
+                return fixed;
+            }
+            fixed += result.fixed();
+            lastId = result.lastId();
+        }
+    }
+
+    private record BatchResult(long lastId, int fixed) {
+    }
+}
@@ -0,0 +1,42 @@
+package danix.app.messenger_service.services;
+
+import danix.app.messenger_service.dto.ResponseTeardownJobDTO;
+import danix.app.messenger_service.util.JobException;
+import danix.app.messenger_service.util.TeardownExecutor;
+import danix.app.messenger_service.util.TeardownJob;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+import static danix.app.messenger_service.services.UserService.getCurrentUser;
+
+@Service
+@RequiredArgsConstructor
+public class TeardownJobsService {
+    private final TeardownExecutor teardownExecutor;
+
+    public ResponseTeardownJobDTO getJob(String id) {
+        return teardownExecutor.getJob(id)
+                .filter(job -> job.getOwnerId() == getCurrentUser().getId())
+                .map(TeardownJobsService::convertToResponseTeardownJobDTO)
+                .orElseThrow(() -> new JobException("Job not found"));
+    }
+
+    public void deleteFinishedJobs() {
+        teardownExecutor.deleteFinishedJobs(LocalDateTime.now().minusHours(1));
+    }
+
+    public static ResponseTeardownJobDTO convertToResponseTeardownJobDTO(TeardownJob job) {
+        ResponseTeardownJobDTO jobDTO = new ResponseTeardownJobDTO();
+        jobDTO.setId(job.getId());
+        jobDTO.setType(job.getType());
+        jobDTO.setTargetId(job.getTargetId());
+        jobDTO.setStatus(job.getStatus());
+        jobDTO.setProcessedRows(job.getProcessedRows().get());
+        jobDTO.setDeletedFiles(job.getDeletedFiles().get());
+        jobDTO.setCreatedAt(job.getCreatedAt());
+        jobDTO.setFinishedAt(job.getFinishedAt());
+        return jobDTO;
+    }
+}
@@ -0,0 +1,62 @@
+package danix.app.messenger_service.services;
+
+import danix.app.messenger_service.dto.ResponseUnreadCountDTO;
+import danix.app.messenger_service.models.Chat;
+import danix.app.messenger_service.models.Group;
+import danix.app.messenger_service.models.User;
+import danix.app.messenger_service.repositories.ChatsRepository;
+import danix.app.messenger_service.repositories.GroupsUsersRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static danix.app.messenger_service.services.UserService.getCurrentUser;
+
+/**
+ * Keeps counts of unread messages of every chat and group user. Sending and deleting a message changes
+ * the counts of its recipients who have not read it yet, reading recounts the count of the reader.
+ * Every changed count is sent to '/topic/user/{uuid}/main' of its user.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class UnreadCountersService {
+    private final ChatsRepository chatsRepository;
+    private final GroupsUsersRepository groupsUsersRepository;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    public List<ResponseUnreadCountDTO> getUnreadCounts() {
+        int userId = getCurrentUser().getId();
+        return Stream.concat(
+                chatsRepository.findUnreadCounts(userId).stream()
+                        .map(count -> new ResponseUnreadCountDTO(ResponseUnreadCountDTO.Type.CHAT, count.getId(),
+                                count.getUnreadCount())),
+                groupsUsersRepository.findUnreadCounts(userId).stream()
+                        .map(count -> new ResponseUnreadCountDTO(ResponseUnreadCountDTO.Type.GROUP, count.getId(),
+                                count.getUnreadCount())))
+                .toList();
+    }
+
+    @Transactional
+    public void changeChatUnreadCount(Chat chat, User recipient, long messageId, int delta) {
+        Integer count = chatsRepository.changeUnreadCount(chat.getId(), recipient.getId(), messageId, delta);
+        if (count != null) {
+            send(recipient.getWebSocketUUID(), ResponseUnreadCountDTO.Type.CHAT, chat.getId(), count);
+        }
+    }
+
+    @Transactional
+    public void changeGroupUnreadCounts(Group group, User owner, long messageId, int delta) {
+        groupsUsersRepository.changeUnreadCounts(group.getId(), owner.getId(), messageId, delta).forEach(count ->
+                send(count.getWebSocketUUID(), ResponseUnreadCountDTO.Type.GROUP, group.getId(), count.getUnreadCount()));
+    }
+
+    public void send(String webSocketUUID, ResponseUnreadCountDTO.Type type, int id, int count) {
+        messagingTemplate.convertAndSend("/topic/user/" + webSocketUUID + "/main",
+                new ResponseUnreadCountDTO(type, id, count));
+    }
+}
@@ -0,0 +1,206 @@
+package danix.app.messenger_service.services;
+
+import danix.app.messenger_service.dto.CreateUploadDTO;
+import danix.app.messenger_service.dto.ResponseUploadDTO;
+import danix.app.messenger_service.models.ContentType;
+import danix.app.messenger_service.models.Upload;
+import danix.app.messenger_service.repositories.UploadsRepository;
+import danix.app.messenger_service.util.FileException;
+import danix.app.messenger_service.util.LocalBlobStore;
+import danix.app.messenger_service.util.UploadedMultipartFile;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static danix.app.messenger_service.services.UserService.getCurrentUser;
+
+/**
+ * Resumable uploads: the client creates an upload, appends chunks at the current offset
+ * and finalizes it, only then the message, post or comment is created.
+ * Chunks are written without a database transaction, so slow clients don't hold connections.
+ * The upload is read in a short transaction before the chunk is streamed, which releases the connection
+ * as the entity manager is not kept open for the whole request ({@code spring.jpa.open-in-view=false}).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class UploadsService {
+    private final UploadsRepository uploadsRepository;
+    private final ChatsMessagesService chatsMessagesService;
+    private final GroupsMessagesService groupsMessagesService;
+    private final ChannelsPostsService channelsPostsService;
+    private final TransactionTemplate transactionTemplate;
+    @Value("${files_uploads_path}")
+    private String UPLOADS_PATH;
+    @Value("${spring.servlet.multipart.max-file-size}")
+    private DataSize MAX_FILE_SIZE;
+
+    @Transactional
+    public ResponseUploadDTO create(CreateUploadDTO createUploadDTO) {
+        if (createUploadDTO.getContentType() == ContentType.TEXT ||
+            createUploadDTO.getContentType() == ContentType.TEXT_FILE) {
+            throw new FileException("Unsupported content type");
+        }
+        LocalBlobStore.getExtension(createUploadDTO.getFileName(), createUploadDTO.getContentType());
+        if (createUploadDTO.getSize() > MAX_FILE_SIZE.toBytes()) {
+            throw new FileException("File is too large");
+        }
+        Upload upload = new Upload();
+        upload.setId(UUID.randomUUID().toString());
+        upload.setOwner(getCurrentUser());
+        upload.setTarget(createUploadDTO.getTarget());
+        upload.setTargetId(createUploadDTO.getTargetId());
+        upload.setContentType(createUploadDTO.getContentType());
+        upload.setFileName(createUploadDTO.getFileName());
+        upload.setSize(createUploadDTO.getSize());
+        upload.setCreatedAt(LocalDateTime.now());
+        upload.setStatus(Upload.Status.OPEN);
+        try {
+            Files.createDirectories(Path.of(UPLOADS_PATH));
+            Files.createFile(getPartPath(upload.getId()));
+        } catch (IOException e) {
+            log.error("Error creating upload file - {}", e.getMessage());
+            throw new FileException("Error while uploading file");
+        }
+        uploadsRepository.save(upload);
+        return new ResponseUploadDTO(upload.getId(), 0, upload.getSize());
+    }
+
+    public ResponseUploadDTO getUpload(String id) {
+        Upload upload = getById(id);
+        return new ResponseUploadDTO(id, getOffset(id), upload.getSize());
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResponseUploadDTO appendChunk(String id, long offset, InputStream chunk) {
+        Upload upload = transactionTemplate.execute(status -> getById(id));
+        if (upload.getStatus() != Upload.Status.OPEN) {
+            throw new FileException("Upload is being finalized");
+        }
+        try (FileChannel channel = FileChannel.open(getPartPath(id), StandardOpenOption.WRITE);
+             FileLock lock = tryLock(channel)) {
+            long size = channel.size();
+            if (offset != size) {
+                throw new FileException("Invalid offset, current offset is " + size);
+            }
+            long remaining = upload.getSize() - size;
+            // One byte more than remaining is requested to detect chunks exceeding the declared size
+            long written = channel.transferFrom(Channels.newChannel(chunk), size, remaining + 1);
+            if (written > remaining) {
+                channel.truncate(size);
+                throw new FileException("Chunk exceeds upload size");
+            }
+            return new ResponseUploadDTO(id, size + written, upload.getSize());
+        } catch (NoSuchFileException e) {
+            throw new FileException("Upload not found");
+        } catch (IOException e) {
+            // Written part of the chunk is kept, client continues from the current offset
+            log.error("Error writing upload chunk - {}", e.getMessage());
+            throw new FileException("Error while uploading file");
+        }
+    }
+
+    /**
+     * Creates the message, post or comment with uploaded file. The upload is removed even if it fails,
+     * as its file is consumed by the storage. The upload is claimed first, so only one of concurrent requests
+     * finalizes it.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public long finalizeUpload(String id) {
+        Upload upload = transactionTemplate.execute(status -> {
+            Upload claimed = getById(id);
+            if (uploadsRepository.claim(id) != 1) {
+                throw new FileException("Upload is already being finalized");
+            }
+            return claimed;
+        });
+        long offset = getOffset(id);
+        if (offset != upload.getSize()) {
+            transactionTemplate.executeWithoutResult(status -> uploadsRepository.release(id));
+            throw new FileException("Upload is not completed, current offset is " + offset);
+        }
+        UploadedMultipartFile file = new UploadedMultipartFile(getPartPath(id), upload.getFileName());
+        try {
+            return switch (upload.getTarget()) {
+                case CHAT -> chatsMessagesService.sendFile(file, (int) upload.getTargetId(), upload.getContentType());
+                case GROUP -> groupsMessagesService.sendFile(file, (int) upload.getTargetId(), upload.getContentType());
+                case CHANNEL -> channelsPostsService.createPost(file, (int) upload.getTargetId(), upload.getContentType());
+                case CHANNEL_POST -> channelsPostsService.createComment(upload.getTargetId(), file, upload.getContentType());
+            };
+        } finally {
+            delete(upload);
+        }
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void cancel(String id) {
+        delete(getById(id));
+    }
+
+    @Transactional
+    public void deleteExpiredUploads() {
+        uploadsRepository.findAllByCreatedAtBefore(LocalDateTime.now().minusDays(1)).forEach(this::delete);
+    }
+
+    private void delete(Upload upload) {
+        try {
+            Files.deleteIfExists(getPartPath(upload.getId()));
+        } catch (IOException e) {
+            log.error("Error deleting upload file - {}", e.getMessage());
+        }
+        uploadsRepository.delete(upload);
+    }
+
+    private Upload getById(String id) {
+        Upload upload = uploadsRepository.findById(id)
+                .orElseThrow(() -> new FileException("Upload not found"));
+        if (upload.getOwner().getId() != getCurrentUser().getId()) {
+            throw new FileException("Upload not found");
+        }
+        return upload;
+    }
+
+    private long getOffset(String id) {
+        try {
+            return Files.size(getPartPath(id));
+        } catch (IOException e) {
+            throw new FileException("Upload not found");
+        }
+    }
+
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            throw new FileException("Another chunk of this upload is being written");
+        }
+        return lock;
+    }
+
+    private Path getPartPath(String id) {
+        return Path.of(UPLOADS_PATH, id + ".part");
+    }
+}
@@ -5,7 +5,7 @@ import danix.app.messenger_service.models.*;
 import danix.app.messenger_service.repositories.*;
 import danix.app.messenger_service.security.UserDetailsImpl;
 import danix.app.messenger_service.util.FileException;
-import danix.app.messenger_service.util.FilesUtils;
+import danix.app.messenger_service.util.BlobStore;
 import danix.app.messenger_service.util.UserException;
 import lombok.RequiredArgsConstructor;
 import org.modelmapper.ModelMapper;
@@ -42,6 +42,7 @@ public class UserService {
     private final KafkaTemplate<String, String> kafkaTemplate;
     private final SimpMessagingTemplate messagingTemplate;
     private final ChatsRepository chatsRepository;
+    private final BlobStore blobStore;
 
     @Value("${default_user_image_uuid}")
     private String DEFAULT_IMAGE_UUID;
@@ -62,19 +63,19 @@ public class UserService {
 
     public ResponseFileDTO getImage(int id) {
         User user = getById(id);
-        return FilesUtils.download(Path.of(USERS_IMAGES_PATH), user.getImageUUID(), ContentType.IMAGE);
+        return blobStore.download(Path.of(USERS_IMAGES_PATH), user.getImageUUID(), ContentType.IMAGE);
     }
 
     @Transactional
     public void addImage(MultipartFile imageFile, int id) {
         User currentUser = getById(id);
-        String uuid = UUID.randomUUID().toString();
-        FilesUtils.upload(Path.of(USERS_IMAGES_PATH), imageFile, uuid, ContentType.IMAGE);
+        String uuid = blobStore.upload(Path.of(USERS_IMAGES_PATH), imageFile, UUID.randomUUID().toString(), ContentType.IMAGE)
+                .uuid();
         if (currentUser.getImageUUID().equals(DEFAULT_IMAGE_UUID)) {
             currentUser.setImageUUID(uuid);
             return;
         }
-        FilesUtils.delete(Path.of(USERS_IMAGES_PATH), currentUser.getImageUUID());
+        blobStore.delete(Path.of(USERS_IMAGES_PATH), currentUser.getImageUUID());
         currentUser.setImageUUID(uuid);
     }
 
@@ -84,7 +85,7 @@ public class UserService {
         if (currentUser.getImageUUID().equals(DEFAULT_IMAGE_UUID)) {
             throw new FileException("User already have default image");
         }
-        FilesUtils.delete(Path.of(USERS_IMAGES_PATH), currentUser.getImageUUID());
+        blobStore.delete(Path.of(USERS_IMAGES_PATH), currentUser.getImageUUID());
         currentUser.setImageUUID(DEFAULT_IMAGE_UUID);
     }
 
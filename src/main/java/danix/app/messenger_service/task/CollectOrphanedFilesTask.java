@@ -0,0 +1,23 @@
+package danix.app.messenger_service.task;
+
+import danix.app.messenger_service.dto.OrphanedFilesReportDTO;
+import danix.app.messenger_service.services.OrphanedFilesService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CollectOrphanedFilesTask {
+    private final OrphanedFilesService orphanedFilesService;
+
+    @Scheduled(cron = "0 0 4 * * *")
+    public void collectOrphanedFiles() throws InterruptedException {
+        log.info("Start collecting orphaned files");
+        OrphanedFilesReportDTO report = orphanedFilesService.collect();
+        log.info("Finish collecting orphaned files, scanned - {}, orphaned - {} ({} bytes), reclaimed bytes - {}",
+                report.scannedFiles(), report.orphanedFiles(), report.orphanedBytes(), report.reclaimedBytes());
+    }
+}
@@ -0,0 +1,21 @@
+package danix.app.messenger_service.task;
+
+import danix.app.messenger_service.services.UploadsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeleteExpiredUploadsTask {
+    private final UploadsService uploadsService;
+
+    @Scheduled(cron = "@hourly")
+    public void deleteExpiredUploads() {
+        log.info("Start deleting expired uploads");
+        uploadsService.deleteExpiredUploads();
+        log.info("Finish deleting expired uploads");
+    }
+}
@@ -0,0 +1,21 @@
+package danix.app.messenger_service.task;
+
+import danix.app.messenger_service.services.TeardownJobsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeleteFinishedTeardownJobsTask {
+    private final TeardownJobsService teardownJobsService;
+
+    @Scheduled(cron = "@hourly")
+    public void deleteFinishedJobs() {
+        log.info("Start deleting finished teardown jobs");
+        teardownJobsService.deleteFinishedJobs();
+        log.info("Finish deleting finished teardown jobs");
+    }
+}
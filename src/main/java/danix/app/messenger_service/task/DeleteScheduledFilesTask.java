@@ -0,0 +1,22 @@
+package danix.app.messenger_service.task;
+
+import danix.app.messenger_service.services.FilesDeletionsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class DeleteScheduledFilesTask {
+    private final FilesDeletionsService filesDeletionsService;
+
+    @Scheduled(cron = "*/10 * * * * *")
+    public void deleteScheduledFiles() {
+        int deleted = filesDeletionsService.deleteScheduledFiles();
+        if (deleted > 0) {
+            log.info("Deleted {} scheduled files", deleted);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package danix.app.messenger_service.task;
+
+import danix.app.messenger_service.util.LocalBlobStore;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * Moves files stored in the flat {@code <dir>/<uuid>.<ext>} layout into the sharded
+ * {@code <dir>/ab/cd/<uuid>.<ext>} layout used by {@link LocalBlobStore}.
+ * Runs only when the application is started with {@code --migrate-blob-store}.
+ * Directories of blobs, resumable uploads and quarantined files are not media directories and are skipped,
+ * uploads in progress are resolved by their flat path.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MigrateBlobStoreTask implements ApplicationRunner {
+    private final LocalBlobStore blobStore;
+    @Value("${files_root_path}")
+    private String FILES_ROOT_PATH;
+    @Value("${files_blobs_path}")
+    private String FILES_BLOBS_PATH;
+    @Value("${files_uploads_path}")
+    private String UPLOADS_PATH;
+    @Value("${files_quarantine_path}")
+    private String QUARANTINE_PATH;
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        if (!args.containsOption("migrate-blob-store")) {
+            return;
+        }
+        log.info("Start migrating files to sharded layout");
+        Set<Path> skipped = Set.of(normalize(FILES_BLOBS_PATH), normalize(UPLOADS_PATH), normalize(QUARANTINE_PATH));
+        int moved = 0;
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(Path.of(FILES_ROOT_PATH), Files::isDirectory)) {
+            for (Path directory : directories) {
+                if (skipped.contains(normalize(directory.toString()))) {
+                    log.info("Skipped {}", directory.getFileName());
+                    continue;
+                }
+                int count = blobStore.migrate(directory);
+                log.info("Moved {} files in {}", count, directory.getFileName());
+                moved += count;
+            }
+        }
+        log.info("Finish migrating files to sharded layout, moved {} files", moved);
+    }
+
+    private static Path normalize(String path) {
+        return Path.of(path).toAbsolutePath().normalize();
+    }
+}
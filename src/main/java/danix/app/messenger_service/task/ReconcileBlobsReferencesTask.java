@@ -0,0 +1,22 @@
+package danix.app.messenger_service.task;
+
+import danix.app.messenger_service.services.BlobsReferencesService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReconcileBlobsReferencesTask {
+    private final BlobsReferencesService blobsReferencesService;
+
+    // Runs before the orphaned files collector, so files of unreferenced blobs are collected the same night
+    @Scheduled(cron = "0 30 3 * * *")
+    public void reconcileBlobsReferences() {
+        log.info("Start reconciling blobs references");
+        int fixed = blobsReferencesService.reconcile();
+        log.info("Finish reconciling blobs references, repaired blobs - {}", fixed);
+    }
+}
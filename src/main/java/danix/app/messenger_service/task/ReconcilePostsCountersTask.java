@@ -0,0 +1,21 @@
+package danix.app.messenger_service.task;
+
+import danix.app.messenger_service.services.PostsCountersService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReconcilePostsCountersTask {
+    private final PostsCountersService postsCountersService;
+
+    @Scheduled(cron = "0 30 4 * * *")
+    public void reconcilePostsCounters() {
+        log.info("Start reconciling posts counters");
+        int fixed = postsCountersService.reconcile();
+        log.info("Finish reconciling posts counters, repaired posts - {}", fixed);
+    }
+}
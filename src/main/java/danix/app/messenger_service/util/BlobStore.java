@@ -0,0 +1,37 @@
+package danix.app.messenger_service.util;
+
+import danix.app.messenger_service.dto.ResponseFileDTO;
+import danix.app.messenger_service.dto.StoredFileDTO;
+import danix.app.messenger_service.models.ContentType;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.file.Path;
+
+public interface BlobStore {
+
+    /**
+     * @return uuid and extension of the stored file to be persisted with the owning record,
+     * the returned uuid may differ from the requested one if the store deduplicates content
+     */
+    StoredFileDTO upload(Path filesPath, MultipartFile multipartFile, String uuid, ContentType contentType);
+
+    /**
+     * Resolves file without touching the filesystem when extension is known,
+     * {@code null} extension falls back to probing the possible extensions.
+     */
+    ResponseFileDTO download(Path filesPath, String objectUUID, String extension, ContentType contentType);
+
+    /**
+     * Deletes file with a single call when extension is known,
+     * {@code null} extension falls back to deleting every possible extension.
+     */
+    void delete(Path filesPath, String objectUUID, String extension);
+
+    default ResponseFileDTO download(Path filesPath, String objectUUID, ContentType contentType) {
+        return download(filesPath, objectUUID, null, contentType);
+    }
+
+    default void delete(Path filesPath, String objectUUID) {
+        delete(filesPath, objectUUID, null);
+    }
+}
@@ -0,0 +1,93 @@
+package danix.app.messenger_service.util;
+
+import danix.app.messenger_service.dto.ResponseChannelPostDTO;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the first page of rendered posts of recently opened channels. Concurrent misses of one channel wait for
+ * a single load instead of querying the database each. Posts are cached without the 'liked' flag, which depends
+ * on the user, and entries expire after a short ttl, so likes and comments counters lag for at most the ttl.
+ */
+@Component
+public class ChannelPostsCache {
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    @Getter
+    private final int pageSize;
+    private final long ttlNanos;
+    private final int maxChannels;
+
+    public ChannelPostsCache(@Value("${channels_posts_cache_page_size}") int pageSize,
+                             @Value("${channels_posts_cache_ttl_seconds}") long ttlSeconds,
+                             @Value("${channels_posts_cache_max_channels}") int maxChannels) {
+        this.pageSize = pageSize;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxChannels = maxChannels;
+    }
+
+    /**
+     * Returns cached first page of the channel, or loads it with {@code loader} if there is no actual page.
+     */
+    public List<ResponseChannelPostDTO> getFirstPage(int channelId, Supplier<List<ResponseChannelPostDTO>> loader) {
+        if (!entries.containsKey(channelId) && entries.size() >= maxChannels) {
+            entries.values().removeIf(Entry::isExpired);
+            if (entries.size() >= maxChannels) {
+                return loader.get();
+            }
+        }
+        Entry loading = new Entry(new CompletableFuture<>(), System.nanoTime() + ttlNanos);
+        Entry entry = entries.compute(channelId, (id, current) ->
+                current == null || current.isExpired() ? loading : current);
+        if (entry != loading) {
+            try {
+                return entry.posts().join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            List<ResponseChannelPostDTO> posts = List.copyOf(loader.get());
+            loading.posts().complete(posts);
+            return posts;
+        } catch (RuntimeException e) {
+            entries.remove(channelId, loading);
+            loading.posts().completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Removes the channel's page when the current transaction is committed, so the next load can't read
+     * the data which is not committed yet.
+     */
+    public void evictAfterCommit(int channelId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            entries.remove(channelId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                entries.remove(channelId);
+            }
+        });
+    }
+
+    private record Entry(CompletableFuture<List<ResponseChannelPostDTO>> posts, long expiresAt) {
+
+        boolean isExpired() {
+            return System.nanoTime() - expiresAt > 0;
+        }
+    }
+}
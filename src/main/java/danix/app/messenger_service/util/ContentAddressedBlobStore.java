@@ -0,0 +1,147 @@
+package danix.app.messenger_service.util;
+
+import danix.app.messenger_service.dto.ResponseFileDTO;
+import danix.app.messenger_service.dto.StoredFileDTO;
+import danix.app.messenger_service.models.ContentType;
+import danix.app.messenger_service.repositories.MediaBlobsRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Stores every unique content once under {@code files_blobs_path}, keyed by its SHA-256 hash.
+ * Records reference the hash instead of a random uuid and deletion only decrements the reference count,
+ * the file is removed when the last reference is gone. Files stored by uuid before enabling this mode
+ * (and default avatars) are still served and deleted by {@link LocalBlobStore}.
+ */
+@Slf4j
+@Primary
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "files_storage_mode", havingValue = "CONTENT_ADDRESSED")
+public class ContentAddressedBlobStore implements BlobStore {
+    private static final Pattern HASH = Pattern.compile("^[0-9a-f]{64}$");
+
+    private final LocalBlobStore localBlobStore;
+    private final MediaBlobsRepository blobsRepository;
+    private final ImagePreviewsGenerator previewsGenerator;
+    private final TransactionTemplate transactionTemplate;
+    @Value("${files_blobs_path}")
+    private String FILES_BLOBS_PATH;
+
+    /**
+     * The content is hashed into a temporary file without a transaction, only updating the reference count
+     * and moving the file into place run in one.
+     */
+    @Override
+    public StoredFileDTO upload(Path filesPath, MultipartFile multipartFile, String uuid, ContentType contentType) {
+        String extension = LocalBlobStore.getExtension(multipartFile, contentType);
+        Path blobsPath = Path.of(FILES_BLOBS_PATH);
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile(Files.createDirectories(blobsPath.resolve("tmp")), "upload", ".tmp");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream inputStream = new DigestInputStream(multipartFile.getInputStream(), digest)) {
+                Files.copy(inputStream, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path uploadedFile = tempFile;
+            transactionTemplate.executeWithoutResult(status ->
+                    store(uploadedFile, blobsPath, hash, extension, contentType));
+            return new StoredFileDTO(hash, extension);
+        } catch (IOException | UncheckedIOException | NoSuchAlgorithmException e) {
+            log.error("Error uploading file - {}", e.getMessage());
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException ex) {
+                    log.error("Error deleting partially uploaded file - {}", ex.getMessage());
+                }
+            }
+            throw new FileException("Error while uploading file");
+        }
+    }
+
+    private void store(Path tempFile, Path blobsPath, String hash, String extension, ContentType contentType) {
+        String fileName = hash + extension;
+        try {
+            blobsRepository.incrementReferences(fileName, Files.size(tempFile));
+            // The row stays locked until the transaction ends, so only the first uploader moves the file
+            if (blobsRepository.getReferences(fileName) == 1) {
+                Path file = LocalBlobStore.resolve(blobsPath, hash, extension);
+                Files.createDirectories(file.getParent());
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+                if (contentType == ContentType.IMAGE) {
+                    previewsGenerator.generate(file);
+                }
+            } else {
+                Files.delete(tempFile);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public ResponseFileDTO download(Path filesPath, String objectUUID, String extension, ContentType contentType) {
+        if (!isHash(objectUUID)) {
+            return localBlobStore.download(filesPath, objectUUID, extension, contentType);
+        }
+        // Avatars don't keep the extension, so it is probed in the blobs directory
+        return localBlobStore.download(Path.of(FILES_BLOBS_PATH), objectUUID, extension, contentType);
+    }
+
+    @Override
+    @Transactional
+    public void delete(Path filesPath, String objectUUID, String extension) {
+        if (!isHash(objectUUID)) {
+            localBlobStore.delete(filesPath, objectUUID, extension);
+            return;
+        }
+        if (extension != null) {
+            deleteReference(objectUUID, extension);
+            return;
+        }
+        for (String fileExtension : LocalBlobStore.EXTENSIONS) {
+            if (blobsRepository.existsById(objectUUID + fileExtension)) {
+                deleteReference(objectUUID, fileExtension);
+                return;
+            }
+        }
+    }
+
+    private void deleteReference(String hash, String extension) {
+        String fileName = hash + extension;
+        blobsRepository.decrementReferences(fileName);
+        if (blobsRepository.deleteIfUnreferenced(fileName) == 1) {
+            try {
+                LocalBlobStore.deleteFile(LocalBlobStore.resolve(Path.of(FILES_BLOBS_PATH), hash, extension));
+            } catch (IOException e) {
+                log.error("Error deleting file, - {}", e.getMessage());
+                throw new FileException("Error deleting file");
+            }
+        }
+    }
+
+    private static boolean isHash(String objectUUID) {
+        return objectUUID != null && HASH.matcher(objectUUID).matches();
+    }
+}
@@ -29,6 +29,8 @@ public final class ErrorHandler {
                     throw new ChannelException(message.toString());
                 case AUTHENTICATION_EXCEPTION ->
                     throw new AuthenticationException(message.toString());
+                case FILE_EXCEPTION ->
+                    throw new FileException(message.toString());
             }
         }
     }
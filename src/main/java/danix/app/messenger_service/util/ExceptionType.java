@@ -6,5 +6,6 @@ public enum ExceptionType {
     CHAT_EXCEPTION,
     GROUP_EXCEPTION,
     CHANNEL_EXCEPTION,
-    AUTHENTICATION_EXCEPTION
+    AUTHENTICATION_EXCEPTION,
+    FILE_EXCEPTION
 }
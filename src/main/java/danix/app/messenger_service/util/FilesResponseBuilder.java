@@ -0,0 +1,94 @@
+package danix.app.messenger_service.util;
+
+import danix.app.messenger_service.dto.ResponseFileDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class FilesResponseBuilder {
+    private static final String X_ACCEL_REDIRECT = "X-Accel-Redirect";
+    private static final String X_SENDFILE = "X-Sendfile";
+
+    public enum ServingMode {
+        DIRECT,
+        X_ACCEL_REDIRECT,
+        X_SENDFILE
+    }
+
+    @Value("${files_serving_mode}")
+    private ServingMode servingMode;
+    @Value("${files_root_path}")
+    private String filesRootPath;
+    @Value("${files_internal_location}")
+    private String filesInternalLocation;
+
+    public ResponseEntity<?> build(ResponseFileDTO file, WebRequest request) {
+        return build(file, CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable(), request);
+    }
+
+    /**
+     * Avatars are served by the URL of their owner, which stays the same when the avatar is changed,
+     * so they are revalidated on every request by the uuid ETag instead of being cached as immutable.
+     */
+    public ResponseEntity<?> buildAvatar(ResponseFileDTO file, WebRequest request) {
+        return build(file, CacheControl.noCache().cachePrivate(), request);
+    }
+
+    public ResponseEntity<?> build(ResponseFileDTO file, Integer previewSize, WebRequest request) {
+        if (previewSize == null) {
+            return build(file, request);
+        }
+        ResponseFileDTO preview = ImagePreviewsGenerator.getPreview(file, previewSize);
+        if (preview == null) {
+            // Original image must not be cached as the preview, it may be created later
+            return build(file, CacheControl.noCache().cachePrivate(), request);
+        }
+        return build(preview, request);
+    }
+
+    private ResponseEntity<?> build(ResponseFileDTO file, CacheControl cacheControl, WebRequest request) {
+        String eTag = "\"" + file.getUuid() + "\"";
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK)
+                .eTag(eTag)
+                .cacheControl(cacheControl)
+                .contentType(file.getType());
+        switch (servingMode) {
+            case X_ACCEL_REDIRECT -> {
+                return response.header(X_ACCEL_REDIRECT, getInternalUri(file.getFile())).build();
+            }
+            case X_SENDFILE -> {
+                return response.header(X_SENDFILE, file.getFile().toAbsolutePath().toString()).build();
+            }
+            default -> {
+                if (!Files.isReadable(file.getFile())) {
+                    throw new FileException("File not found");
+                }
+                return response.body(new FileSystemResource(file.getFile()));
+            }
+        }
+    }
+
+    private String getInternalUri(Path file) {
+        Path relativePath = Path.of(filesRootPath).toAbsolutePath().normalize()
+                .relativize(file.toAbsolutePath().normalize());
+        if (relativePath.startsWith("..")) {
+            throw new FileException("File is outside of files root path");
+        }
+        String location = filesInternalLocation.endsWith("/") ? filesInternalLocation : filesInternalLocation + "/";
+        return location + relativePath.toString().replace('\\', '/');
+    }
+}
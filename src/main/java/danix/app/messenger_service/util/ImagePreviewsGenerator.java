@@ -0,0 +1,154 @@
+package danix.app.messenger_service.util;
+
+import danix.app.messenger_service.dto.ResponseFileDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates downscaled copies of uploaded images next to the original file ({@code <uuid>_<size>.<ext>}),
+ * so clients can load previews instead of full size images.
+ */
+@Slf4j
+@Component
+public class ImagePreviewsGenerator {
+    public static final List<Integer> SIZES = List.of(128, 512);
+    private static final long MAX_PIXELS = 50_000_000;
+
+    private final ThreadPoolExecutor executor;
+
+    public ImagePreviewsGenerator(@Value("${image_previews_threads}") int threads,
+                                  @Value("${image_previews_queue_capacity}") int queueCapacity) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "image-previews-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void generate(Path image) {
+        try {
+            executor.execute(() -> generatePreviews(image));
+        } catch (RejectedExecutionException e) {
+            // Previews are optional, the original image is served until they are created
+            log.warn("Image previews queue is full, skipping {}", image.getFileName());
+        }
+    }
+
+    /**
+     * @return preview of requested size, the file itself if it's not an image
+     * or {@code null} if the preview is not created yet or the image is smaller than requested size
+     */
+    public static ResponseFileDTO getPreview(ResponseFileDTO file, int size) {
+        if (!SIZES.contains(size)) {
+            throw new FileException("Unsupported preview size");
+        }
+        if (!"image".equals(file.getType().getType())) {
+            return file;
+        }
+        Path preview = getPreviewPath(file.getFile(), size);
+        if (!Files.exists(preview)) {
+            return null;
+        }
+        return new ResponseFileDTO(file.getUuid() + "_" + size, preview, file.getType());
+    }
+
+    public static void deletePreviews(Path image) throws IOException {
+        for (int size : SIZES) {
+            Files.deleteIfExists(getPreviewPath(image, size));
+        }
+    }
+
+    static Path getPreviewPath(Path image, int size) {
+        String name = image.getFileName().toString();
+        int extensionIndex = name.lastIndexOf('.');
+        return image.resolveSibling(name.substring(0, extensionIndex) + "_" + size + name.substring(extensionIndex));
+    }
+
+    public void generatePreviews(Path image) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(image.toFile())) {
+            Iterator<ImageReader> readers = input == null ? Collections.emptyIterator() : ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                log.warn("Unsupported image format {}", image.getFileName());
+                return;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                writePreviews(image, reader);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            log.error("Error creating previews for {} - {}", image.getFileName(), e.getMessage());
+        }
+    }
+
+    private void writePreviews(Path image, ImageReader reader) throws IOException {
+        int originalWidth = reader.getWidth(0);
+        int originalHeight = reader.getHeight(0);
+        // Dimensions are taken from the header, a small file may declare an image which doesn't fit in heap
+        if ((long) originalWidth * originalHeight > MAX_PIXELS) {
+            log.warn("Image {} is too large for previews ({}x{})", image.getFileName(), originalWidth, originalHeight);
+            return;
+        }
+        int maxSide = Math.max(originalWidth, originalHeight);
+        int largestSize = SIZES.get(SIZES.size() - 1);
+        if (maxSide <= SIZES.get(0)) {
+            return;
+        }
+        // Every n-th pixel is decoded, so the decoded image is not smaller than the largest preview
+        int subsampling = Math.max(1, maxSide / largestSize);
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+        BufferedImage original = reader.read(0, param);
+        boolean png = image.getFileName().toString().endsWith(".png");
+        for (int size : SIZES) {
+            if (maxSide <= size) {
+                continue;
+            }
+            double scale = (double) size / maxSide;
+            int width = Math.max(1, (int) Math.round(originalWidth * scale));
+            int height = Math.max(1, (int) Math.round(originalHeight * scale));
+            BufferedImage preview = new BufferedImage(width, height,
+                    png ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = preview.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(original, 0, 0, width, height, null);
+            graphics.dispose();
+            // Written to temporary file first, so the preview is never served partially written
+            Path previewPath = getPreviewPath(image, size);
+            Path tempFile = previewPath.resolveSibling(previewPath.getFileName() + ".tmp");
+            ImageIO.write(preview, png ? "png" : "jpg", tempFile.toFile());
+            Files.move(tempFile, previewPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,7 @@
+package danix.app.messenger_service.util;
+
+public class JobException extends AbstractException {
+    public JobException(String message) {
+        super(message);
+    }
+}
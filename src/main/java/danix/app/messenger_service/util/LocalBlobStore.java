@@ -0,0 +1,164 @@
+package danix.app.messenger_service.util;
+
+import danix.app.messenger_service.dto.ResponseFileDTO;
+import danix.app.messenger_service.dto.StoredFileDTO;
+import danix.app.messenger_service.models.ContentType;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LocalBlobStore implements BlobStore {
+    static final List<String> EXTENSIONS = List.of(".jpg", ".png", ".mp4", ".ogg", ".mp3");
+    private static final Pattern SHARDABLE_NAME = Pattern.compile("^[0-9a-fA-F]{4}.*\\.[a-z0-9]+$");
+
+    private final ImagePreviewsGenerator previewsGenerator;
+
+    @Override
+    public StoredFileDTO upload(Path filesPath, MultipartFile multipartFile, String uuid, ContentType contentType) {
+        String extension = getExtension(multipartFile, contentType);
+        Path file = resolve(filesPath, uuid, extension);
+        try {
+            Files.createDirectories(file.getParent());
+            multipartFile.transferTo(file.toAbsolutePath().toFile());
+        } catch (IOException e) {
+            log.error("Error uploading file - {}", e.getMessage());
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ex) {
+                log.error("Error deleting partially uploaded file - {}", ex.getMessage());
+            }
+            throw new FileException("Error while uploading file");
+        }
+        if (contentType == ContentType.IMAGE) {
+            previewsGenerator.generate(file);
+        }
+        return new StoredFileDTO(uuid, extension);
+    }
+
+    @Override
+    public ResponseFileDTO download(Path filesPath, String objectUUID, String extension, ContentType contentType) {
+        if (extension == null) {
+            extension = switch (contentType) {
+                case IMAGE -> Files.exists(resolve(filesPath, objectUUID, ".jpg")) ? ".jpg" : ".png";
+                case VIDEO -> ".mp4";
+                case AUDIO_OGG -> ".ogg";
+                case AUDIO_MP3 -> ".mp3";
+                default -> throw new FileException("Unsupported content type");
+            };
+        }
+        return new ResponseFileDTO(objectUUID, resolve(filesPath, objectUUID, extension), getMediaType(extension));
+    }
+
+    @Override
+    public void delete(Path filesPath, String objectUUID, String extension) {
+        try {
+            if (extension != null) {
+                deleteFile(resolve(filesPath, objectUUID, extension));
+                return;
+            }
+            for (String fileExtension : EXTENSIONS) {
+                deleteFile(resolve(filesPath, objectUUID, fileExtension));
+            }
+        } catch (IOException e) {
+            log.error("Error deleting file, - {}", e.getMessage());
+            throw new FileException("Error deleting file");
+        }
+    }
+
+    public int migrate(Path filesPath) throws IOException {
+        int moved = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(filesPath, Files::isRegularFile)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                // Temporary files such as .part or .tmp are not moved, only stored media
+                if (!SHARDABLE_NAME.matcher(name).matches() || !EXTENSIONS.contains(name.substring(name.lastIndexOf('.')))) {
+                    continue;
+                }
+                Path target = resolve(filesPath, name.substring(0, name.lastIndexOf('.')),
+                        name.substring(name.lastIndexOf('.')));
+                Files.createDirectories(target.getParent());
+                Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    static void deleteFile(Path file) throws IOException {
+        if (Files.deleteIfExists(file) && isImage(file)) {
+            ImagePreviewsGenerator.deletePreviews(file);
+        }
+    }
+
+    private static boolean isImage(Path file) {
+        String name = file.getFileName().toString();
+        return name.endsWith(".jpg") || name.endsWith(".png");
+    }
+
+    static String getExtension(MultipartFile multipartFile, ContentType contentType) {
+        return getExtension(Objects.requireNonNull(multipartFile.getOriginalFilename()), contentType);
+    }
+
+    public static String getExtension(String fileName, ContentType contentType) {
+        int extensionIndex = fileName.lastIndexOf('.');
+        if (extensionIndex == -1) {
+            throw new FileException("Unsupported file");
+        }
+        String extension = fileName.substring(extensionIndex);
+        switch (contentType) {
+            case IMAGE -> {
+                if (!extension.equals(".png") && !extension.equals(".jpg")) {
+                    throw new FileException("Unsupported file");
+                }
+            }
+            case VIDEO -> {
+                if (!extension.equals(".mp4")) {
+                    throw new FileException("Unsupported file");
+                }
+            }
+            case AUDIO_OGG -> {
+                if (!extension.equals(".ogg")) {
+                    throw new FileException("Unsupported file");
+                }
+            }
+            case AUDIO_MP3 -> {
+                if (!extension.equals(".mp3")) {
+                    throw new FileException("Unsupported file");
+                }
+            }
+            default -> throw new FileException("Unsupported content type");
+        }
+        return extension;
+    }
+
+    static MediaType getMediaType(String extension) {
+        return switch (extension) {
+            case ".jpg" -> MediaType.IMAGE_JPEG;
+            case ".png" -> MediaType.IMAGE_PNG;
+            case ".mp4" -> MediaType.parseMediaType("video/mp4");
+            case ".ogg" -> MediaType.parseMediaType("audio/ogg");
+            case ".mp3" -> MediaType.parseMediaType("audio/mpeg");
+            default -> throw new FileException("Unsupported file");
+        };
+    }
+
+    static Path resolve(Path filesPath, String objectUUID, String extension) {
+        return filesPath.resolve(objectUUID.substring(0, 2))
+                .resolve(objectUUID.substring(2, 4))
+                .resolve(objectUUID + extension);
+    }
+}
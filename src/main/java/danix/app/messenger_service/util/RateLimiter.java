@@ -0,0 +1,33 @@
+package danix.app.messenger_service.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces operations evenly, so no more than {@code permitsPerSecond} of them run per second across all threads.
+ */
+public class RateLimiter {
+    private final long intervalNanos;
+    private long nextPermit = System.nanoTime();
+
+    public RateLimiter(int permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("Permits per second must be positive");
+        }
+        intervalNanos = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+    }
+
+    public void acquire() throws InterruptedException {
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (nextPermit - now < 0) {
+                nextPermit = now;
+            }
+            wait = nextPermit - now;
+            nextPermit += intervalNanos;
+        }
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+}
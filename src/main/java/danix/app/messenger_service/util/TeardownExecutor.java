@@ -0,0 +1,74 @@
+package danix.app.messenger_service.util;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs chats, groups, channels and posts deletions on a fixed number of threads with a bounded queue,
+ * so a wave of deletions can't create unlimited threads or occupy the common pool.
+ * Jobs are kept in memory, so their progress can be requested until they are removed by
+ * {@link #deleteFinishedJobs(LocalDateTime)}.
+ */
+@Slf4j
+@Component
+public class TeardownExecutor {
+    private final ThreadPoolExecutor executor;
+    private final Map<String, TeardownJob> jobs = new ConcurrentHashMap<>();
+
+    public TeardownExecutor(@Value("${teardown_threads}") int threads,
+                            @Value("${teardown_queue_capacity}") int queueCapacity) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "teardown-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public TeardownJob submit(TeardownJob.Type type, long targetId, int ownerId, Consumer<TeardownJob> task) {
+        TeardownJob job = new TeardownJob(UUID.randomUUID().toString(), type, targetId, ownerId);
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> run(job, task));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw new JobException("Too many deletions in progress, try again later");
+        }
+        return job;
+    }
+
+    public Optional<TeardownJob> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    public void deleteFinishedJobs(LocalDateTime finishedBefore) {
+        jobs.values().removeIf(job -> job.isFinished() && job.getFinishedAt().isBefore(finishedBefore));
+    }
+
+    private void run(TeardownJob job, Consumer<TeardownJob> task) {
+        job.start();
+        try {
+            task.accept(job);
+            job.finish(null);
+        } catch (RuntimeException e) {
+            log.error("Error deleting {} {} - {}", job.getType(), job.getTargetId(), e.getMessage());
+            job.finish(e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
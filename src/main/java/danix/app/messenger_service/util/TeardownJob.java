@@ -0,0 +1,71 @@
+package danix.app.messenger_service.util;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletion of a chat, group, channel or post with all its files, run by {@link TeardownExecutor}.
+ */
+@Getter
+public class TeardownJob {
+    private final String id;
+    private final Type type;
+    private final long targetId;
+    private final int ownerId;
+    private final LocalDateTime createdAt = LocalDateTime.now();
+    private final AtomicLong processedRows = new AtomicLong();
+    private final AtomicLong deletedFiles = new AtomicLong();
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private volatile Status status = Status.QUEUED;
+    private volatile LocalDateTime finishedAt;
+
+    public enum Type {
+        CHAT,
+        GROUP,
+        CHANNEL,
+        CHANNEL_POST
+    }
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    TeardownJob(String id, Type type, long targetId, int ownerId) {
+        this.id = id;
+        this.type = type;
+        this.targetId = targetId;
+        this.ownerId = ownerId;
+    }
+
+    public void addProcessedRows(long count) {
+        processedRows.addAndGet(count);
+    }
+
+    public void addDeletedFiles(long count) {
+        deletedFiles.addAndGet(count);
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    void start() {
+        status = Status.RUNNING;
+    }
+
+    void finish(Throwable error) {
+        finishedAt = LocalDateTime.now();
+        status = error == null ? Status.COMPLETED : Status.FAILED;
+        if (error == null) {
+            completion.complete(null);
+        } else {
+            completion.completeExceptionally(error);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package danix.app.messenger_service.util;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * File assembled by chunked upload, passed to the same service methods as multipart files.
+ * {@link #transferTo(File)} moves the file instead of copying it.
+ */
+public class UploadedMultipartFile implements MultipartFile {
+    private final Path file;
+    private final String fileName;
+
+    public UploadedMultipartFile(Path file, String fileName) {
+        this.file = file;
+        this.fileName = fileName;
+    }
+
+    @Override
+    public String getName() {
+        return "file";
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return fileName;
+    }
+
+    @Override
+    public String getContentType() {
+        return null;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return getSize() == 0;
+    }
+
+    @Override
+    public long getSize() {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        return Files.readAllBytes(file);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return Files.newInputStream(file);
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        Files.move(file, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,13 @@
+-- Every participant of a chat keeps the id of the last read message instead of a flag on every message,
+-- so viewing a chat updates at most one row.
+ALTER TABLE users_chats
+    ADD COLUMN IF NOT EXISTS user1_last_read_message_id BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS user2_last_read_message_id BIGINT NOT NULL DEFAULT 0;
+
+UPDATE users_chats c
+SET user1_last_read_message_id = COALESCE((SELECT max(m.id) FROM chats_messages m
+                                           WHERE m.chat = c.id AND m.message_owner = c.user2 AND m.is_read), 0),
+    user2_last_read_message_id = COALESCE((SELECT max(m.id) FROM chats_messages m
+                                           WHERE m.chat = c.id AND m.message_owner = c.user1 AND m.is_read), 0);
+
+ALTER TABLE chats_messages DROP COLUMN IF EXISTS is_read;
@@ -0,0 +1,24 @@
+-- Count of unread messages of every participant, changed by sending, deleting and reading messages.
+ALTER TABLE users_chats
+    ADD COLUMN IF NOT EXISTS user1_unread_count INTEGER NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS user2_unread_count INTEGER NOT NULL DEFAULT 0;
+
+UPDATE users_chats c
+SET user1_unread_count = (SELECT count(*) FROM chats_messages m
+                          WHERE m.chat = c.id AND m.message_owner = c.user2 AND m.id > c.user1_last_read_message_id),
+    user2_unread_count = (SELECT count(*) FROM chats_messages m
+                          WHERE m.chat = c.id AND m.message_owner = c.user1 AND m.id > c.user2_last_read_message_id);
+
+-- Reading of groups was not tracked before, so existing messages are considered read.
+ALTER TABLE group_users
+    ADD COLUMN IF NOT EXISTS last_read_message_id BIGINT NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS unread_count INTEGER NOT NULL DEFAULT 0;
+
+UPDATE group_users gu
+SET last_read_message_id = COALESCE((SELECT max(m.id) FROM groups_messages m WHERE m.group_id = gu.group_id), 0);
+
+CREATE INDEX IF NOT EXISTS users_chats_user1_idx ON users_chats (user1);
+
+CREATE INDEX IF NOT EXISTS users_chats_user2_idx ON users_chats (user2);
+
+CREATE INDEX IF NOT EXISTS group_users_user_id_idx ON group_users (user_id);
@@ -0,0 +1,26 @@
+-- Last message of every chat is kept on the chat, so the inbox of a user is read from one index
+-- ordered by last activity instead of loading all chats and their messages.
+ALTER TABLE users_chats
+    ADD COLUMN IF NOT EXISTS last_message_id      BIGINT,
+    ADD COLUMN IF NOT EXISTS last_message_preview VARCHAR,
+    ADD COLUMN IF NOT EXISTS last_message_type    VARCHAR,
+    ADD COLUMN IF NOT EXISTS last_activity_at     TIMESTAMP WITHOUT TIME ZONE NOT NULL DEFAULT now();
+
+UPDATE users_chats c
+SET last_message_id      = m.id,
+    last_message_preview = CASE WHEN m.content_type = 'TEXT' THEN left(m.message, 100) END,
+    last_message_type    = m.content_type,
+    last_activity_at     = m.sent_time
+FROM (SELECT DISTINCT ON (chat) chat, id, message, content_type, sent_time
+      FROM chats_messages
+      ORDER BY chat, id DESC) m
+WHERE m.chat = c.id;
+
+-- Replaces indexes on user1 and user2 added with unread counters
+DROP INDEX IF EXISTS users_chats_user1_idx;
+
+DROP INDEX IF EXISTS users_chats_user2_idx;
+
+CREATE INDEX IF NOT EXISTS users_chats_user1_last_activity_idx ON users_chats (user1, last_activity_at DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS users_chats_user2_last_activity_idx ON users_chats (user2, last_activity_at DESC, id DESC);
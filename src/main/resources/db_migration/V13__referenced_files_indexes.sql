@@ -0,0 +1,9 @@
+-- The orphaned files collector looks up batches of file names in these columns.
+-- Text messages and comments are excluded, they are never file names and may be too long for a btree index.
+CREATE INDEX IF NOT EXISTS chats_messages_file_idx ON chats_messages (message) WHERE content_type <> 'TEXT';
+
+CREATE INDEX IF NOT EXISTS groups_messages_file_idx ON groups_messages (message) WHERE content_type <> 'TEXT';
+
+CREATE INDEX IF NOT EXISTS channels_posts_comments_file_idx ON channels_posts_comments (comment) WHERE content_type <> 'TEXT';
+
+CREATE INDEX IF NOT EXISTS channels_posts_files_file_uuid_idx ON channels_posts_files (file_uuid);
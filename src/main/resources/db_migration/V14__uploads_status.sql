@@ -0,0 +1,2 @@
+ALTER TABLE uploads
+    ADD COLUMN status VARCHAR NOT NULL DEFAULT 'OPEN';
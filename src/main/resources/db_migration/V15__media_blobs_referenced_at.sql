@@ -0,0 +1,18 @@
+-- Blobs referenced recently may belong to an upload whose row is not committed yet, the references reconciler skips them
+ALTER TABLE media_blobs
+    ADD COLUMN referenced_at TIMESTAMP WITHOUT TIME ZONE;
+
+UPDATE media_blobs
+SET referenced_at = created_at;
+
+ALTER TABLE media_blobs
+    ALTER COLUMN referenced_at SET NOT NULL;
+
+-- The references reconciler looks up batches of blob hashes in these columns
+CREATE INDEX IF NOT EXISTS person_image_idx ON person (image);
+
+CREATE INDEX IF NOT EXISTS groups_image_idx ON groups (image);
+
+CREATE INDEX IF NOT EXISTS channels_image_idx ON channels (image);
+
+CREATE INDEX IF NOT EXISTS files_deletions_file_uuid_idx ON files_deletions (file_uuid);
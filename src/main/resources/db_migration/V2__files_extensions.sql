@@ -0,0 +1,29 @@
+ALTER TABLE chats_messages
+    ADD COLUMN file_extension VARCHAR;
+
+ALTER TABLE groups_messages
+    ADD COLUMN file_extension VARCHAR;
+
+ALTER TABLE channels_posts_files
+    ADD COLUMN file_extension VARCHAR;
+
+ALTER TABLE channels_posts_comments
+    ADD COLUMN file_extension VARCHAR;
+
+-- Only images may have different extensions, others are known by content type.
+-- Existing images keep NULL extension and are resolved by probing the filesystem.
+UPDATE chats_messages
+SET file_extension = CASE content_type WHEN 'VIDEO' THEN '.mp4' WHEN 'AUDIO_OGG' THEN '.ogg' ELSE '.mp3' END
+WHERE content_type IN ('VIDEO', 'AUDIO_OGG', 'AUDIO_MP3');
+
+UPDATE groups_messages
+SET file_extension = CASE content_type WHEN 'VIDEO' THEN '.mp4' WHEN 'AUDIO_OGG' THEN '.ogg' ELSE '.mp3' END
+WHERE content_type IN ('VIDEO', 'AUDIO_OGG', 'AUDIO_MP3');
+
+UPDATE channels_posts_files
+SET file_extension = CASE content_type WHEN 'VIDEO' THEN '.mp4' WHEN 'AUDIO_OGG' THEN '.ogg' ELSE '.mp3' END
+WHERE content_type IN ('VIDEO', 'AUDIO_OGG', 'AUDIO_MP3');
+
+UPDATE channels_posts_comments
+SET file_extension = CASE content_type WHEN 'VIDEO' THEN '.mp4' WHEN 'AUDIO_OGG' THEN '.ogg' ELSE '.mp3' END
+WHERE content_type IN ('VIDEO', 'AUDIO_OGG', 'AUDIO_MP3');
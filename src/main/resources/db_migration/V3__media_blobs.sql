@@ -0,0 +1,8 @@
+CREATE TABLE media_blobs
+(
+    file_name  VARCHAR                     NOT NULL,
+    ref_count  INTEGER                     NOT NULL,
+    size       BIGINT                      NOT NULL,
+    created_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT media_blobs_pkey PRIMARY KEY (file_name)
+);
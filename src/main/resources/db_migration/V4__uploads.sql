@@ -0,0 +1,15 @@
+CREATE TABLE uploads
+(
+    id           VARCHAR                     NOT NULL,
+    owner_id     INTEGER                     NOT NULL,
+    target       VARCHAR                     NOT NULL,
+    target_id    BIGINT                      NOT NULL,
+    content_type VARCHAR                     NOT NULL,
+    file_name    VARCHAR                     NOT NULL,
+    size         BIGINT                      NOT NULL,
+    created_at   TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    CONSTRAINT uploads_pkey PRIMARY KEY (id)
+);
+
+ALTER TABLE uploads
+    ADD CONSTRAINT uploads_owner_id_fkey FOREIGN KEY (owner_id) REFERENCES person (id) ON DELETE CASCADE;
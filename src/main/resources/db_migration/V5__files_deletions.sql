@@ -0,0 +1,13 @@
+CREATE TABLE files_deletions
+(
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    files_path      VARCHAR                                 NOT NULL,
+    file_uuid       VARCHAR                                 NOT NULL,
+    file_extension  VARCHAR,
+    attempts        INTEGER                                 NOT NULL,
+    next_attempt_at TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
+    created_at      TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
+    CONSTRAINT files_deletions_pkey PRIMARY KEY (id)
+);
+
+CREATE INDEX files_deletions_next_attempt_at_idx ON files_deletions (next_attempt_at);
@@ -0,0 +1,13 @@
+-- Foreign keys are not indexed by PostgreSQL, without these indexes every cascaded delete
+-- and every chunk of a chat, group or channel deletion scans the whole table.
+CREATE INDEX IF NOT EXISTS chats_messages_chat_id_idx ON chats_messages (chat, id);
+
+CREATE INDEX IF NOT EXISTS groups_messages_group_id_id_idx ON groups_messages (group_id, id);
+
+CREATE INDEX IF NOT EXISTS channels_posts_channel_id_id_idx ON channels_posts (channel_id, id);
+
+CREATE INDEX IF NOT EXISTS channels_posts_comments_post_id_id_idx ON channels_posts_comments (post_id, id);
+
+CREATE INDEX IF NOT EXISTS channels_posts_files_post_id_idx ON channels_posts_files (post_id);
+
+CREATE INDEX IF NOT EXISTS channels_posts_likes_post_id_idx ON channels_posts_likes (post_id);
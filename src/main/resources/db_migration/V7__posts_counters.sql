@@ -0,0 +1,9 @@
+ALTER TABLE channels_posts
+    ADD COLUMN likes_count INTEGER NOT NULL DEFAULT 0;
+
+ALTER TABLE channels_posts
+    ADD COLUMN comments_count INTEGER NOT NULL DEFAULT 0;
+
+UPDATE channels_posts p
+SET likes_count    = (SELECT count(*) FROM channels_posts_likes l WHERE l.post_id = p.id),
+    comments_count = (SELECT count(*) FROM channels_posts_comments c WHERE c.post_id = p.id);
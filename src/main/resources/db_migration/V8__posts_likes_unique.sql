@@ -0,0 +1,14 @@
+DELETE
+FROM channels_posts_likes l USING channels_posts_likes d
+WHERE l.post_id = d.post_id
+  AND l.user_id = d.user_id
+  AND l.id > d.id;
+
+-- The unique index starts with post_id and replaces the plain one
+DROP INDEX IF EXISTS channels_posts_likes_post_id_idx;
+
+CREATE UNIQUE INDEX channels_posts_likes_post_id_user_id_idx ON channels_posts_likes (post_id, user_id);
+
+UPDATE channels_posts p
+SET likes_count = (SELECT count(*) FROM channels_posts_likes l WHERE l.post_id = p.id)
+WHERE likes_count <> (SELECT count(*) FROM channels_posts_likes l WHERE l.post_id = p.id);
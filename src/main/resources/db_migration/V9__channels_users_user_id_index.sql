@@ -0,0 +1,2 @@
+-- Channels of a user are looked up by the feed for every request.
+CREATE INDEX IF NOT EXISTS channels_users_user_id_channel_id_idx ON channels_users (user_id, channel_id);
@@ -0,0 +1,63 @@
+package danix.app.messenger_service;
+
+import danix.app.messenger_service.repositories.MediaBlobsRepository;
+import danix.app.messenger_service.services.BlobsReferencesService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BlobsReferencesServiceTest {
+
+    @Mock
+    private MediaBlobsRepository blobsRepository;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @InjectMocks
+    private BlobsReferencesService blobsReferencesService;
+
+    @Test
+    public void reconcile() {
+        List<String> firstBatch = IntStream.range(0, 500).mapToObj(i -> String.format("%064d.png", i)).toList();
+        List<String> secondBatch = List.of("f".repeat(64) + ".mp4");
+        when(blobsRepository.lockNamesAfter(eq(""), any(), eq(500))).thenReturn(firstBatch);
+        when(blobsRepository.lockNamesAfter(eq(firstBatch.get(499)), any(), eq(500))).thenReturn(secondBatch);
+        when(blobsRepository.lockNamesAfter(eq(secondBatch.get(0)), any(), eq(500))).thenReturn(Collections.emptyList());
+        when(blobsRepository.reconcileReferences(firstBatch)).thenReturn(2);
+        when(blobsRepository.reconcileReferences(secondBatch)).thenReturn(1);
+        assertEquals(3, blobsReferencesService.reconcile());
+        InOrder inOrder = inOrder(blobsRepository);
+        inOrder.verify(blobsRepository).reconcileReferences(firstBatch);
+        inOrder.verify(blobsRepository).deleteUnreferenced(firstBatch);
+        inOrder.verify(blobsRepository).reconcileReferences(secondBatch);
+        inOrder.verify(blobsRepository).deleteUnreferenced(secondBatch);
+        verify(transactionTemplate, times(3)).execute(any());
+    }
+
+    @Test
+    public void reconcileShouldSkipRecentlyReferencedBlobs() {
+        ArgumentCaptor<LocalDateTime> before = ArgumentCaptor.forClass(LocalDateTime.class);
+        when(blobsRepository.lockNamesAfter(eq(""), before.capture(), eq(500))).thenReturn(Collections.emptyList());
+        assertEquals(0, blobsReferencesService.reconcile());
+        assertTrue(before.getValue().isBefore(LocalDateTime.now().minusHours(23)));
+        verify(blobsRepository, never()).reconcileReferences(any());
+        verify(blobsRepository, never()).deleteUnreferenced(any());
+    }
+}
@@ -0,0 +1,225 @@
+package danix.app.messenger_service;
+
+import danix.app.messenger_service.repositories.ChannelsPostsCommentsRepository;
+import danix.app.messenger_service.repositories.ChannelsPostsRepository;
+import danix.app.messenger_service.repositories.ChatsMessagesRepository;
+import danix.app.messenger_service.repositories.DeletedChunkProjection;
+import danix.app.messenger_service.repositories.DeletedCommentsChunkProjection;
+import danix.app.messenger_service.repositories.GroupsMessagesRepository;
+import danix.app.messenger_service.services.BulkDeletionService;
+import danix.app.messenger_service.util.TeardownExecutor;
+import danix.app.messenger_service.util.TeardownJob;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BulkDeletionServiceTest {
+
+    @Mock
+    private ChatsMessagesRepository chatsMessagesRepository;
+
+    @Mock
+    private GroupsMessagesRepository groupsMessagesRepository;
+
+    @Mock
+    private ChannelsPostsRepository channelsPostsRepository;
+
+    @Mock
+    private ChannelsPostsCommentsRepository commentsRepository;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @InjectMocks
+    private BulkDeletionService bulkDeletionService;
+
+    private final TeardownExecutor teardownExecutor = new TeardownExecutor(1, 10);
+
+    @BeforeEach
+    public void setUp() {
+        for (String field : new String[]{"CHATS_IMAGES_PATH", "CHATS_VIDEOS_PATH", "CHATS_AUDIO_PATH",
+                "GROUPS_MESSAGES_IMAGES_PATH", "GROUPS_MESSAGES_VIDEOS_PATH", "GROUPS_MESSAGES_AUDIO_PATH",
+                "POSTS_IMAGES_PATH", "POSTS_VIDEOS_PATH", "POSTS_AUDIO_PATH",
+                "COMMENTS_IMAGES_PATH", "COMMENTS_VIDEOS_PATH", "COMMENTS_AUDIO_PATH"}) {
+            ReflectionTestUtils.setField(bulkDeletionService, field, field.toLowerCase() + "/");
+        }
+    }
+
+    @Test
+    public void deleteChatMessages() {
+        when(chatsMessagesRepository.deleteChunk(eq(1), eq(0L), eq(500), eq(Path.of("chats_images_path").toString()),
+                eq(Path.of("chats_videos_path").toString()), eq(Path.of("chats_audio_path").toString()), any()))
+                .thenReturn(chunk(700L, 500, 20));
+        when(chatsMessagesRepository.deleteChunk(eq(1), eq(700L), eq(500), any(), any(), any(), any()))
+                .thenReturn(chunk(900L, 100, 5));
+        when(chatsMessagesRepository.deleteChunk(eq(1), eq(900L), eq(500), any(), any(), any(), any()))
+                .thenReturn(chunk(null, 0, 0));
+        TeardownJob job = runJob(TeardownJob.Type.CHAT, teardownJob -> bulkDeletionService.deleteChatMessages(1, teardownJob));
+        assertEquals(600, job.getProcessedRows().get());
+        assertEquals(25, job.getDeletedFiles().get());
+        verify(transactionTemplate, times(3)).execute(any());
+    }
+
+    @Test
+    public void deleteGroupMessagesWhenGroupIsEmpty() {
+        when(groupsMessagesRepository.deleteChunk(eq(1), eq(0L), eq(500), any(), any(), any(), any()))
+                .thenReturn(chunk(null, 0, 0));
+        TeardownJob job = runJob(TeardownJob.Type.GROUP, teardownJob -> bulkDeletionService.deleteGroupMessages(1, teardownJob));
+        assertEquals(0, job.getProcessedRows().get());
+        verify(groupsMessagesRepository, times(1)).deleteChunk(anyInt(), anyLong(), anyInt(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void deleteChannelPost() {
+        when(commentsRepository.deleteChunk(eq(1), eq(9L), eq(10L), eq(9L), eq(0L), eq(500),
+                eq(Path.of("comments_images_path").toString()), any(), any(), any()))
+                .thenReturn(commentsChunk(10L, 30L, 2, 1));
+        when(channelsPostsRepository.deletePost(eq(1), eq(10L), eq(Path.of("posts_images_path").toString()), any(), any(),
+                eq(Path.of("comments_images_path").toString()), any(), any(), any())).thenReturn(chunk(10L, 1, 1));
+        TeardownJob job = runJob(TeardownJob.Type.CHANNEL_POST,
+                teardownJob -> assertTrue(bulkDeletionService.deleteChannelPost(1, 10L, teardownJob)));
+        assertEquals(3, job.getProcessedRows().get());
+        assertEquals(2, job.getDeletedFiles().get());
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+
+    @Test
+    public void deleteChannelPostShouldDeleteCommentsInChunks() {
+        when(commentsRepository.deleteChunk(eq(1), eq(9L), eq(10L), eq(9L), eq(0L), eq(500), any(), any(), any(), any()))
+                .thenReturn(commentsChunk(10L, 600L, 500, 10));
+        when(commentsRepository.deleteChunk(eq(1), eq(9L), eq(10L), eq(10L), eq(600L), eq(500), any(), any(), any(), any()))
+                .thenReturn(commentsChunk(10L, 700L, 20, 0));
+        when(channelsPostsRepository.deletePost(eq(1), eq(10L), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(chunk(10L, 1, 0));
+        TeardownJob job = runJob(TeardownJob.Type.CHANNEL_POST,
+                teardownJob -> assertTrue(bulkDeletionService.deleteChannelPost(1, 10L, teardownJob)));
+        assertEquals(521, job.getProcessedRows().get());
+        assertEquals(10, job.getDeletedFiles().get());
+        verify(transactionTemplate, times(3)).execute(any());
+    }
+
+    @Test
+    public void deleteChannelPostWhenPostNotFound() {
+        when(channelsPostsRepository.deletePost(eq(1), eq(10L), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(chunk(null, 0, 0));
+        TeardownJob job = runJob(TeardownJob.Type.CHANNEL_POST,
+                teardownJob -> assertFalse(bulkDeletionService.deleteChannelPost(1, 10L, teardownJob)));
+        assertEquals(TeardownJob.Status.COMPLETED, job.getStatus());
+        assertEquals(0, job.getProcessedRows().get());
+    }
+
+    /**
+     * Channel with 100 000 posts, every post has a file and 2 comments, one of them with a file.
+     * Previous implementation loaded posts by 50 with offset paging, then files of every post and comments
+     * of every post page by page, which is about 300 000 queries plus a query per file.
+     * Comments are deleted in chunks of their own, so no statement deletes more than 500 rows of a table.
+     */
+    @Test
+    public void deleteChannelWith100kPostsShouldDeleteCommentsInBoundedChunks() {
+        int posts = 100_000;
+        AtomicLong statements = new AtomicLong();
+        AtomicLong maxDeletedComments = new AtomicLong();
+        when(channelsPostsRepository.findChunkEnd(eq(1), anyLong(), eq(500))).thenAnswer(invocation -> {
+            statements.incrementAndGet();
+            long lastId = invocation.getArgument(1);
+            return lastId >= posts ? null : lastId + (int) invocation.getArgument(2);
+        });
+        // Post n has comments 2n - 1 and 2n
+        when(commentsRepository.deleteChunk(eq(1), anyLong(), anyLong(), anyLong(), anyLong(), eq(500),
+                any(), any(), any(), any())).thenAnswer(invocation -> {
+            statements.incrementAndGet();
+            long afterPostId = invocation.getArgument(1);
+            long toPostId = invocation.getArgument(2);
+            long lastId = invocation.getArgument(4);
+            int limit = invocation.getArgument(5);
+            long position = lastId == 0 ? afterPostId * 2 : lastId;
+            long deleted = Math.min(limit, toPostId * 2 - position);
+            maxDeletedComments.accumulateAndGet(deleted, Math::max);
+            if (deleted == 0) {
+                return commentsChunk(null, null, 0, 0);
+            }
+            long chunkLastId = position + deleted;
+            return commentsChunk((chunkLastId + 1) / 2, chunkLastId, deleted, deleted / 2);
+        });
+        when(channelsPostsRepository.deleteChunk(eq(1), anyLong(), anyLong(), any(), any(), any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    statements.incrementAndGet();
+                    long lastId = invocation.getArgument(1);
+                    long toId = invocation.getArgument(2);
+                    return chunk(toId, toId - lastId, toId - lastId);
+                });
+        TeardownJob job = runJob(TeardownJob.Type.CHANNEL, teardownJob -> bulkDeletionService.deleteChannelPosts(1, teardownJob));
+        // Every chunk of 500 posts: its end, 2 full chunks of comments and an empty one, the posts
+        assertEquals(posts / 500 * 5 + 1, statements.get());
+        assertEquals(500, maxDeletedComments.get());
+        assertEquals(posts * 3L, job.getProcessedRows().get());
+        assertEquals(posts * 2L, job.getDeletedFiles().get());
+    }
+
+    private TeardownJob runJob(TeardownJob.Type type, Consumer<TeardownJob> task) {
+        TeardownJob job = teardownExecutor.submit(type, 1, 1, task);
+        job.getCompletion().join();
+        teardownExecutor.shutdown();
+        return job;
+    }
+
+    private static DeletedChunkProjection chunk(Long lastId, long deletedRows, long deletedFiles) {
+        return new DeletedChunkProjection() {
+            @Override
+            public Long getLastId() {
+                return lastId;
+            }
+
+            @Override
+            public long getDeletedRows() {
+                return deletedRows;
+            }
+
+            @Override
+            public long getDeletedFiles() {
+                return deletedFiles;
+            }
+        };
+    }
+
+    private static DeletedCommentsChunkProjection commentsChunk(Long lastPostId, Long lastId, long deletedRows,
+                                                                long deletedFiles) {
+        return new DeletedCommentsChunkProjection() {
+            @Override
+            public Long getLastPostId() {
+                return lastPostId;
+            }
+
+            @Override
+            public Long getLastId() {
+                return lastId;
+            }
+
+            @Override
+            public long getDeletedRows() {
+                return deletedRows;
+            }
+
+            @Override
+            public long getDeletedFiles() {
+                return deletedFiles;
+            }
+        };
+    }
+}
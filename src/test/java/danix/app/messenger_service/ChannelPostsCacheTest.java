@@ -0,0 +1,86 @@
+package danix.app.messenger_service;
+
+import danix.app.messenger_service.dto.ResponseChannelPostDTO;
+import danix.app.messenger_service.util.ChannelPostsCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChannelPostsCacheTest {
+
+    private final ChannelPostsCache postsCache = new ChannelPostsCache(50, 60, 2);
+
+    @Test
+    public void getFirstPageShouldLoadPageOnceForConcurrentMisses() throws Exception {
+        int threads = 8;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            Future<List<ResponseChannelPostDTO>> first = executor.submit(() -> postsCache.getFirstPage(1, () -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return List.of(ResponseChannelPostDTO.builder().id(1).build());
+            }));
+            loading.await();
+            List<Future<List<ResponseChannelPostDTO>>> waiting = new ArrayList<>();
+            for (int i = 1; i < threads; i++) {
+                waiting.add(executor.submit(() -> postsCache.getFirstPage(1, () -> {
+                    loads.incrementAndGet();
+                    return List.of();
+                })));
+            }
+            release.countDown();
+            assertEquals(1, first.get(5, TimeUnit.SECONDS).size());
+            for (Future<List<ResponseChannelPostDTO>> future : waiting) {
+                assertEquals(1, future.get(5, TimeUnit.SECONDS).get(0).getId());
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void getFirstPageWhenLoadFailed() {
+        assertThrows(IllegalStateException.class, () -> postsCache.getFirstPage(1, () -> {
+            throw new IllegalStateException("error");
+        }));
+        assertTrue(postsCache.getFirstPage(1, List::of).isEmpty());
+    }
+
+    @Test
+    public void evictAfterCommitWithoutTransaction() {
+        postsCache.getFirstPage(1, List::of);
+        postsCache.evictAfterCommit(1);
+        assertEquals(1, postsCache.getFirstPage(1, () -> List.of(new ResponseChannelPostDTO())).size());
+    }
+
+    @Test
+    public void getFirstPageWhenCacheIsFull() {
+        postsCache.getFirstPage(1, List::of);
+        postsCache.getFirstPage(2, List::of);
+        AtomicInteger loads = new AtomicInteger();
+        postsCache.getFirstPage(3, () -> List.of(new ResponseChannelPostDTO(), new ResponseChannelPostDTO()));
+        postsCache.getFirstPage(3, () -> {
+            loads.incrementAndGet();
+            return List.of();
+        });
+        assertEquals(1, loads.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -3,29 +3,45 @@ package danix.app.messenger_service;
 import danix.app.messenger_service.dto.*;
 import danix.app.messenger_service.models.*;
 import danix.app.messenger_service.repositories.*;
+import danix.app.messenger_service.security.MediaUrlSigner;
 import danix.app.messenger_service.security.UserDetailsImpl;
+import danix.app.messenger_service.services.BulkDeletionService;
 import danix.app.messenger_service.services.ChannelsPostsService;
 import danix.app.messenger_service.services.ChannelsService;
-import danix.app.messenger_service.services.UserService;
+import danix.app.messenger_service.services.FilesDeletionsService;
 import danix.app.messenger_service.util.ChannelException;
+import danix.app.messenger_service.util.ChannelPostsCache;
+import danix.app.messenger_service.util.TeardownExecutor;
+import danix.app.messenger_service.util.TeardownJob;
+import danix.app.messenger_service.util.BlobStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.modelmapper.ModelMapper;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import util.TestUtils;
 
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.CompletableFuture;
+import java.util.Set;
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -39,9 +55,6 @@ public class ChannelsPostsServiceTest {
 
     private final Channel testChannel = TestUtils.getTestChannel();
 
-    @Mock
-    private UserService userService;
-
     @Mock
     private SimpMessagingTemplate messagingTemplate;
 
@@ -72,6 +85,27 @@ public class ChannelsPostsServiceTest {
     @Mock
     private SecurityContext securityContext;
 
+    @Mock
+    private MediaUrlSigner mediaUrlSigner;
+
+    @Mock
+    private BlobStore blobStore;
+
+    @Mock
+    private FilesDeletionsService filesDeletionsService;
+
+    @Spy
+    private TeardownExecutor teardownExecutor = new TeardownExecutor(1, 10);
+
+    @Spy
+    private ChannelPostsCache postsCache = new ChannelPostsCache(50, 60, 100);
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Mock
+    private BulkDeletionService bulkDeletionService;
+
     @InjectMocks
     private ChannelsPostsService postsService;
 
@@ -109,6 +143,126 @@ public class ChannelsPostsServiceTest {
         assertThrows(ChannelException.class, () -> postsService.createPost(createChannelPostDTO));
     }
 
+    @Test
+    public void getByChannelShouldLoadLikesInOneQuery() {
+        when(channelsService.getById(testChannel.getId())).thenReturn(testChannel);
+        List<IdProjection> ids = new ArrayList<>();
+        List<ChannelPost> posts = new ArrayList<>();
+        Set<Long> likedPostsIds = new HashSet<>();
+        for (long id = 50; id > 0; id--) {
+            long postId = id;
+            ids.add(() -> postId);
+            ChannelPost post = new ChannelPost();
+            post.setId(postId);
+            post.setChannel(testChannel);
+            post.setFiles(Collections.emptyList());
+            post.setCommentsCount((int) postId * 2);
+            post.setLikesCount((int) postId);
+            posts.add(post);
+            if (postId % 2 == 0) {
+                likedPostsIds.add(postId);
+            }
+        }
+        when(postsRepository.findAllByChannel(eq(testChannel), any())).thenReturn(ids);
+        when(postsRepository.findAllByIdIn(anyList(), any())).thenReturn(posts);
+        when(likesRepository.findLikedPostsIds(anyList(), eq(currentUser.getId()))).thenReturn(likedPostsIds);
+        List<ResponseChannelPostDTO> result = postsService.getByChannel(testChannel.getId(), 0, 50);
+        assertEquals(50, result.size());
+        for (ResponseChannelPostDTO post : result) {
+            assertEquals(post.getId() * 2, post.getCommentsCount());
+            assertEquals(post.getId(), post.getLikes());
+            assertEquals(post.getId() % 2 == 0, post.isLiked());
+        }
+        verify(postsRepository).findAllByChannel(any(), any());
+        verify(postsRepository).findAllByIdIn(anyList(), any());
+        verify(likesRepository).findLikedPostsIds(anyList(), anyInt());
+        verifyNoMoreInteractions(postsRepository, likesRepository);
+        verifyNoInteractions(commentsRepository);
+    }
+
+    @Test
+    public void getByChannelFirstPageShouldBeCached() {
+        when(channelsService.getById(testChannel.getId())).thenReturn(testChannel);
+        ChannelPost post = new ChannelPost();
+        post.setId(1L);
+        post.setChannel(testChannel);
+        post.setFiles(Collections.emptyList());
+        post.setLikesCount(3);
+        List<IdProjection> ids = List.of(() -> 1L);
+        when(postsRepository.findAllByChannel(eq(testChannel), any())).thenReturn(ids);
+        when(postsRepository.findAllByIdIn(anyList(), any())).thenReturn(List.of(post));
+        when(likesRepository.findLikedPostsIds(List.of(1L), currentUser.getId()))
+                .thenReturn(Set.of(1L)).thenReturn(Collections.emptySet());
+        assertTrue(postsService.getByChannel(testChannel.getId(), 0, 10).get(0).isLiked());
+        ResponseChannelPostDTO cached = postsService.getByChannel(testChannel.getId(), 0, 20).get(0);
+        assertFalse(cached.isLiked());
+        assertEquals(3, cached.getLikes());
+        verify(postsRepository, times(1)).findAllByChannel(any(), any());
+        verify(postsRepository, times(1)).findAllByIdIn(anyList(), any());
+
+        postsService.getByChannel(testChannel.getId(), 1, 10);
+        verify(postsRepository, times(2)).findAllByChannel(any(), any());
+    }
+
+    @Test
+    public void updatePostShouldEvictCachedFirstPage() {
+        ChannelUser channelUser = new ChannelUser();
+        channelUser.setIsAdmin(true);
+        channelUser.setUser(currentUser);
+        ChannelPost post = new ChannelPost();
+        post.setId(1L);
+        post.setChannel(testChannel);
+        post.setOwner(channelUser);
+        post.setContentType(ContentType.TEXT);
+        post.setFiles(Collections.emptyList());
+        when(postsRepository.findById(1L)).thenReturn(Optional.of(post));
+        when(channelsService.getChannelUser(currentUser, testChannel)).thenReturn(channelUser);
+        postsCache.getFirstPage(testChannel.getId(), Collections::emptyList);
+        UpdateChannelPostDTO updateDTO = new UpdateChannelPostDTO();
+        updateDTO.setId(1L);
+        updateDTO.setText("new text");
+        postsService.updatePost(updateDTO);
+        verify(postsCache).evictAfterCommit(testChannel.getId());
+        List<ResponseChannelPostDTO> reloaded = List.of(new ResponseChannelPostDTO());
+        assertSame(reloaded.get(0), postsCache.getFirstPage(testChannel.getId(), () -> reloaded).get(0));
+    }
+
+    @Test
+    public void getFeed() {
+        Channel otherChannel = new Channel();
+        otherChannel.setId(testChannel.getId() + 1);
+        List<Long> ids = List.of(9L, 7L, 4L);
+        List<ChannelPost> posts = ids.stream().map(id -> {
+            ChannelPost post = new ChannelPost();
+            post.setId(id);
+            post.setChannel(id % 2 == 0 ? testChannel : otherChannel);
+            post.setFiles(Collections.emptyList());
+            return post;
+        }).toList();
+        when(postsRepository.findFeedIds(currentUser.getId(), Long.MAX_VALUE, 3)).thenReturn(ids);
+        when(postsRepository.findAllByIdIn(eq(ids), any())).thenReturn(posts);
+        when(likesRepository.findLikedPostsIds(ids, currentUser.getId())).thenReturn(Set.of(7L));
+        ResponseChannelsFeedDTO firstPage = postsService.getFeed(null, 3);
+        assertEquals(ids, firstPage.getPosts().stream().map(ResponseChannelPostDTO::getId).toList());
+        assertEquals(otherChannel.getId(), firstPage.getPosts().get(0).getChannelId());
+        assertEquals(testChannel.getId(), firstPage.getPosts().get(2).getChannelId());
+        assertTrue(firstPage.getPosts().get(1).isLiked());
+        assertNotNull(firstPage.getNextCursor());
+
+        when(postsRepository.findFeedIds(currentUser.getId(), 4L, 3)).thenReturn(List.of(2L));
+        when(postsRepository.findAllByIdIn(eq(List.of(2L)), any())).thenReturn(List.of(posts.get(2)));
+        ResponseChannelsFeedDTO lastPage = postsService.getFeed(firstPage.getNextCursor(), 3);
+        assertEquals(1, lastPage.getPosts().size());
+        assertNull(lastPage.getNextCursor());
+        verify(channelsService, never()).getById(anyInt());
+    }
+
+    @Test
+    public void getFeedWhenCursorIsInvalid() {
+        assertThrows(ChannelException.class, () -> postsService.getFeed("not a cursor", 10));
+        verifyNoInteractions(postsRepository);
+    }
+
     @Test
     public void deletePost() {
         ChannelPost testPost = new ChannelPost();
@@ -120,14 +274,58 @@ public class ChannelsPostsServiceTest {
         channelUser.setIsAdmin(true);
         channelUser.setUser(currentUser);
         when(channelsService.getChannelUser(currentUser, testChannel)).thenReturn(channelUser);
-        when(commentsRepository.findAllByPostAndContentTypeIsNot(eq(testPost), eq(ContentType.TEXT), any()))
-                .thenReturn(Collections.emptyList());
-        CompletableFuture<Void> future = postsService.deletePost(1L);
-        future.join();
+        when(channelsService.getById(testChannel.getId())).thenReturn(testChannel);
+        when(bulkDeletionService.deleteChannelPost(eq(testChannel.getId()), eq(1L), any())).thenReturn(true);
+        TeardownJob job = postsService.deletePost(1L);
+        job.getCompletion().join();
+        assertEquals(TeardownJob.Status.COMPLETED, job.getStatus());
         verify(logsRepository, times(1)).save(any(ChannelLog.class));
-        verify(postsRepository).deleteById(testPost.getId());
-        verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/channel/" + testChannel.getWebSocketUUID()),
-                any(Map.class));
+        verify(messagingTemplate, times(1)).convertAndSend("/topic/channel/" + testChannel.getWebSocketUUID(),
+                Map.of("deleted_post_id", 1L));
+    }
+
+    @Test
+    public void deletePostWhenPostIsAlreadyDeleted() {
+        ChannelPost testPost = new ChannelPost();
+        testPost.setId(1L);
+        testPost.setChannel(testChannel);
+        when(postsRepository.findById(1L)).thenReturn(Optional.of(testPost));
+        ChannelUser channelUser = new ChannelUser();
+        channelUser.setIsAdmin(true);
+        channelUser.setUser(currentUser);
+        when(channelsService.getChannelUser(currentUser, testChannel)).thenReturn(channelUser);
+        when(bulkDeletionService.deleteChannelPost(eq(testChannel.getId()), eq(1L), any())).thenReturn(false);
+        TeardownJob job = postsService.deletePost(1L);
+        job.getCompletion().join();
+        assertEquals(TeardownJob.Status.COMPLETED, job.getStatus());
+        verify(logsRepository, never()).save(any());
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(Object.class));
+    }
+
+    @Test
+    public void addFile() {
+        ReflectionTestUtils.setField(postsService, "POSTS_IMAGES_PATH", "posts_images");
+        ChannelPost testPost = getOwnedPost(true);
+        when(blobStore.upload(eq(Path.of("posts_images")), any(), any(), eq(ContentType.IMAGE)))
+                .thenAnswer(invocation -> new StoredFileDTO(invocation.getArgument(2), ".png"));
+        postsService.addFile(1L, new MockMultipartFile("file", "test.png", "image/png", new byte[]{1}),
+                ContentType.IMAGE);
+        verify(filesRepository).save(any(ChannelPostFile.class));
+        assertEquals(ContentType.TEXT_FILE, testPost.getContentType());
+        verify(transactionTemplate).execute(any());
+        verify(blobStore, never()).delete(any(), any(), any());
+    }
+
+    @Test
+    public void addFileShouldDeleteStoredFileWhenUserIsNotAdmin() {
+        ReflectionTestUtils.setField(postsService, "POSTS_IMAGES_PATH", "posts_images");
+        getOwnedPost(false);
+        StoredFileDTO storedFile = new StoredFileDTO(UUID.randomUUID().toString(), ".png");
+        when(blobStore.upload(any(), any(), any(), eq(ContentType.IMAGE))).thenReturn(storedFile);
+        assertThrows(ChannelException.class, () -> postsService.addFile(1L,
+                new MockMultipartFile("file", "test.png", "image/png", new byte[]{1}), ContentType.IMAGE));
+        verify(filesRepository, never()).save(any());
+        verify(blobStore).delete(Path.of("posts_images"), storedFile.uuid(), ".png");
     }
 
     @Test
@@ -205,9 +403,11 @@ public class ChannelsPostsServiceTest {
         testPost.setChannel(testChannel);
         when(postsRepository.findById(1L)).thenReturn(Optional.of(testPost));
         when(channelsService.getChannelUser(currentUser, testChannel)).thenReturn(new ChannelUser());
-        when(likesRepository.existsByPostAndUser(testPost, currentUser)).thenReturn(false);
-        postsService.addPostLike(1L);
-        verify(likesRepository).save(any());
+        when(likesRepository.like(1L, currentUser.getId())).thenReturn(1);
+        ResponsePostLikesDTO likesDTO = postsService.addPostLike(1L);
+        assertEquals(1L, likesDTO.getPostId());
+        assertEquals(1, likesDTO.getLikesDelta());
+        verify(messagingTemplate).convertAndSend("/topic/channel/" + testChannel.getWebSocketUUID(), likesDTO);
     }
 
     @Test
@@ -216,8 +416,9 @@ public class ChannelsPostsServiceTest {
         testPost.setChannel(testChannel);
         when(postsRepository.findById(1L)).thenReturn(Optional.of(testPost));
         when(channelsService.getChannelUser(currentUser, testChannel)).thenReturn(new ChannelUser());
-        when(likesRepository.existsByPostAndUser(testPost, currentUser)).thenReturn(true);
-        assertThrows(ChannelException.class, () -> postsService.addPostLike(1L));
+        when(likesRepository.like(1L, currentUser.getId())).thenReturn(0);
+        assertEquals(0, postsService.addPostLike(1L).getLikesDelta());
+        verifyNoInteractions(messagingTemplate);
     }
 
     @Test
@@ -230,11 +431,11 @@ public class ChannelsPostsServiceTest {
     public void deletePostLike() {
         ChannelPost testPost = new ChannelPost();
         testPost.setChannel(testChannel);
-        ChannelPostLike like = new ChannelPostLike();
         when(postsRepository.findById(1L)).thenReturn(Optional.of(testPost));
-        when(likesRepository.findByPostAndUser(testPost, currentUser)).thenReturn(Optional.of(like));
-        postsService.deletePostLike(1L);
-        verify(likesRepository).delete(like);
+        when(likesRepository.unlike(1L, currentUser.getId())).thenReturn(1);
+        ResponsePostLikesDTO likesDTO = postsService.deletePostLike(1L);
+        assertEquals(-1, likesDTO.getLikesDelta());
+        verify(messagingTemplate).convertAndSend("/topic/channel/" + testChannel.getWebSocketUUID(), likesDTO);
     }
 
     @Test
@@ -242,8 +443,9 @@ public class ChannelsPostsServiceTest {
         ChannelPost testPost = new ChannelPost();
         testPost.setChannel(testChannel);
         when(postsRepository.findById(1L)).thenReturn(Optional.of(testPost));
-        when(likesRepository.findByPostAndUser(testPost, currentUser)).thenReturn(Optional.empty());
-        assertThrows(ChannelException.class, () -> postsService.deletePostLike(1L));
+        when(likesRepository.unlike(1L, currentUser.getId())).thenReturn(0);
+        assertEquals(0, postsService.deletePostLike(1L).getLikesDelta());
+        verifyNoInteractions(messagingTemplate);
     }
 
     @Test
@@ -268,6 +470,7 @@ public class ChannelsPostsServiceTest {
         commentDTO.setPostId(1L);
         postsService.createComment(commentDTO);
         verify(commentsRepository, times(1)).save(any(ChannelPostComment.class));
+        verify(postsRepository).addCommentsCount(0L, 1);
         assertNotNull(responseCommentDTO.getText());
         verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/channel/" +
                         testChannel.getWebSocketUUID() + "/post/0/comments"),
@@ -287,6 +490,38 @@ public class ChannelsPostsServiceTest {
         assertThrows(ChannelException.class, () -> postsService.createComment(commentDTO));
     }
 
+    @Test
+    public void getPostComments() {
+        ChannelPost testPost = new ChannelPost();
+        testPost.setId(1L);
+        testPost.setChannel(testChannel);
+        when(postsRepository.findById(1L)).thenReturn(Optional.of(testPost));
+        when(commentsRepository.findPostComments(eq(1L), eq(100L), any())).thenReturn(List.of(
+                getCommentProjection(99L, "test comment", ContentType.TEXT),
+                getCommentProjection(98L, "test_uuid", ContentType.IMAGE)));
+        when(mediaUrlSigner.sign(MediaBucket.CHANNELS_POSTS_COMMENTS, "test_uuid", ".png", ContentType.IMAGE))
+                .thenReturn("/media/test_uuid.png");
+        List<ResponseChannelPostCommentDTO> comments = postsService.getPostComments(1L, 100L, 2);
+        assertEquals(2, comments.size());
+        assertEquals("test comment", comments.get(0).getText());
+        assertEquals(testUser.getUsername(), comments.get(0).getOwner().getUsername());
+        assertEquals(testUser.getId(), comments.get(0).getOwner().getId());
+        assertNull(comments.get(1).getText());
+        assertEquals("/media/test_uuid.png", comments.get(1).getFileUrl());
+        verify(commentsRepository, times(1)).findPostComments(anyLong(), anyLong(), any());
+        verifyNoMoreInteractions(commentsRepository);
+    }
+
+    @Test
+    public void getPostCommentsFirstPage() {
+        ChannelPost testPost = new ChannelPost();
+        testPost.setId(1L);
+        testPost.setChannel(testChannel);
+        when(postsRepository.findById(1L)).thenReturn(Optional.of(testPost));
+        when(commentsRepository.findPostComments(eq(1L), eq(Long.MAX_VALUE), any())).thenReturn(Collections.emptyList());
+        assertTrue(postsService.getPostComments(1L, null, 10).isEmpty());
+    }
+
     @Test
     public void deletePostCommentWhenCurrentUserOwnerOfComment() {
         ChannelPost testPost = new ChannelPost();
@@ -302,6 +537,7 @@ public class ChannelsPostsServiceTest {
         when(channelsService.getChannelUser(currentUser, testChannel)).thenReturn(testChannelUser);
         postsService.deleteComment(1L);
         verify(commentsRepository, times(1)).delete(testComment);
+        verify(postsRepository).addCommentsCount(0L, -1);
         verify(messagingTemplate, times(1)).convertAndSend(
                 eq("/topic/channel/" + testChannel.getWebSocketUUID() + "/post/0/comments"), any(Map.class));
         assertTrue(testPost.getComments().isEmpty());
@@ -372,4 +608,68 @@ public class ChannelsPostsServiceTest {
         when(channelsService.getChannelUser(currentUser, testChannel)).thenReturn(testChannelUser);
         assertThrows(ChannelException.class, () -> postsService.updateComment(new UpdateChannelPostCommentDTO(), 1L));
     }
-}
\ No newline at end of file
+
+    private ChannelPost getOwnedPost(boolean isAdmin) {
+        ChannelUser channelUser = new ChannelUser();
+        channelUser.setIsAdmin(isAdmin);
+        channelUser.setUser(currentUser);
+        ChannelPost testPost = new ChannelPost();
+        testPost.setId(1L);
+        testPost.setChannel(testChannel);
+        testPost.setOwner(channelUser);
+        testPost.setContentType(ContentType.TEXT);
+        testPost.setFiles(new ArrayList<>());
+        when(postsRepository.findById(1L)).thenReturn(Optional.of(testPost));
+        when(channelsService.getChannelUser(currentUser, testChannel)).thenReturn(channelUser);
+        return testPost;
+    }
+
+    private PostCommentProjection getCommentProjection(long id, String text, ContentType contentType) {
+        return new PostCommentProjection() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getText() {
+                return text;
+            }
+
+            @Override
+            public ContentType getContentType() {
+                return contentType;
+            }
+
+            @Override
+            public String getFileExtension() {
+                return contentType == ContentType.TEXT ? null : ".png";
+            }
+
+            @Override
+            public LocalDateTime getCreatedAt() {
+                return LocalDateTime.now();
+            }
+
+            @Override
+            public Integer getOwnerId() {
+                return testUser.getId();
+            }
+
+            @Override
+            public String getOwnerUsername() {
+                return testUser.getUsername();
+            }
+
+            @Override
+            public User.OnlineStatus getOwnerOnlineStatus() {
+                return testUser.getOnlineStatus();
+            }
+
+            @Override
+            public boolean isOwnerBanned() {
+                return false;
+            }
+        };
+    }
+}
@@ -6,12 +6,17 @@ import danix.app.messenger_service.repositories.*;
 import danix.app.messenger_service.security.UserDetailsImpl;
 import danix.app.messenger_service.services.ChannelsService;
 import danix.app.messenger_service.services.UserService;
+import danix.app.messenger_service.services.BulkDeletionService;
 import danix.app.messenger_service.util.ChannelException;
+import danix.app.messenger_service.util.TeardownExecutor;
+import danix.app.messenger_service.util.TeardownJob;
+import danix.app.messenger_service.util.BlobStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.modelmapper.ModelMapper;
 import org.springframework.kafka.core.KafkaTemplate;
@@ -22,7 +27,6 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import util.TestUtils;
 
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
 
 import static org.hibernate.validator.internal.util.Contracts.assertNotNull;
 import static org.junit.jupiter.api.Assertions.*;
@@ -86,6 +90,15 @@ public class ChannelsServiceTest {
     @Mock
     private ChannelsInvitesRepository channelsInvitesRepository;
 
+    @Mock
+    private BlobStore blobStore;
+
+    @Mock
+    private BulkDeletionService bulkDeletionService;
+
+    @Spy
+    private TeardownExecutor teardownExecutor = new TeardownExecutor(1, 10);
+
     @InjectMocks
     private ChannelsService channelsService;
 
@@ -715,8 +728,10 @@ public class ChannelsServiceTest {
         when(authentication.getPrincipal()).thenReturn(new UserDetailsImpl(currenusUser));
         ChannelUser testChannelUser = new ChannelUser();
         when(channelsUsersRepository.findByUserAndChannel(currenusUser, testChannel)).thenReturn(Optional.of(testChannelUser));
-        CompletableFuture<Void> future = channelsService.leaveChannel(testChannel.getId());
-        future.join();
+        TeardownJob job = channelsService.leaveChannel(testChannel.getId());
+        job.getCompletion().join();
+        assertEquals(TeardownJob.Status.COMPLETED, job.getStatus());
+        verify(bulkDeletionService).deleteChannelPosts(testChannel.getId(), job);
         verify(channelsRepository).deleteById(testChannel.getId());
         verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/channel/" + testChannel.getWebSocketUUID()),
                 eq(Map.of("deleted", true)));
@@ -793,9 +808,10 @@ public class ChannelsServiceTest {
         SecurityContextHolder.setContext(securityContext);
         when(securityContext.getAuthentication()).thenReturn(authentication);
         when(authentication.getPrincipal()).thenReturn(new UserDetailsImpl(currenusUser));
-        when(channelsPostsRepository.findAllByChannel(any(), any())).thenReturn(Collections.emptyList());
-        CompletableFuture<Void> future = channelsService.deleteChannel(testChannel.getId());
-        future.join();
+        TeardownJob job = channelsService.deleteChannel(testChannel.getId());
+        job.getCompletion().join();
+        assertEquals(TeardownJob.Status.COMPLETED, job.getStatus());
+        verify(bulkDeletionService).deleteChannelPosts(testChannel.getId(), job);
         verify(channelsRepository).deleteById(testChannel.getId());
         verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/channel/" + testChannel.getWebSocketUUID()),
                 eq(Map.of("deleted", true)));
@@ -3,13 +3,18 @@ package danix.app.messenger_service;
 import danix.app.messenger_service.dto.ResponseChatMessageDTO;
 import danix.app.messenger_service.dto.ResponseMessageUpdatingDTO;
 import danix.app.messenger_service.dto.ResponseUserDTO;
+import danix.app.messenger_service.dto.StoredFileDTO;
 import danix.app.messenger_service.models.*;
 import danix.app.messenger_service.repositories.BlockedUsersRepository;
 import danix.app.messenger_service.repositories.ChatsMessagesRepository;
 import danix.app.messenger_service.repositories.ChatsRepository;
+import danix.app.messenger_service.security.MediaUrlSigner;
 import danix.app.messenger_service.security.UserDetailsImpl;
 import danix.app.messenger_service.services.ChatsMessagesService;
+import danix.app.messenger_service.services.FilesDeletionsService;
+import danix.app.messenger_service.services.UnreadCountersService;
 import danix.app.messenger_service.util.MessageException;
+import danix.app.messenger_service.util.BlobStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -21,14 +26,16 @@ import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import util.ConnectionPoolTransactionTemplate;
 import util.TestUtils;
 
-import java.util.Map;
-import java.util.Optional;
-import java.util.UUID;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.*;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -61,6 +68,18 @@ public class ChatsMessagesServiceTest {
     @Mock
     private ChatsMessagesRepository chatsMessagesRepository;
 
+    @Mock
+    private MediaUrlSigner mediaUrlSigner;
+
+    @Mock
+    private BlobStore blobStore;
+
+    @Mock
+    private FilesDeletionsService filesDeletionsService;
+
+    @Mock
+    private UnreadCountersService unreadCountersService;
+
     @InjectMocks
     private ChatsMessagesService chatsMessagesService;
 
@@ -80,6 +99,9 @@ public class ChatsMessagesServiceTest {
         when(modelMapper.map(any(), eq(ResponseChatMessageDTO.class))).thenReturn(new ResponseChatMessageDTO());
         chatsMessagesService.sendTextMessage("Test message", testChat.getId());
         verify(chatsMessagesRepository, times(1)).save(any(ChatMessage.class));
+        verify(chatsRepository, times(1)).updateLastMessage(eq(testChat.getId()), anyLong(), eq("Test message"),
+                eq("TEXT"), any());
+        verify(unreadCountersService, times(1)).changeChatUnreadCount(eq(testChat), eq(testUser), anyLong(), eq(1));
         verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/chat/" + testChat.getWebSocketUUID()),
                 any(ResponseChatMessageDTO.class));
     }
@@ -99,16 +121,91 @@ public class ChatsMessagesServiceTest {
         assertThrows(MessageException.class, () -> chatsMessagesService.sendTextMessage("Test message", testChat.getId()));
     }
 
+    @Test
+    public void sendFileWhenMessageNotSaved() {
+        ReflectionTestUtils.setField(chatsMessagesService, "transactionTemplate", new ConnectionPoolTransactionTemplate(1));
+        ReflectionTestUtils.setField(chatsMessagesService, "CHATS_IMAGES_PATH", "chats_images");
+        StoredFileDTO storedFile = new StoredFileDTO(UUID.randomUUID().toString(), ".png");
+        when(blobStore.upload(eq(Path.of("chats_images")), any(), any(), eq(ContentType.IMAGE))).thenReturn(storedFile);
+        when(chatsRepository.findById(testChat.getId())).thenReturn(Optional.of(testChat));
+        when(blockedUsersRepository.findByOwnerAndBlockedUser(testUser, currentUser)).thenReturn(Optional.of(new BlockedUser()));
+        assertThrows(MessageException.class, () -> chatsMessagesService.sendFile(
+                new MockMultipartFile("file", "test.png", "image/png", new byte[]{1}), testChat.getId(), ContentType.IMAGE));
+        verify(blobStore).delete(Path.of("chats_images"), storedFile.uuid(), ".png");
+    }
+
+    @Test
+    public void sendFileShouldNotHoldConnectionsDuringConcurrentUploads() throws Exception {
+        int uploads = 4;
+        ConnectionPoolTransactionTemplate pool = new ConnectionPoolTransactionTemplate(1);
+        ReflectionTestUtils.setField(chatsMessagesService, "transactionTemplate", pool);
+        ReflectionTestUtils.setField(chatsMessagesService, "CHATS_VIDEOS_PATH", "chats_videos");
+        CountDownLatch uploading = new CountDownLatch(uploads);
+        CountDownLatch uploaded = new CountDownLatch(1);
+        List<Integer> connectionsInUseDuringUploads = new CopyOnWriteArrayList<>();
+        when(blobStore.upload(any(), any(), any(), eq(ContentType.VIDEO))).thenAnswer(invocation -> {
+            connectionsInUseDuringUploads.add(pool.getConnectionsInUse());
+            uploading.countDown();
+            assertTrue(uploaded.await(5, TimeUnit.SECONDS));
+            return new StoredFileDTO(invocation.getArgument(2), ".mp4");
+        });
+        when(chatsRepository.findById(testChat.getId())).thenReturn(Optional.of(testChat));
+        when(blockedUsersRepository.findByOwnerAndBlockedUser(any(), any())).thenReturn(Optional.empty());
+        when(modelMapper.map(currentUser, ResponseUserDTO.class)).thenAnswer(invocation -> new ResponseUserDTO());
+        when(modelMapper.map(any(), eq(ResponseChatMessageDTO.class)))
+                .thenAnswer(invocation -> new ResponseChatMessageDTO());
+        ExecutorService executor = Executors.newFixedThreadPool(uploads);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int i = 0; i < uploads; i++) {
+                results.add(executor.submit(() -> {
+                    SecurityContextHolder.setContext(securityContext);
+                    return chatsMessagesService.sendFile(new MockMultipartFile("file", "test.mp4", "video/mp4",
+                            new byte[]{1}), testChat.getId(), ContentType.VIDEO);
+                }));
+            }
+            assertTrue(uploading.await(5, TimeUnit.SECONDS));
+            assertEquals(0, pool.getConnectionsInUse());
+            // A single connection is enough to send a text message while all uploads are in progress
+            pool.execute(status -> chatsMessagesService.sendTextMessage("Test message", testChat.getId()));
+            uploaded.countDown();
+            for (Future<Long> result : results) {
+                result.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(List.of(0, 0, 0, 0), connectionsInUseDuringUploads);
+        assertEquals(1, pool.getMaxConnectionsInUse());
+        verify(chatsMessagesRepository, times(uploads + 1)).save(any(ChatMessage.class));
+    }
+
     @Test
     public void deleteMessage() {
         ChatMessage chatMessage = getChatMessage();
         when(chatsMessagesRepository.findById(1L)).thenReturn(Optional.of(chatMessage));
         chatsMessagesService.deleteMessage(1L);
         verify(chatsMessagesRepository, times(1)).delete(chatMessage);
+        verify(chatsRepository, times(1)).refreshLastMessage(testChat.getId(), 1L);
+        verify(unreadCountersService, times(1)).changeChatUnreadCount(testChat, testUser, 1L, -1);
         verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/chat/" + testChat.getWebSocketUUID()),
                 any(Map.class));
     }
 
+    @Test
+    public void deleteFileMessage() {
+        ReflectionTestUtils.setField(chatsMessagesService, "CHATS_VIDEOS_PATH", "chats_videos");
+        ChatMessage chatMessage = getChatMessage();
+        chatMessage.setContentType(ContentType.VIDEO);
+        chatMessage.setText("test_uuid");
+        chatMessage.setFileExtension(".mp4");
+        when(chatsMessagesRepository.findById(1L)).thenReturn(Optional.of(chatMessage));
+        chatsMessagesService.deleteMessage(1L);
+        verify(filesDeletionsService).delete(Path.of("chats_videos"), "test_uuid", ".mp4");
+        verifyNoInteractions(blobStore);
+        verify(chatsMessagesRepository).delete(chatMessage);
+    }
+
     @Test
     public void deleteMessageWhenMessageNotFound() {
         when(chatsMessagesRepository.findById(1L)).thenReturn(Optional.empty());
@@ -149,6 +246,7 @@ public class ChatsMessagesServiceTest {
         when(modelMapper.map(any(), eq(ResponseMessageUpdatingDTO.class))).thenReturn(new ResponseMessageUpdatingDTO());
         chatsMessagesService.updateMessage(1L, "New message");
         assertEquals("New message", chatMessage.getText());
+        verify(chatsRepository, times(1)).updateLastMessagePreview(testChat.getId(), 1L, "New message");
         verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/chat/" + testChat.getWebSocketUUID()),
                 any(ResponseMessageUpdatingDTO.class));
     }
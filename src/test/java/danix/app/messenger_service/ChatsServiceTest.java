@@ -1,34 +1,43 @@
 package danix.app.messenger_service;
 
 import danix.app.messenger_service.dto.ResponseChatCreatedDTO;
+import danix.app.messenger_service.dto.ResponseChatDTO;
 import danix.app.messenger_service.dto.ResponseChatMessageDTO;
+import danix.app.messenger_service.dto.ResponseChatReadDTO;
+import danix.app.messenger_service.dto.ResponseChatsDTO;
+import danix.app.messenger_service.dto.ResponseUnreadCountDTO;
 import danix.app.messenger_service.dto.ResponseUserDTO;
 import danix.app.messenger_service.dto.ShowChatDTO;
 import danix.app.messenger_service.models.*;
 import danix.app.messenger_service.repositories.BlockedUsersRepository;
 import danix.app.messenger_service.repositories.ChatsMessagesRepository;
 import danix.app.messenger_service.repositories.ChatsRepository;
+import danix.app.messenger_service.security.MediaUrlSigner;
 import danix.app.messenger_service.security.UserDetailsImpl;
+import danix.app.messenger_service.services.BulkDeletionService;
 import danix.app.messenger_service.services.ChatsService;
+import danix.app.messenger_service.services.UnreadCountersService;
 import danix.app.messenger_service.services.UserService;
 import danix.app.messenger_service.util.ChatException;
+import danix.app.messenger_service.util.TeardownExecutor;
+import danix.app.messenger_service.util.TeardownJob;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.modelmapper.ModelMapper;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import util.TestUtils;
 
+import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -66,6 +75,18 @@ public class ChatsServiceTest {
     @Mock
     private SimpMessagingTemplate messagingTemplate;
 
+    @Mock
+    private MediaUrlSigner mediaUrlSigner;
+
+    @Mock
+    private BulkDeletionService bulkDeletionService;
+
+    @Spy
+    private TeardownExecutor teardownExecutor = new TeardownExecutor(1, 10);
+
+    @Mock
+    private UnreadCountersService unreadCountersService;
+
     @InjectMocks
     private ChatsService chatsService;
 
@@ -155,26 +176,86 @@ public class ChatsServiceTest {
         testMessage3.setOwner(testUser);
         testChat.setMessages(List.of(testMessage1, testMessage2, testMessage3));
         when(chatsRepository.findById(testChat.getId())).thenReturn(Optional.of(testChat));
-        when(chatsMessagesRepository.findAllByChat(testChat,
-                PageRequest.of(1, 1, Sort.by(Sort.Direction.DESC, "id"))))
-                    .thenReturn(List.of(testMessage1, testMessage2, testMessage3));
+        when(chatsMessagesRepository.findAllByChatBefore(testChat, 4L, PageRequest.of(0, 3)))
+                    .thenReturn(List.of(testMessage3, testMessage2, testMessage1));
         ResponseUserDTO respUser1 = new ResponseUserDTO();
         respUser1.setId(testUser.getId());
         when(modelMapper.map(testUser, ResponseUserDTO.class)).thenReturn(respUser1);
         ResponseUserDTO respUser2 = new ResponseUserDTO();
         respUser2.setId(currentUser.getId());
         when(modelMapper.map(currentUser, ResponseUserDTO.class)).thenReturn(respUser2);
-        when(modelMapper.map(any(), eq(ResponseChatMessageDTO.class))).thenReturn(new ResponseChatMessageDTO());
-        ShowChatDTO showChatDTO = chatsService.showChat(testChat.getId(), 1, 1);
+        when(modelMapper.map(any(), eq(ResponseChatMessageDTO.class))).thenAnswer(invocation -> {
+            ResponseChatMessageDTO messageDTO = new ResponseChatMessageDTO();
+            messageDTO.setId(((ChatMessage) invocation.getArgument(0)).getId());
+            return messageDTO;
+        });
+        testChat.setUser2LastReadMessageId(1);
+        when(chatsRepository.markRead(testChat.getId(), currentUser.getId(), 3)).thenReturn(0);
+        ShowChatDTO showChatDTO = chatsService.showChat(testChat.getId(), 4L, null, 3);
         assertNotNull(showChatDTO);
         assertEquals(testChat.getId(), showChatDTO.getId());
         assertEquals(testUser.getId(), showChatDTO.getUser().getId());
+        assertEquals(3, showChatDTO.getMessages().size());
+        assertEquals(1L, showChatDTO.getNextCursor());
+        assertEquals(List.of(true, false, true), showChatDTO.getMessages().stream()
+                .sorted(Comparator.comparingLong(ResponseChatMessageDTO::getId))
+                .map(ResponseChatMessageDTO::isRead)
+                .toList());
+        verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/chat/" + testChat.getWebSocketUUID()),
+                any(ResponseChatReadDTO.class));
+        verify(unreadCountersService, times(1)).send(currentUser.getWebSocketUUID(), ResponseUnreadCountDTO.Type.CHAT,
+                testChat.getId(), 0);
+    }
+
+    @Test
+    public void showChatWhenMessagesAreAlreadyRead() {
+        SecurityContextHolder.setContext(securityContext);
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn(new UserDetailsImpl(currentUser));
+        ChatMessage testMessage = new ChatMessage();
+        testMessage.setId(5);
+        testMessage.setOwner(testUser);
+        testChat.setUser1LastReadMessageId(5);
+        when(chatsRepository.findById(testChat.getId())).thenReturn(Optional.of(testChat));
+        when(chatsMessagesRepository.findAllByChatBefore(testChat, Long.MAX_VALUE, PageRequest.of(0, 10)))
+                .thenReturn(List.of(testMessage));
+        when(modelMapper.map(any(), eq(ResponseChatMessageDTO.class))).thenReturn(new ResponseChatMessageDTO());
+        ShowChatDTO showChatDTO = chatsService.showChat(testChat.getId(), null, null, 10);
+        assertTrue(showChatDTO.getMessages().get(0).isRead());
+        verify(messagingTemplate, never()).convertAndSend(anyString(), any(ResponseChatReadDTO.class));
+    }
+
+    @Test
+    public void showChatAfterId() {
+        SecurityContextHolder.setContext(securityContext);
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn(new UserDetailsImpl(currentUser));
+        ChatMessage testMessage = new ChatMessage();
+        testMessage.setId(11);
+        testMessage.setOwner(testUser);
+        when(chatsRepository.findById(testChat.getId())).thenReturn(Optional.of(testChat));
+        when(chatsMessagesRepository.findAllByChatAfter(testChat, 10L, PageRequest.of(0, 5)))
+                .thenReturn(List.of(testMessage));
+        when(modelMapper.map(any(), eq(ResponseChatMessageDTO.class))).thenReturn(new ResponseChatMessageDTO());
+        ShowChatDTO showChatDTO = chatsService.showChat(testChat.getId(), null, 10L, 5);
+        assertEquals(1, showChatDTO.getMessages().size());
+        assertNull(showChatDTO.getNextCursor());
+        verify(chatsMessagesRepository, never()).findAllByChatBefore(any(), anyLong(), any());
+    }
+
+    @Test
+    public void showChatWhenBeforeIdAndAfterIdAreSet() {
+        SecurityContextHolder.setContext(securityContext);
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn(new UserDetailsImpl(currentUser));
+        when(chatsRepository.findById(testChat.getId())).thenReturn(Optional.of(testChat));
+        assertThrows(ChatException.class, () -> chatsService.showChat(testChat.getId(), 10L, 5L, 5));
     }
 
     @Test
     public void showChatWhenChatNotFound() {
         when(chatsRepository.findById(testChat.getId())).thenReturn(Optional.empty());
-        assertThrows(ChatException.class, () -> chatsService.showChat(testChat.getId(), 1, 1));
+        assertThrows(ChatException.class, () -> chatsService.showChat(testChat.getId(), null, null, 1));
     }
 
     @Test
@@ -186,7 +267,7 @@ public class ChatsServiceTest {
         testChatUser.setId(3);
         testChat.setUser1(testChatUser);
         when(chatsRepository.findById(testChat.getId())).thenReturn(Optional.of(testChat));
-        assertThrows(ChatException.class, () -> chatsService.showChat(testChat.getId(), 1, 1));
+        assertThrows(ChatException.class, () -> chatsService.showChat(testChat.getId(), null, null, 1));
     }
 
     @Test
@@ -195,12 +276,12 @@ public class ChatsServiceTest {
         when(securityContext.getAuthentication()).thenReturn(authentication);
         when(authentication.getPrincipal()).thenReturn(new UserDetailsImpl(currentUser));
         when(chatsRepository.findById(testChat.getId())).thenReturn(Optional.of(testChat));
-        when(chatsMessagesRepository.findAllByChatAndContentTypeIsNot(eq(testChat), eq(ContentType.TEXT), any()))
-                .thenReturn(Collections.emptyList());
-        CompletableFuture<Void> future = chatsService.deleteChat(testChat.getId());
-        future.join();
+        TeardownJob job = chatsService.deleteChat(testChat.getId());
+        job.getCompletion().join();
+        assertEquals(TeardownJob.Status.COMPLETED, job.getStatus());
         verify(messagingTemplate).convertAndSend("/topic/chat/" + testChat.getWebSocketUUID(),
                 Map.of("deleted", true));
+        verify(bulkDeletionService).deleteChatMessages(testChat.getId(), job);
         verify(chatsRepository).deleteById(testChat.getId());
     }
 
@@ -219,4 +300,43 @@ public class ChatsServiceTest {
         when(chatsRepository.findById(testChat.getId())).thenReturn(Optional.of(testChat));
         assertThrows(ChatException.class, () -> chatsService.deleteChat(testChat.getId()));
     }
+
+    @Test
+    public void getAllUserChats() {
+        SecurityContextHolder.setContext(securityContext);
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn(new UserDetailsImpl(currentUser));
+        LocalDateTime lastActivityAt = LocalDateTime.of(2024, 5, 1, 12, 30);
+        testChat.setId(7);
+        testChat.setLastActivityAt(lastActivityAt);
+        testChat.setLastMessageId(10L);
+        testChat.setLastMessagePreview("Hello");
+        testChat.setUser1UnreadCount(3);
+        ResponseUserDTO user = new ResponseUserDTO();
+        when(chatsRepository.findInboxIds(eq(currentUser.getId()), any(LocalDateTime.class), eq(Integer.MAX_VALUE), eq(1)))
+                .thenReturn(List.of(7));
+        when(chatsRepository.findInbox(List.of(7))).thenReturn(List.of(testChat));
+        when(modelMapper.map(testUser, ResponseUserDTO.class)).thenReturn(user);
+        ResponseChatsDTO response = chatsService.getAllUserChats(null, 1);
+        ResponseChatDTO chat = response.getChats().get(0);
+        assertSame(user, chat.getUser());
+        assertEquals(10L, chat.getLastMessageId());
+        assertEquals("Hello", chat.getLastMessagePreview());
+        assertEquals(3, chat.getUnreadCount());
+        assertNotNull(response.getNextCursor());
+
+        when(chatsRepository.findInboxIds(currentUser.getId(), lastActivityAt, 7, 1)).thenReturn(Collections.emptyList());
+        ResponseChatsDTO nextPage = chatsService.getAllUserChats(response.getNextCursor(), 1);
+        assertTrue(nextPage.getChats().isEmpty());
+        assertNull(nextPage.getNextCursor());
+    }
+
+    @Test
+    public void getAllUserChatsWhenCursorIsInvalid() {
+        SecurityContextHolder.setContext(securityContext);
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn(new UserDetailsImpl(currentUser));
+        assertThrows(ChatException.class, () -> chatsService.getAllUserChats("invalid", 50));
+        verify(chatsRepository, never()).findInboxIds(anyInt(), any(), anyInt(), anyInt());
+    }
 }
@@ -0,0 +1,136 @@
+package danix.app.messenger_service;
+
+import danix.app.messenger_service.dto.StoredFileDTO;
+import danix.app.messenger_service.models.ContentType;
+import danix.app.messenger_service.repositories.MediaBlobsRepository;
+import danix.app.messenger_service.util.ContentAddressedBlobStore;
+import danix.app.messenger_service.util.ImagePreviewsGenerator;
+import danix.app.messenger_service.util.LocalBlobStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ContentAddressedBlobStoreTest {
+
+    // SHA-256 of bytes {1, 2, 3}
+    private static final String HASH = "039058c6f2c0cb492c533b0a4d14ef77cc0f78abccced5287d84a1a2011cfb81";
+
+    private final MockMultipartFile file = new MockMultipartFile("file", "test.png", "image/png", new byte[]{1, 2, 3});
+
+    @Mock
+    private LocalBlobStore localBlobStore;
+
+    @Mock
+    private MediaBlobsRepository blobsRepository;
+
+    @Mock
+    private ImagePreviewsGenerator previewsGenerator;
+
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+
+    @InjectMocks
+    private ContentAddressedBlobStore blobStore;
+
+    @TempDir
+    private Path blobsPath;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(blobStore, "FILES_BLOBS_PATH", blobsPath.toString());
+    }
+
+    @Test
+    public void uploadShouldStoreFileByContentHash() {
+        when(blobsRepository.getReferences(HASH + ".png")).thenReturn(1);
+        StoredFileDTO storedFile = blobStore.upload(Path.of("chats"), file, UUID.randomUUID().toString(),
+                ContentType.IMAGE);
+        assertEquals(new StoredFileDTO(HASH, ".png"), storedFile);
+        verify(blobsRepository).incrementReferences(HASH + ".png", 3);
+        assertTrue(Files.exists(blobPath()));
+        verify(previewsGenerator).generate(blobPath());
+    }
+
+    @Test
+    public void uploadShouldNotStoreFileTwiceWhenContentAlreadyExists() throws IOException {
+        when(blobsRepository.getReferences(HASH + ".png")).thenReturn(2);
+        StoredFileDTO storedFile = blobStore.upload(Path.of("chats"), file, UUID.randomUUID().toString(),
+                ContentType.IMAGE);
+        assertEquals(HASH, storedFile.uuid());
+        assertFalse(Files.exists(blobPath()));
+        verifyNoInteractions(previewsGenerator);
+        try (var files = Files.list(blobsPath.resolve("tmp"))) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void uploadShouldReadFileBeforeTransactionIsStarted() throws IOException {
+        MockMultipartFile multipartFile = spy(file);
+        when(blobsRepository.getReferences(HASH + ".png")).thenReturn(1);
+        blobStore.upload(Path.of("chats"), multipartFile, UUID.randomUUID().toString(), ContentType.IMAGE);
+        InOrder inOrder = inOrder(multipartFile, transactionManager, blobsRepository);
+        inOrder.verify(multipartFile).getInputStream();
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(blobsRepository).incrementReferences(HASH + ".png", 3);
+        inOrder.verify(transactionManager).commit(any());
+    }
+
+    @Test
+    public void deleteShouldKeepFileWhenItIsStillReferenced() throws IOException {
+        createBlob();
+        when(blobsRepository.deleteIfUnreferenced(HASH + ".png")).thenReturn(0);
+        blobStore.delete(Path.of("chats"), HASH, ".png");
+        verify(blobsRepository).decrementReferences(HASH + ".png");
+        assertTrue(Files.exists(blobPath()));
+    }
+
+    @Test
+    public void deleteShouldRemoveFileWhenLastReferenceDeleted() throws IOException {
+        createBlob();
+        when(blobsRepository.deleteIfUnreferenced(HASH + ".png")).thenReturn(1);
+        blobStore.delete(Path.of("chats"), HASH, ".png");
+        assertFalse(Files.exists(blobPath()));
+    }
+
+    @Test
+    public void uuidFilesShouldBeHandledByLocalStore() {
+        String uuid = UUID.randomUUID().toString();
+        blobStore.delete(Path.of("chats"), uuid, ".png");
+        blobStore.download(Path.of("chats"), uuid, ".png", ContentType.IMAGE);
+        verify(localBlobStore).delete(Path.of("chats"), uuid, ".png");
+        verify(localBlobStore).download(Path.of("chats"), uuid, ".png", ContentType.IMAGE);
+        verifyNoInteractions(blobsRepository);
+    }
+
+    private void createBlob() throws IOException {
+        Files.createDirectories(blobPath().getParent());
+        Files.write(blobPath(), new byte[]{1, 2, 3});
+    }
+
+    private Path blobPath() {
+        return blobsPath.resolve(HASH.substring(0, 2)).resolve(HASH.substring(2, 4)).resolve(HASH + ".png");
+    }
+}
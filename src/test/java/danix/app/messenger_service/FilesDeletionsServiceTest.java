@@ -0,0 +1,108 @@
+package danix.app.messenger_service;
+
+import danix.app.messenger_service.models.FileDeletion;
+import danix.app.messenger_service.repositories.FilesDeletionsRepository;
+import danix.app.messenger_service.services.FilesDeletionsService;
+import danix.app.messenger_service.util.BlobStore;
+import danix.app.messenger_service.util.FileException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class FilesDeletionsServiceTest {
+
+    @Mock
+    private FilesDeletionsRepository deletionsRepository;
+
+    @Mock
+    private BlobStore blobStore;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @InjectMocks
+    private FilesDeletionsService filesDeletionsService;
+
+    @Test
+    public void delete() {
+        filesDeletionsService.delete(Path.of("chats_images"), "test_uuid", ".png");
+        ArgumentCaptor<FileDeletion> captor = ArgumentCaptor.forClass(FileDeletion.class);
+        verify(deletionsRepository).save(captor.capture());
+        assertEquals(Path.of("chats_images").toString(), captor.getValue().getFilesPath());
+        assertEquals("test_uuid", captor.getValue().getFileUUID());
+        assertEquals(".png", captor.getValue().getFileExtension());
+        assertFalse(captor.getValue().getNextAttemptAt().isAfter(LocalDateTime.now()));
+        verifyNoInteractions(blobStore);
+    }
+
+    @Test
+    public void deleteScheduledFiles() {
+        FileDeletion deletion = getFileDeletion();
+        when(deletionsRepository.findDueIds(any(), any())).thenReturn(List.of(1L));
+        when(deletionsRepository.lockById(1L)).thenReturn(Optional.of(deletion));
+        assertEquals(1, filesDeletionsService.deleteScheduledFiles());
+        verify(blobStore).delete(Path.of("chats_images"), "test_uuid", ".png");
+        verify(deletionsRepository).delete(deletion);
+    }
+
+    @Test
+    public void deleteScheduledFilesWhenDeletionIsLocked() {
+        when(deletionsRepository.findDueIds(any(), any())).thenReturn(List.of(1L));
+        when(deletionsRepository.lockById(1L)).thenReturn(Optional.empty());
+        assertEquals(0, filesDeletionsService.deleteScheduledFiles());
+        verifyNoInteractions(blobStore);
+    }
+
+    @Test
+    public void deleteScheduledFilesWhenDeletionFailed() {
+        FileDeletion deletion = getFileDeletion();
+        when(deletionsRepository.findDueIds(any(), any())).thenReturn(List.of(1L));
+        when(deletionsRepository.lockById(1L)).thenReturn(Optional.of(deletion));
+        when(deletionsRepository.findById(1L)).thenReturn(Optional.of(deletion));
+        doThrow(new FileException("Error deleting file")).when(blobStore).delete(any(), any(), any());
+        assertEquals(0, filesDeletionsService.deleteScheduledFiles());
+        assertEquals(1, deletion.getAttempts());
+        assertTrue(deletion.getNextAttemptAt().isAfter(LocalDateTime.now()));
+        verify(deletionsRepository).save(deletion);
+        verify(deletionsRepository, never()).delete(any());
+    }
+
+    @Test
+    public void deleteScheduledFilesWhenAttemptsExhausted() {
+        FileDeletion deletion = getFileDeletion();
+        deletion.setAttempts(9);
+        when(deletionsRepository.findDueIds(any(), any())).thenReturn(List.of(1L));
+        when(deletionsRepository.lockById(1L)).thenReturn(Optional.of(deletion));
+        when(deletionsRepository.findById(1L)).thenReturn(Optional.of(deletion));
+        doThrow(new FileException("Error deleting file")).when(blobStore).delete(any(), any(), any());
+        filesDeletionsService.deleteScheduledFiles();
+        verify(deletionsRepository).delete(deletion);
+    }
+
+    private static FileDeletion getFileDeletion() {
+        FileDeletion deletion = new FileDeletion();
+        deletion.setId(1L);
+        deletion.setFilesPath(Path.of("chats_images").toString());
+        deletion.setFileUUID("test_uuid");
+        deletion.setFileExtension(".png");
+        deletion.setCreatedAt(LocalDateTime.now());
+        deletion.setNextAttemptAt(deletion.getCreatedAt());
+        return deletion;
+    }
+}
@@ -0,0 +1,151 @@
+package danix.app.messenger_service;
+
+import danix.app.messenger_service.dto.ResponseFileDTO;
+import danix.app.messenger_service.util.FileException;
+import danix.app.messenger_service.util.FilesResponseBuilder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FilesResponseBuilderTest {
+
+    private final FilesResponseBuilder filesResponseBuilder = new FilesResponseBuilder();
+
+    private final String uuid = UUID.randomUUID().toString();
+
+    @TempDir
+    private Path rootPath;
+
+    private Path file;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        file = Files.createDirectories(rootPath.resolve("chats_videos")).resolve(uuid + ".mp4");
+        Files.writeString(file, "test video");
+        ReflectionTestUtils.setField(filesResponseBuilder, "servingMode", FilesResponseBuilder.ServingMode.DIRECT);
+        ReflectionTestUtils.setField(filesResponseBuilder, "filesRootPath", rootPath.toString());
+        ReflectionTestUtils.setField(filesResponseBuilder, "filesInternalLocation", "/protected_files/");
+    }
+
+    @Test
+    public void build() {
+        ResponseEntity<?> response = filesResponseBuilder.build(getFile(), getRequest(null));
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"" + uuid + "\"", response.getHeaders().getETag());
+        assertEquals("video/mp4", response.getHeaders().getContentType().toString());
+        assertTrue(response.getHeaders().getCacheControl().contains("immutable"));
+        assertInstanceOf(FileSystemResource.class, response.getBody());
+    }
+
+    @Test
+    public void buildWhenETagMatches() {
+        ResponseEntity<?> response = filesResponseBuilder.build(getFile(), getRequest("\"" + uuid + "\""));
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    public void buildAvatar() {
+        ResponseEntity<?> response = filesResponseBuilder.buildAvatar(getFile(), getRequest(null));
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("\"" + uuid + "\"", response.getHeaders().getETag());
+        assertTrue(response.getHeaders().getCacheControl().contains("no-cache"));
+        assertFalse(response.getHeaders().getCacheControl().contains("immutable"));
+        assertFalse(response.getHeaders().getCacheControl().contains("max-age"));
+    }
+
+    @Test
+    public void buildAvatarWhenETagMatches() {
+        ResponseEntity<?> response = filesResponseBuilder.buildAvatar(getFile(), getRequest("\"" + uuid + "\""));
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertTrue(response.getHeaders().getCacheControl().contains("no-cache"));
+    }
+
+    @Test
+    public void buildWhenFileNotFound() {
+        ResponseFileDTO fileDTO = new ResponseFileDTO(uuid, rootPath.resolve("not_found.mp4"),
+                MediaType.parseMediaType("video/mp4"));
+        assertThrows(FileException.class, () -> filesResponseBuilder.build(fileDTO, getRequest(null)));
+    }
+
+    @Test
+    public void buildWhenServingModeIsXAccelRedirect() {
+        ReflectionTestUtils.setField(filesResponseBuilder, "servingMode", FilesResponseBuilder.ServingMode.X_ACCEL_REDIRECT);
+        ResponseEntity<?> response = filesResponseBuilder.build(getFile(), getRequest(null));
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals("/protected_files/chats_videos/" + uuid + ".mp4",
+                response.getHeaders().getFirst("X-Accel-Redirect"));
+        assertEquals("\"" + uuid + "\"", response.getHeaders().getETag());
+        assertNull(response.getBody());
+    }
+
+    @Test
+    public void buildWhenServingModeIsXSendfile() {
+        ReflectionTestUtils.setField(filesResponseBuilder, "servingMode", FilesResponseBuilder.ServingMode.X_SENDFILE);
+        ResponseEntity<?> response = filesResponseBuilder.build(getFile(), getRequest(null));
+        assertEquals(file.toAbsolutePath().toString(), response.getHeaders().getFirst("X-Sendfile"));
+        assertNull(response.getBody());
+    }
+
+    @Test
+    public void buildWhenFileOutsideOfRootPath() {
+        ReflectionTestUtils.setField(filesResponseBuilder, "servingMode", FilesResponseBuilder.ServingMode.X_ACCEL_REDIRECT);
+        ReflectionTestUtils.setField(filesResponseBuilder, "filesRootPath", rootPath.resolve("chats_images").toString());
+        assertThrows(FileException.class, () -> filesResponseBuilder.build(getFile(), getRequest(null)));
+    }
+
+    @Test
+    public void buildWhenPreviewExists() throws IOException {
+        Path image = Files.createDirectories(rootPath.resolve("chats_images")).resolve(uuid + ".png");
+        Files.write(image, new byte[]{1});
+        Files.write(image.resolveSibling(uuid + "_128.png"), new byte[]{1});
+        ResponseEntity<?> response = filesResponseBuilder.build(new ResponseFileDTO(uuid, image, MediaType.IMAGE_PNG),
+                128, getRequest(null));
+        assertEquals("\"" + uuid + "_128\"", response.getHeaders().getETag());
+        assertEquals(image.resolveSibling(uuid + "_128.png").toFile(),
+                ((FileSystemResource) response.getBody()).getFile());
+    }
+
+    @Test
+    public void buildWhenPreviewNotCreated() throws IOException {
+        Path image = Files.createDirectories(rootPath.resolve("chats_images")).resolve(uuid + ".png");
+        Files.write(image, new byte[]{1});
+        ResponseEntity<?> response = filesResponseBuilder.build(new ResponseFileDTO(uuid, image, MediaType.IMAGE_PNG),
+                512, getRequest(null));
+        assertEquals("\"" + uuid + "\"", response.getHeaders().getETag());
+        assertTrue(response.getHeaders().getCacheControl().contains("no-cache"));
+    }
+
+    @Test
+    public void buildWhenPreviewSizeIsUnsupported() {
+        assertThrows(FileException.class, () -> filesResponseBuilder.build(getFile(), 100, getRequest(null)));
+    }
+
+    private ResponseFileDTO getFile() {
+        return new ResponseFileDTO(uuid, file, MediaType.parseMediaType("video/mp4"));
+    }
+
+    private ServletWebRequest getRequest(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/chats/message/1/file");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
@@ -4,15 +4,21 @@ import danix.app.messenger_service.dto.*;
 import danix.app.messenger_service.models.*;
 import danix.app.messenger_service.repositories.*;
 import danix.app.messenger_service.security.UserDetailsImpl;
+import danix.app.messenger_service.services.BulkDeletionService;
 import danix.app.messenger_service.services.GroupsService;
 import danix.app.messenger_service.services.UserService;
 import danix.app.messenger_service.util.GroupException;
+import danix.app.messenger_service.util.JobException;
+import danix.app.messenger_service.util.TeardownExecutor;
+import danix.app.messenger_service.util.TeardownJob;
+import danix.app.messenger_service.util.BlobStore;
 import org.apache.zookeeper.Op;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Value;
@@ -21,10 +27,11 @@ import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
 import util.TestUtils;
 
+import java.nio.file.Path;
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -75,6 +82,15 @@ public class GroupServiceTest {
     @Mock
     private Authentication authentication;
 
+    @Mock
+    private BlobStore blobStore;
+
+    @Mock
+    private BulkDeletionService bulkDeletionService;
+
+    @Spy
+    private TeardownExecutor teardownExecutor = new TeardownExecutor(1, 10);
+
     @InjectMocks
     private GroupsService groupsService;
 
@@ -395,10 +411,10 @@ public class GroupServiceTest {
         when(authentication.getPrincipal()).thenReturn(new UserDetailsImpl(currentUser));
         when(groupsRepository.findById(testGroup.getId())).thenReturn(Optional.of(testGroup));
         when(groupsUsersRepository.findByGroupAndUser(testGroup, currentUser)).thenReturn(Optional.of(new GroupUser()));
-        when(messagesRepository.findAllByGroupAndContentTypeIsNot(eq(testGroup), eq(ContentType.TEXT), any()))
-                .thenReturn(Collections.emptyList());
-        CompletableFuture<Void> future = groupsService.leaveGroup(testGroup.getId());
-        future.join();
+        TeardownJob job = groupsService.leaveGroup(testGroup.getId());
+        job.getCompletion().join();
+        assertEquals(TeardownJob.Status.COMPLETED, job.getStatus());
+        verify(bulkDeletionService).deleteGroupMessages(testGroup.getId(), job);
         verify(groupsRepository).deleteById(testGroup.getId());
         verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/group/" + testGroup.getWebSocketUUID()),
                 any(ResponseDeletionGroupDTO.class));
@@ -544,15 +560,46 @@ public class GroupServiceTest {
         SecurityContextHolder.setContext(securityContext);
         when(securityContext.getAuthentication()).thenReturn(authentication);
         when(authentication.getPrincipal()).thenReturn(new UserDetailsImpl(currentUser));
-        when(messagesRepository.findAllByGroupAndContentTypeIsNot(eq(testGroup), eq(ContentType.TEXT), any()))
-                .thenReturn(Collections.emptyList());
-        CompletableFuture<Void> future = groupsService.deleteGroup(testGroup.getId());
-        future.join();
+        TeardownJob job = groupsService.deleteGroup(testGroup.getId());
+        job.getCompletion().join();
+        assertEquals(TeardownJob.Status.COMPLETED, job.getStatus());
+        verify(bulkDeletionService).deleteGroupMessages(testGroup.getId(), job);
         verify(groupsRepository).deleteById(testGroup.getId());
         verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/group/" + testGroup.getWebSocketUUID()),
                 any(ResponseDeletionGroupDTO.class));
     }
 
+    @Test
+    public void deleteGroupShouldDeleteAvatarInsideJob() {
+        ReflectionTestUtils.setField(groupsService, "AVATARS_PATH", "avatars");
+        ReflectionTestUtils.setField(groupsService, "DEFAULT_IMAGE_UUID", "default");
+        testGroup.setOwner(currentUser);
+        testGroup.setImage("avatar");
+        when(groupsRepository.findById(testGroup.getId())).thenReturn(Optional.of(testGroup));
+        SecurityContextHolder.setContext(securityContext);
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn(new UserDetailsImpl(currentUser));
+        TeardownJob job = groupsService.deleteGroup(testGroup.getId());
+        job.getCompletion().join();
+        assertEquals(TeardownJob.Status.COMPLETED, job.getStatus());
+        verify(blobStore).delete(Path.of("avatars"), "avatar");
+    }
+
+    @Test
+    public void deleteGroupWhenTeardownQueueIsFullShouldKeepAvatar() {
+        testGroup.setOwner(currentUser);
+        testGroup.setImage("avatar");
+        when(groupsRepository.findById(testGroup.getId())).thenReturn(Optional.of(testGroup));
+        SecurityContextHolder.setContext(securityContext);
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn(new UserDetailsImpl(currentUser));
+        doThrow(new JobException("Too many deletions are in progress")).when(teardownExecutor)
+                .submit(eq(TeardownJob.Type.GROUP), eq((long) testGroup.getId()), eq(currentUser.getId()), any());
+        assertThrows(JobException.class, () -> groupsService.deleteGroup(testGroup.getId()));
+        verify(blobStore, never()).delete(any(), any());
+        verify(groupsRepository, never()).deleteById(anyInt());
+    }
+
     @Test
     public void deleteGroupWhenCurrentUserNotOwner() {
         User testOwner = new User();
@@ -1,14 +1,25 @@
 package danix.app.messenger_service;
 
+import danix.app.messenger_service.dto.ResponseFileDTO;
+import danix.app.messenger_service.dto.ResponseGroupActionMessageDTO;
 import danix.app.messenger_service.dto.ResponseGroupMessageDTO;
+import danix.app.messenger_service.dto.ResponseGroupMessagesDTO;
 import danix.app.messenger_service.dto.ResponseMessageUpdatingDTO;
+import danix.app.messenger_service.dto.ResponseUnreadCountDTO;
 import danix.app.messenger_service.dto.ResponseUserDTO;
 import danix.app.messenger_service.models.*;
+import danix.app.messenger_service.repositories.GroupsActionsMessagesRepository;
 import danix.app.messenger_service.repositories.GroupsMessagesRepository;
+import danix.app.messenger_service.repositories.GroupsUsersRepository;
+import danix.app.messenger_service.security.MediaUrlSigner;
 import danix.app.messenger_service.security.UserDetailsImpl;
 import danix.app.messenger_service.services.GroupsMessagesService;
 import danix.app.messenger_service.services.GroupsService;
+import danix.app.messenger_service.services.FilesDeletionsService;
+import danix.app.messenger_service.services.UnreadCountersService;
 import danix.app.messenger_service.util.MessageException;
+import danix.app.messenger_service.util.BlobStore;
+import org.hibernate.LazyInitializationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -16,12 +27,18 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.modelmapper.ModelMapper;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
 import util.TestUtils;
 
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -55,14 +72,32 @@ public class GroupsMessagesServiceTest {
     @Mock
     private GroupsMessagesRepository messagesRepository;
 
+    @Mock
+    private MediaUrlSigner mediaUrlSigner;
+
+    @Mock
+    private BlobStore blobStore;
+
+    @Mock
+    private FilesDeletionsService filesDeletionsService;
+
+    @Mock
+    private GroupsUsersRepository groupsUsersRepository;
+
+    @Mock
+    private GroupsActionsMessagesRepository actionsMessagesRepository;
+
+    @Mock
+    private UnreadCountersService unreadCountersService;
+
     @InjectMocks
     private GroupsMessagesService groupsMessagesService;
 
     @BeforeEach
     public void setUp() {
         SecurityContextHolder.setContext(securityContext);
-        when(securityContext.getAuthentication()).thenReturn(authentication);
-        when(authentication.getPrincipal()).thenReturn(new UserDetailsImpl(currentUser));
+        lenient().when(securityContext.getAuthentication()).thenReturn(authentication);
+        lenient().when(authentication.getPrincipal()).thenReturn(new UserDetailsImpl(currentUser));
     }
 
     @Test
@@ -73,6 +108,7 @@ public class GroupsMessagesServiceTest {
         when(modelMapper.map(currentUser, ResponseUserDTO.class)).thenReturn(new ResponseUserDTO());
         groupsMessagesService.sendTextMessage("test message", testGroup.getId());
         verify(messagesRepository, times(1)).save(any(GroupMessage.class));
+        verify(unreadCountersService, times(1)).changeGroupUnreadCounts(eq(testGroup), eq(currentUser), anyLong(), eq(1));
         verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/group/" + testGroup.getWebSocketUUID()),
                 any(ResponseGroupMessageDTO.class));
     }
@@ -84,6 +120,7 @@ public class GroupsMessagesServiceTest {
         when(groupsService.getGroupUser(testGroup, currentUser)).thenReturn(new GroupUser());
         groupsMessagesService.deleteMessage(testMessage.getId());
         verify(messagesRepository, times(1)).delete(testMessage);
+        verify(unreadCountersService, times(1)).changeGroupUnreadCounts(testGroup, currentUser, testMessage.getId(), -1);
         verify(messagingTemplate, times(1)).convertAndSend(eq("/topic/group/" + testGroup.getWebSocketUUID()),
                 any(Map.class));
     }
@@ -164,6 +201,118 @@ public class GroupsMessagesServiceTest {
         }
     }
 
+    @Test
+    public void getMessagesShouldReturnNextCursorWhenPageIsFull() {
+        when(groupsService.getById(testGroup.getId())).thenReturn(testGroup);
+        GroupUser groupUser = new GroupUser();
+        groupUser.setId(3);
+        when(groupsService.getGroupUser(testGroup, currentUser)).thenReturn(groupUser);
+        GroupMessage newerMessage = getGroupMessage();
+        newerMessage.setId(9);
+        GroupMessage olderMessage = getGroupMessage();
+        olderMessage.setId(7);
+        olderMessage.setMessageOwner(testUser);
+        when(groupsUsersRepository.markRead(3, 7)).thenReturn(4);
+        when(messagesRepository.findAllByGroupBefore(testGroup, Long.MAX_VALUE, PageRequest.of(0, 2)))
+                .thenReturn(List.of(newerMessage, olderMessage));
+        when(modelMapper.map(any(), eq(ResponseGroupMessageDTO.class))).thenAnswer(invocation -> new ResponseGroupMessageDTO());
+        ResponseGroupMessagesDTO messages = groupsMessagesService.getMessages(testGroup.getId(), null, null, 2);
+        assertEquals(2, messages.getMessages().size());
+        assertEquals(7L, messages.getNextCursor());
+        verify(unreadCountersService, times(1)).send(currentUser.getWebSocketUUID(), ResponseUnreadCountDTO.Type.GROUP,
+                testGroup.getId(), 4);
+    }
+
+    @Test
+    public void getMessagesAfterId() {
+        when(groupsService.getById(testGroup.getId())).thenReturn(testGroup);
+        when(groupsService.getGroupUser(testGroup, currentUser)).thenReturn(new GroupUser());
+        when(messagesRepository.findAllByGroupAfter(testGroup, 7L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(getGroupMessage()));
+        when(modelMapper.map(any(), eq(ResponseGroupMessageDTO.class))).thenReturn(new ResponseGroupMessageDTO());
+        ResponseGroupMessagesDTO messages = groupsMessagesService.getMessages(testGroup.getId(), null, 7L, 2);
+        assertEquals(1, messages.getMessages().size());
+        assertNull(messages.getNextCursor());
+        verifyNoInteractions(groupsUsersRepository);
+    }
+
+    @Test
+    public void getMessagesWhenBeforeIdAndAfterIdAreSet() {
+        when(groupsService.getById(testGroup.getId())).thenReturn(testGroup);
+        when(groupsService.getGroupUser(testGroup, currentUser)).thenReturn(new GroupUser());
+        assertThrows(MessageException.class, () -> groupsMessagesService.getMessages(testGroup.getId(), 9L, 7L, 2));
+        verifyNoInteractions(messagesRepository);
+    }
+
+    @Test
+    public void getMessagesShouldNotLoadLazyCollectionsAfterRepositoryReturned() {
+        detachGroup();
+        when(groupsService.getById(testGroup.getId())).thenReturn(testGroup);
+        when(groupsService.getGroupUser(testGroup, currentUser)).thenReturn(new GroupUser());
+        when(messagesRepository.findAllByGroupAfter(testGroup, 7L, PageRequest.of(0, 2)))
+                .thenReturn(List.of(getGroupMessage()));
+        mapWithRealMapper(ResponseGroupMessageDTO.class);
+        mapWithRealMapper(ResponseUserDTO.class);
+        ResponseGroupMessagesDTO messages = groupsMessagesService.getMessages(testGroup.getId(), null, 7L, 2);
+        assertEquals("test message", messages.getMessages().get(0).getText());
+    }
+
+    @Test
+    public void getActionMessagesShouldNotLoadLazyCollectionsAfterRepositoryReturned() {
+        detachGroup();
+        when(groupsService.getById(testGroup.getId())).thenReturn(testGroup);
+        when(actionsMessagesRepository.findAllByGroup(testGroup, PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "id"))))
+                .thenReturn(List.of(new GroupActionMessage("test action", testGroup)));
+        mapWithRealMapper(ResponseGroupActionMessageDTO.class);
+        List<ResponseGroupActionMessageDTO> messages = groupsMessagesService.getActionMessages(testGroup.getId(), 0, 2);
+        assertEquals("test action", messages.get(0).getText());
+    }
+
+    @Test
+    public void getFileShouldNotLoadLazyCollectionsAfterRepositoryReturned() {
+        detachGroup();
+        GroupMessage message = getGroupMessage();
+        message.setContentType(ContentType.IMAGE);
+        message.setFileExtension("png");
+        ReflectionTestUtils.setField(groupsMessagesService, "GROUPS_MESSAGES_IMAGES_PATH", "images");
+        when(messagesRepository.findById(message.getId())).thenReturn(Optional.of(message));
+        ResponseFileDTO file = new ResponseFileDTO("test message", Path.of("images", "test message.png"), null);
+        when(blobStore.download(Path.of("images"), "test message", "png", ContentType.IMAGE)).thenReturn(file);
+        assertSame(file, groupsMessagesService.getFile(message.getId()));
+        verify(groupsService).getGroupUser(testGroup, currentUser);
+    }
+
+    /**
+     * Open-in-view is disabled and these read paths have no service transaction, so entities are detached once
+     * the repository returns. Their lazy collections throw like uninitialized Hibernate collections.
+     */
+    private void detachGroup() {
+        testGroup.setUsers(uninitialized());
+        testGroup.setMessages(uninitialized());
+        testGroup.setActionMessages(uninitialized());
+        currentUser.setGroups(uninitialized());
+        currentUser.setGroupMessages(uninitialized());
+    }
+
+    private static <T> List<T> uninitialized() {
+        return new AbstractList<>() {
+            @Override
+            public T get(int index) {
+                throw new LazyInitializationException("failed to lazily initialize a collection, no session");
+            }
+
+            @Override
+            public int size() {
+                throw new LazyInitializationException("failed to lazily initialize a collection, no session");
+            }
+        };
+    }
+
+    private <T> void mapWithRealMapper(Class<T> type) {
+        ModelMapper realMapper = new ModelMapper();
+        when(modelMapper.map(any(), eq(type))).thenAnswer(invocation -> realMapper.map(invocation.getArgument(0), type));
+    }
+
     private GroupMessage getGroupMessage() {
         GroupMessage testMessage = new GroupMessage();
         testMessage.setId(1);
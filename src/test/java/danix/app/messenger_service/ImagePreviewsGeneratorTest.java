@@ -0,0 +1,92 @@
+package danix.app.messenger_service;
+
+import danix.app.messenger_service.util.ImagePreviewsGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ImagePreviewsGeneratorTest {
+
+    private final ImagePreviewsGenerator previewsGenerator = new ImagePreviewsGenerator(1, 1);
+
+    @TempDir
+    private Path filesPath;
+
+    @AfterEach
+    public void tearDown() {
+        previewsGenerator.shutdown();
+    }
+
+    @Test
+    public void generatePreviewsShouldDownscaleImageKeepingAspectRatio() throws IOException {
+        Path image = writeImage("test.jpg", 1024, 768, "jpg");
+        previewsGenerator.generatePreviews(image);
+        BufferedImage small = ImageIO.read(filesPath.resolve("test_128.jpg").toFile());
+        BufferedImage medium = ImageIO.read(filesPath.resolve("test_512.jpg").toFile());
+        assertEquals(128, small.getWidth());
+        assertEquals(96, small.getHeight());
+        assertEquals(512, medium.getWidth());
+        assertEquals(384, medium.getHeight());
+    }
+
+    @Test
+    public void generatePreviewsShouldSkipSizesLargerThanImage() throws IOException {
+        Path image = writeImage("test.png", 300, 200, "png");
+        previewsGenerator.generatePreviews(image);
+        assertTrue(Files.exists(filesPath.resolve("test_128.png")));
+        assertFalse(Files.exists(filesPath.resolve("test_512.png")));
+    }
+
+    @Test
+    public void generatePreviewsWhenImageIsSubsampled() throws IOException {
+        Path image = writeImage("test.png", 3000, 1500, "png");
+        previewsGenerator.generatePreviews(image);
+        BufferedImage medium = ImageIO.read(filesPath.resolve("test_512.png").toFile());
+        assertEquals(512, medium.getWidth());
+        assertEquals(256, medium.getHeight());
+    }
+
+    @Test
+    public void generatePreviewsShouldSkipImageWithTooLargeDimensions() throws IOException {
+        Path image = writeImage("test.png", 1, 1, "png");
+        byte[] bytes = Files.readAllBytes(image);
+        // IHDR chunk data (width, height, ...) starts at byte 16, its CRC follows 13 bytes of data
+        ByteBuffer header = ByteBuffer.wrap(bytes);
+        header.putInt(16, 50_000);
+        header.putInt(20, 50_000);
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 12, 17);
+        header.putInt(29, (int) crc.getValue());
+        Files.write(image, bytes);
+        assertTrue(bytes.length < 1024);
+        previewsGenerator.generatePreviews(image);
+        assertFalse(Files.exists(filesPath.resolve("test_128.png")));
+        assertFalse(Files.exists(filesPath.resolve("test_512.png")));
+    }
+
+    @Test
+    public void deletePreviewsShouldRemoveAllSizes() throws IOException {
+        Path image = writeImage("test.png", 1024, 1024, "png");
+        previewsGenerator.generatePreviews(image);
+        ImagePreviewsGenerator.deletePreviews(image);
+        assertFalse(Files.exists(filesPath.resolve("test_128.png")));
+        assertFalse(Files.exists(filesPath.resolve("test_512.png")));
+        assertTrue(Files.exists(image));
+    }
+
+    private Path writeImage(String name, int width, int height, String format) throws IOException {
+        Path image = filesPath.resolve(name);
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), format, image.toFile());
+        return image;
+    }
+}
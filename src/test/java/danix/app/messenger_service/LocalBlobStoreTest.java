@@ -0,0 +1,237 @@
+package danix.app.messenger_service;
+
+import danix.app.messenger_service.dto.ResponseFileDTO;
+import danix.app.messenger_service.dto.StoredFileDTO;
+import danix.app.messenger_service.models.ContentType;
+import danix.app.messenger_service.util.FileException;
+import danix.app.messenger_service.util.ImagePreviewsGenerator;
+import danix.app.messenger_service.util.LocalBlobStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class LocalBlobStoreTest {
+
+    private final ImagePreviewsGenerator previewsGenerator = mock(ImagePreviewsGenerator.class);
+
+    private final LocalBlobStore blobStore = new LocalBlobStore(previewsGenerator);
+
+    private final String uuid = UUID.randomUUID().toString();
+
+    @TempDir
+    private Path filesPath;
+
+    @Test
+    public void uploadShouldStoreFileUnderUUIDPrefixDirectories() {
+        StoredFileDTO storedFile = blobStore.upload(filesPath, new MockMultipartFile("file", "test.png", "image/png", new byte[]{1, 2, 3}),
+                uuid, ContentType.IMAGE);
+        assertEquals(new StoredFileDTO(uuid, ".png"), storedFile);
+        assertTrue(Files.exists(shardedPath(".png")));
+        verify(previewsGenerator).generate(shardedPath(".png"));
+    }
+
+    @Test
+    public void uploadShouldThrowExceptionWhenExtensionDoesNotMatchContentType() {
+        assertThrows(FileException.class, () -> blobStore.upload(filesPath,
+                new MockMultipartFile("file", "test.mp4", "video/mp4", new byte[]{1}), uuid, ContentType.IMAGE));
+    }
+
+    @Test
+    public void downloadShouldResolveShardedPath() throws IOException {
+        Files.createDirectories(shardedPath(".jpg").getParent());
+        Files.write(shardedPath(".jpg"), new byte[]{1});
+        ResponseFileDTO response = blobStore.download(filesPath, uuid, ContentType.IMAGE);
+        assertEquals(shardedPath(".jpg"), response.getFile());
+        assertEquals(MediaType.IMAGE_JPEG, response.getType());
+    }
+
+    @Test
+    public void downloadShouldNotProbeFilesystemWhenExtensionIsKnown() {
+        ResponseFileDTO response = blobStore.download(filesPath, uuid, ".png", ContentType.IMAGE);
+        assertEquals(shardedPath(".png"), response.getFile());
+        assertEquals(MediaType.IMAGE_PNG, response.getType());
+    }
+
+    @Test
+    public void deleteShouldRemoveFileWithKnownExtension() throws IOException {
+        Files.createDirectories(shardedPath(".png").getParent());
+        Files.write(shardedPath(".png"), new byte[]{1});
+        Files.write(shardedPath("_128.png"), new byte[]{1});
+        blobStore.delete(filesPath, uuid, ".png");
+        assertFalse(Files.exists(shardedPath(".png")));
+        assertFalse(Files.exists(shardedPath("_128.png")));
+    }
+
+    @Test
+    public void deleteShouldRemoveShardedFile() throws IOException {
+        Files.createDirectories(shardedPath(".mp3").getParent());
+        Files.write(shardedPath(".mp3"), new byte[]{1});
+        blobStore.delete(filesPath, uuid);
+        assertFalse(Files.exists(shardedPath(".mp3")));
+    }
+
+    @Test
+    public void migrateShouldMoveFlatFilesIntoShardedLayout() throws IOException {
+        Files.write(filesPath.resolve(uuid + ".mp4"), new byte[]{1});
+        Files.createFile(filesPath.resolve(".gitkeep"));
+        assertEquals(1, blobStore.migrate(filesPath));
+        assertTrue(Files.exists(shardedPath(".mp4")));
+        assertFalse(Files.exists(filesPath.resolve(uuid + ".mp4")));
+        assertTrue(Files.exists(filesPath.resolve(".gitkeep")));
+    }
+
+    @Test
+    public void migrateShouldNotMoveTemporaryFiles() throws IOException {
+        Files.write(filesPath.resolve(uuid + ".part"), new byte[]{1});
+        Files.write(filesPath.resolve(uuid + "_128.png.tmp"), new byte[]{1});
+        assertEquals(0, blobStore.migrate(filesPath));
+        assertTrue(Files.exists(filesPath.resolve(uuid + ".part")));
+        assertTrue(Files.exists(filesPath.resolve(uuid + "_128.png.tmp")));
+    }
+
+    /**
+     * 10 concurrent uploads of 500 MB streamed like a servlet part stored on another file system.
+     * Previous implementation read every upload into a byte[], 5000 MB of heap for this run.
+     * Run with {@code mvn test -Dtest=LocalBlobStoreTest -Dbenchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    public void uploadBenchmarkWith10Concurrent500MbFiles() throws Exception {
+        int uploads = 10;
+        long size = DataSize.ofMegabytes(500).toBytes();
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        System.gc();
+        long heapBefore = heapPools.stream().mapToLong(pool -> pool.getUsage().getUsed()).sum();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        ExecutorService executor = Executors.newFixedThreadPool(uploads);
+        long start = System.nanoTime();
+        try {
+            List<Future<StoredFileDTO>> results = new ArrayList<>();
+            for (int i = 0; i < uploads; i++) {
+                results.add(executor.submit(() -> blobStore.upload(filesPath, new StreamedMultipartFile("video.mp4", size),
+                        UUID.randomUUID().toString(), ContentType.VIDEO)));
+            }
+            for (Future<StoredFileDTO> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        // Sum of peaks of every pool, an upper bound of the real peak
+        long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        try (Stream<Path> files = Files.walk(filesPath)) {
+            assertEquals(size * uploads, files.filter(Files::isRegularFile).mapToLong(file -> file.toFile().length()).sum());
+        }
+        System.out.printf("%d uploads of %d MB: %.1f s, %.0f MB/s, heap %d MB before, peak %d MB%n", uploads,
+                DataSize.ofBytes(size).toMegabytes(), seconds, size * uploads / 1024.0 / 1024.0 / seconds,
+                DataSize.ofBytes(heapBefore).toMegabytes(), DataSize.ofBytes(peakHeap).toMegabytes());
+        assertTrue(peakHeap - heapBefore < size, "Heap grew by more than a single upload");
+    }
+
+    private Path shardedPath(String extension) {
+        return filesPath.resolve(uuid.substring(0, 2)).resolve(uuid.substring(2, 4)).resolve(uuid + extension);
+    }
+
+    private static class StreamedMultipartFile implements MultipartFile {
+        private final String fileName;
+        private final long size;
+
+        private StreamedMultipartFile(String fileName, long size) {
+            this.fileName = fileName;
+            this.size = size;
+        }
+
+        @Override
+        public String getName() {
+            return "file";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return fileName;
+        }
+
+        @Override
+        public String getContentType() {
+            return "video/mp4";
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return size;
+        }
+
+        @Override
+        public byte[] getBytes() {
+            throw new UnsupportedOperationException("Upload must be streamed");
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new InputStream() {
+                private long remaining = size;
+
+                @Override
+                public int read() {
+                    if (remaining == 0) {
+                        return -1;
+                    }
+                    remaining--;
+                    return (int) (remaining & 0xFF);
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    if (remaining == 0) {
+                        return -1;
+                    }
+                    int read = (int) Math.min(len, remaining);
+                    Arrays.fill(b, off, off + read, (byte) remaining);
+                    remaining -= read;
+                    return read;
+                }
+            };
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException {
+            try (InputStream inputStream = getInputStream()) {
+                Files.copy(inputStream, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+}
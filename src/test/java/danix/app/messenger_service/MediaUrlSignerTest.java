@@ -0,0 +1,65 @@
+package danix.app.messenger_service;
+
+import danix.app.messenger_service.models.ContentType;
+import danix.app.messenger_service.models.MediaBucket;
+import danix.app.messenger_service.security.MediaUrlSigner;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.util.UriComponents;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MediaUrlSignerTest {
+
+    private final MediaUrlSigner mediaUrlSigner = new MediaUrlSigner("test_secret", 60);
+
+    private final String uuid = UUID.randomUUID().toString();
+
+    private final String fileName = uuid + ".jpg";
+
+    @Test
+    public void signedUrlIsValid() {
+        UriComponents url = UriComponentsBuilder.fromUriString(
+                mediaUrlSigner.sign(MediaBucket.CHATS, uuid, ".jpg", ContentType.IMAGE)).build();
+        assertEquals("/media/CHATS/" + fileName, url.getPath());
+        assertEquals("IMAGE", url.getQueryParams().getFirst("type"));
+        long expires = Long.parseLong(url.getQueryParams().getFirst("expires"));
+        assertTrue(expires > Instant.now().getEpochSecond());
+        assertTrue(mediaUrlSigner.isValid(MediaBucket.CHATS, fileName, ContentType.IMAGE, expires,
+                url.getQueryParams().getFirst("signature")));
+    }
+
+    @Test
+    public void signedUrlIsInvalidWhenParametersChanged() {
+        UriComponents url = UriComponentsBuilder.fromUriString(
+                mediaUrlSigner.sign(MediaBucket.CHATS, uuid, ".jpg", ContentType.IMAGE)).build();
+        long expires = Long.parseLong(url.getQueryParams().getFirst("expires"));
+        String signature = url.getQueryParams().getFirst("signature");
+        assertFalse(mediaUrlSigner.isValid(MediaBucket.GROUPS, fileName, ContentType.IMAGE, expires, signature));
+        assertFalse(mediaUrlSigner.isValid(MediaBucket.CHATS, UUID.randomUUID() + ".jpg", ContentType.IMAGE,
+                expires, signature));
+        assertFalse(mediaUrlSigner.isValid(MediaBucket.CHATS, uuid + ".png", ContentType.IMAGE, expires, signature));
+        assertFalse(mediaUrlSigner.isValid(MediaBucket.CHATS, fileName, ContentType.VIDEO, expires, signature));
+        assertFalse(mediaUrlSigner.isValid(MediaBucket.CHATS, fileName, ContentType.IMAGE, expires + 1, signature));
+        assertFalse(mediaUrlSigner.isValid(MediaBucket.CHATS, fileName, ContentType.IMAGE, expires, null));
+    }
+
+    @Test
+    public void signedUrlIsInvalidWhenExpired() {
+        MediaUrlSigner mediaUrlSigner = new MediaUrlSigner("test_secret", 1);
+        UriComponents url = UriComponentsBuilder.fromUriString(
+                mediaUrlSigner.sign(MediaBucket.CHATS, uuid, ".jpg", ContentType.IMAGE)).build();
+        String signature = url.getQueryParams().getFirst("signature");
+        long expired = Instant.now().getEpochSecond() - 1;
+        assertFalse(mediaUrlSigner.isValid(MediaBucket.CHATS, fileName, ContentType.IMAGE, expired, signature));
+    }
+
+    @Test
+    public void createWhenTtlIsNotPositive() {
+        assertThrows(IllegalArgumentException.class, () -> new MediaUrlSigner("test_secret", 0));
+        assertThrows(IllegalArgumentException.class, () -> new MediaUrlSigner("test_secret", -1));
+    }
+}
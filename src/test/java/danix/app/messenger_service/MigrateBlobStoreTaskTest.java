@@ -0,0 +1,64 @@
+package danix.app.messenger_service;
+
+import danix.app.messenger_service.task.MigrateBlobStoreTask;
+import danix.app.messenger_service.util.ImagePreviewsGenerator;
+import danix.app.messenger_service.util.LocalBlobStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class MigrateBlobStoreTaskTest {
+
+    private final MigrateBlobStoreTask task = new MigrateBlobStoreTask(new LocalBlobStore(mock(ImagePreviewsGenerator.class)));
+
+    private final String uuid = UUID.randomUUID().toString();
+
+    @TempDir
+    private Path rootPath;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(task, "FILES_ROOT_PATH", rootPath.toString());
+        ReflectionTestUtils.setField(task, "FILES_BLOBS_PATH", rootPath.resolve("blobs") + "/");
+        ReflectionTestUtils.setField(task, "UPLOADS_PATH", rootPath.resolve("uploads") + "/");
+        ReflectionTestUtils.setField(task, "QUARANTINE_PATH", rootPath.resolve("quarantine") + "/");
+    }
+
+    @Test
+    public void runShouldSkipUploadsBlobsAndQuarantineDirectories() throws IOException {
+        Path video = write("chats_videos", uuid + ".mp4");
+        Path upload = write("uploads", uuid + ".mp4");
+        Path blob = write("blobs", uuid + ".mp4");
+        Path quarantined = write("quarantine", uuid + ".mp4");
+        task.run(new DefaultApplicationArguments("--migrate-blob-store"));
+        assertFalse(Files.exists(video));
+        assertTrue(Files.exists(video.resolveSibling(uuid.substring(0, 2)).resolve(uuid.substring(2, 4))
+                .resolve(uuid + ".mp4")));
+        assertTrue(Files.exists(upload));
+        assertTrue(Files.exists(blob));
+        assertTrue(Files.exists(quarantined));
+    }
+
+    @Test
+    public void runWithoutOption() throws IOException {
+        Path video = write("chats_videos", uuid + ".mp4");
+        task.run(new DefaultApplicationArguments());
+        assertTrue(Files.exists(video));
+    }
+
+    private Path write(String directory, String name) throws IOException {
+        Path file = Files.createDirectories(rootPath.resolve(directory)).resolve(name);
+        Files.write(file, new byte[]{1});
+        return file;
+    }
+}
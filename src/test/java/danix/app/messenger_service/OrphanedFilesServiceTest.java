@@ -0,0 +1,146 @@
+package danix.app.messenger_service;
+
+import danix.app.messenger_service.dto.OrphanedFilesReportDTO;
+import danix.app.messenger_service.repositories.*;
+import danix.app.messenger_service.services.OrphanedFilesService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class OrphanedFilesServiceTest {
+
+    private final String referencedUUID = UUID.randomUUID().toString();
+
+    private final String orphanedUUID = UUID.randomUUID().toString();
+
+    @TempDir
+    private Path filesPath;
+
+    @Mock
+    private ChatsMessagesRepository chatsMessagesRepository;
+
+    @Mock
+    private GroupsMessagesRepository groupsMessagesRepository;
+
+    @Mock
+    private ChannelsPostsFilesRepository postsFilesRepository;
+
+    @Mock
+    private ChannelsPostsCommentsRepository commentsRepository;
+
+    @Mock
+    private MediaBlobsRepository blobsRepository;
+
+    @Mock
+    private UploadsRepository uploadsRepository;
+
+    @InjectMocks
+    private OrphanedFilesService orphanedFilesService;
+
+    @BeforeEach
+    public void setUp() {
+        for (String field : List.of("CHATS_IMAGES_PATH", "CHATS_VIDEOS_PATH", "CHATS_AUDIO_PATH",
+                "GROUPS_MESSAGES_IMAGES_PATH", "GROUPS_MESSAGES_VIDEOS_PATH", "GROUPS_MESSAGES_AUDIO_PATH",
+                "POSTS_IMAGES_PATH", "POSTS_VIDEOS_PATH", "POSTS_AUDIO_PATH",
+                "COMMENTS_IMAGES_PATH", "COMMENTS_VIDEOS_PATH", "COMMENTS_AUDIO_PATH")) {
+            ReflectionTestUtils.setField(orphanedFilesService, field, filesPath.resolve(field.toLowerCase()).toString());
+        }
+        ReflectionTestUtils.setField(orphanedFilesService, "FILES_BLOBS_PATH", filesPath.resolve("blobs").toString());
+        ReflectionTestUtils.setField(orphanedFilesService, "UPLOADS_PATH", filesPath.resolve("uploads").toString());
+        ReflectionTestUtils.setField(orphanedFilesService, "QUARANTINE_PATH", filesPath.resolve("quarantine").toString());
+        ReflectionTestUtils.setField(orphanedFilesService, "MODE", OrphanedFilesService.Mode.DELETE);
+        ReflectionTestUtils.setField(orphanedFilesService, "THREADS", 2);
+        ReflectionTestUtils.setField(orphanedFilesService, "RATE_LIMIT", 1000);
+    }
+
+    @Test
+    public void collectShouldDeleteUnreferencedFilesWithPreviews() throws Exception {
+        Path referenced = createFile("chats_images_path", referencedUUID + ".png", 3, true);
+        Path orphaned = createFile("chats_images_path", orphanedUUID + ".png", 5, true);
+        Path orphanedPreview = createFile("chats_images_path", orphanedUUID + "_128.png", 2, true);
+        when(chatsMessagesRepository.findReferencedFiles(any())).thenAnswer(invocation -> {
+            Collection<String> files = invocation.getArgument(0);
+            assertEquals(2, files.size());
+            return List.of(referencedUUID);
+        });
+        OrphanedFilesReportDTO report = orphanedFilesService.collect();
+        assertTrue(Files.exists(referenced));
+        assertFalse(Files.exists(orphaned));
+        assertFalse(Files.exists(orphanedPreview));
+        assertEquals(new OrphanedFilesReportDTO(3, 2, 7, 7), report);
+    }
+
+    @Test
+    public void collectShouldKeepRecentFiles() throws Exception {
+        Path recent = createFile("groups_messages_videos_path", orphanedUUID + ".mp4", 5, false);
+        OrphanedFilesReportDTO report = orphanedFilesService.collect();
+        assertTrue(Files.exists(recent));
+        assertEquals(new OrphanedFilesReportDTO(1, 0, 0, 0), report);
+    }
+
+    @Test
+    public void collectShouldQuarantineUnreferencedFiles() throws Exception {
+        ReflectionTestUtils.setField(orphanedFilesService, "MODE", OrphanedFilesService.Mode.QUARANTINE);
+        Path orphaned = createFile("posts_audio_path", orphanedUUID + ".mp3", 5, true);
+        when(postsFilesRepository.findReferencedFiles(any())).thenReturn(List.of());
+        OrphanedFilesReportDTO report = orphanedFilesService.collect();
+        assertFalse(Files.exists(orphaned));
+        Path quarantined = filesPath.resolve("quarantine").resolve("posts_audio_path")
+                .resolve(orphanedUUID.substring(0, 2)).resolve(orphanedUUID.substring(2, 4))
+                .resolve(orphanedUUID + ".mp3");
+        assertTrue(Files.exists(quarantined));
+        assertEquals(new OrphanedFilesReportDTO(1, 1, 5, 0), report);
+    }
+
+    @Test
+    public void collectShouldDeleteUnreferencedBlobsAndUploads() throws Exception {
+        String hash = "039058c6f2c0cb492c533b0a4d14ef77cc0f78abccced5287d84a1a2011cfb81";
+        Path blob = createFile("blobs", hash + ".png", 3, true);
+        Path blobPreview = createFile("blobs", hash + "_512.png", 1, true);
+        Path tempFile = Files.write(Files.createDirectories(filesPath.resolve("blobs").resolve("tmp"))
+                .resolve("upload1.tmp"), new byte[4]);
+        Files.setLastModifiedTime(tempFile, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+        Path upload = Files.write(Files.createDirectories(filesPath.resolve("uploads")).resolve("upload.part"),
+                new byte[6]);
+        Files.setLastModifiedTime(upload, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+        when(blobsRepository.findReferencedFiles(any())).thenReturn(List.of(hash + ".png"));
+        when(uploadsRepository.findExistingIds(any())).thenReturn(List.of());
+        OrphanedFilesReportDTO report = orphanedFilesService.collect();
+        assertTrue(Files.exists(blob));
+        assertTrue(Files.exists(blobPreview));
+        assertFalse(Files.exists(tempFile));
+        assertFalse(Files.exists(upload));
+        assertEquals(new OrphanedFilesReportDTO(4, 2, 10, 10), report);
+    }
+
+    private Path createFile(String directory, String fileName, int size, boolean old) throws IOException {
+        Path file = filesPath.resolve(directory).resolve(fileName.substring(0, 2)).resolve(fileName.substring(2, 4))
+                .resolve(fileName);
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[size]);
+        if (old) {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+        }
+        return file;
+    }
+}
@@ -0,0 +1,58 @@
+package danix.app.messenger_service;
+
+import danix.app.messenger_service.repositories.ChannelsPostsRepository;
+import danix.app.messenger_service.services.PostsCountersService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class PostsCountersServiceTest {
+
+    @Mock
+    private ChannelsPostsRepository channelsPostsRepository;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @InjectMocks
+    private PostsCountersService postsCountersService;
+
+    @Test
+    public void reconcile() {
+        List<Long> firstBatch = LongStream.rangeClosed(1, 500).boxed().toList();
+        List<Long> secondBatch = List.of(501L, 503L);
+        when(channelsPostsRepository.lockIdsAfter(0, 500)).thenReturn(firstBatch);
+        when(channelsPostsRepository.lockIdsAfter(500, 500)).thenReturn(secondBatch);
+        when(channelsPostsRepository.lockIdsAfter(503, 500)).thenReturn(Collections.emptyList());
+        when(channelsPostsRepository.reconcileCounters(firstBatch)).thenReturn(3);
+        when(channelsPostsRepository.reconcileCounters(secondBatch)).thenReturn(1);
+        assertEquals(4, postsCountersService.reconcile());
+        InOrder inOrder = inOrder(channelsPostsRepository);
+        inOrder.verify(channelsPostsRepository).lockIdsAfter(0, 500);
+        inOrder.verify(channelsPostsRepository).reconcileCounters(firstBatch);
+        inOrder.verify(channelsPostsRepository).lockIdsAfter(500, 500);
+        inOrder.verify(channelsPostsRepository).reconcileCounters(secondBatch);
+        verify(transactionTemplate, times(3)).execute(any());
+    }
+
+    @Test
+    public void reconcileWhenThereAreNoPosts() {
+        when(channelsPostsRepository.lockIdsAfter(0, 500)).thenReturn(Collections.emptyList());
+        assertEquals(0, postsCountersService.reconcile());
+        verify(channelsPostsRepository, never()).reconcileCounters(any());
+    }
+}
@@ -0,0 +1,80 @@
+package danix.app.messenger_service;
+
+import danix.app.messenger_service.util.JobException;
+import danix.app.messenger_service.util.TeardownExecutor;
+import danix.app.messenger_service.util.TeardownJob;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TeardownExecutorTest {
+
+    private final TeardownExecutor teardownExecutor = new TeardownExecutor(1, 1);
+
+    private final CountDownLatch latch = new CountDownLatch(1);
+
+    @AfterEach
+    public void tearDown() {
+        latch.countDown();
+        teardownExecutor.shutdown();
+    }
+
+    @Test
+    public void submitShouldReportProgress() {
+        TeardownJob job = teardownExecutor.submit(TeardownJob.Type.CHANNEL, 1, 2, teardownJob -> {
+            teardownJob.addProcessedRows(50);
+            teardownJob.addDeletedFiles(10);
+        });
+        job.getCompletion().join();
+        assertEquals(TeardownJob.Status.COMPLETED, job.getStatus());
+        assertEquals(50, job.getProcessedRows().get());
+        assertEquals(10, job.getDeletedFiles().get());
+        assertNotNull(job.getFinishedAt());
+        assertSame(job, teardownExecutor.getJob(job.getId()).orElseThrow());
+    }
+
+    @Test
+    public void submitWhenTaskFailed() {
+        TeardownJob job = teardownExecutor.submit(TeardownJob.Type.CHAT, 1, 2, teardownJob -> {
+            throw new IllegalStateException("error");
+        });
+        assertThrows(CompletionException.class, () -> job.getCompletion().join());
+        assertEquals(TeardownJob.Status.FAILED, job.getStatus());
+    }
+
+    @Test
+    public void submitWhenQueueIsFull() {
+        TeardownJob running = teardownExecutor.submit(TeardownJob.Type.GROUP, 1, 2, teardownJob -> await());
+        TeardownJob queued = teardownExecutor.submit(TeardownJob.Type.GROUP, 2, 2, teardownJob -> {});
+        assertThrows(JobException.class,
+                () -> teardownExecutor.submit(TeardownJob.Type.GROUP, 3, 2, teardownJob -> {}));
+        assertEquals(TeardownJob.Status.QUEUED, queued.getStatus());
+        latch.countDown();
+        running.getCompletion().join();
+        queued.getCompletion().join();
+        assertEquals(TeardownJob.Status.COMPLETED, queued.getStatus());
+    }
+
+    @Test
+    public void deleteFinishedJobs() {
+        TeardownJob finished = teardownExecutor.submit(TeardownJob.Type.CHANNEL_POST, 1, 2, teardownJob -> {});
+        finished.getCompletion().join();
+        TeardownJob running = teardownExecutor.submit(TeardownJob.Type.CHANNEL_POST, 2, 2, teardownJob -> await());
+        teardownExecutor.deleteFinishedJobs(LocalDateTime.now().plusMinutes(1));
+        assertTrue(teardownExecutor.getJob(finished.getId()).isEmpty());
+        assertTrue(teardownExecutor.getJob(running.getId()).isPresent());
+    }
+
+    private void await() {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package danix.app.messenger_service;
+
+import danix.app.messenger_service.dto.ResponseUnreadCountDTO;
+import danix.app.messenger_service.models.Chat;
+import danix.app.messenger_service.models.Group;
+import danix.app.messenger_service.models.User;
+import danix.app.messenger_service.repositories.ChatsRepository;
+import danix.app.messenger_service.repositories.GroupsUsersRepository;
+import danix.app.messenger_service.repositories.UnreadCountProjection;
+import danix.app.messenger_service.repositories.UserUnreadCountProjection;
+import danix.app.messenger_service.security.UserDetailsImpl;
+import danix.app.messenger_service.services.UnreadCountersService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import util.TestUtils;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UnreadCountersServiceTest {
+
+    private final User currentUser = TestUtils.getTestCurrentUser();
+
+    private final User testUser = TestUtils.getTestUser();
+
+    @Mock
+    private ChatsRepository chatsRepository;
+
+    @Mock
+    private GroupsUsersRepository groupsUsersRepository;
+
+    @Mock
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Mock
+    private SecurityContext securityContext;
+
+    @Mock
+    private Authentication authentication;
+
+    @InjectMocks
+    private UnreadCountersService unreadCountersService;
+
+    @Test
+    public void getUnreadCounts() {
+        SecurityContextHolder.setContext(securityContext);
+        when(securityContext.getAuthentication()).thenReturn(authentication);
+        when(authentication.getPrincipal()).thenReturn(new UserDetailsImpl(currentUser));
+        when(chatsRepository.findUnreadCounts(currentUser.getId())).thenReturn(List.of(unreadCount(1, 3)));
+        when(groupsUsersRepository.findUnreadCounts(currentUser.getId()))
+                .thenReturn(List.of(unreadCount(1, 10), unreadCount(2, 1)));
+        List<ResponseUnreadCountDTO> counts = unreadCountersService.getUnreadCounts();
+        assertEquals(3, counts.size());
+        assertEquals(ResponseUnreadCountDTO.Type.CHAT, counts.get(0).getType());
+        assertEquals(3, counts.get(0).getUnreadCount());
+        assertEquals(ResponseUnreadCountDTO.Type.GROUP, counts.get(1).getType());
+        assertEquals(10, counts.get(1).getUnreadCount());
+    }
+
+    @Test
+    public void changeChatUnreadCount() {
+        Chat chat = new Chat(currentUser, testUser, UUID.randomUUID().toString());
+        when(chatsRepository.changeUnreadCount(chat.getId(), testUser.getId(), 5, 1)).thenReturn(2);
+        unreadCountersService.changeChatUnreadCount(chat, testUser, 5, 1);
+        ArgumentCaptor<ResponseUnreadCountDTO> captor = ArgumentCaptor.forClass(ResponseUnreadCountDTO.class);
+        verify(messagingTemplate).convertAndSend(eq("/topic/user/" + testUser.getWebSocketUUID() + "/main"),
+                captor.capture());
+        assertEquals(2, captor.getValue().getUnreadCount());
+    }
+
+    @Test
+    public void changeChatUnreadCountWhenMessageIsRead() {
+        Chat chat = new Chat(currentUser, testUser, UUID.randomUUID().toString());
+        when(chatsRepository.changeUnreadCount(chat.getId(), testUser.getId(), 5, -1)).thenReturn(null);
+        unreadCountersService.changeChatUnreadCount(chat, testUser, 5, -1);
+        verifyNoInteractions(messagingTemplate);
+    }
+
+    @Test
+    public void changeGroupUnreadCountsShouldSendCountToEveryChangedUser() {
+        Group group = TestUtils.getTestGroup();
+        when(groupsUsersRepository.changeUnreadCounts(group.getId(), currentUser.getId(), 7, 1))
+                .thenReturn(List.of(userUnreadCount("uuid1", 1), userUnreadCount("uuid2", 4)));
+        unreadCountersService.changeGroupUnreadCounts(group, currentUser, 7, 1);
+        verify(messagingTemplate).convertAndSend(eq("/topic/user/uuid1/main"), any(ResponseUnreadCountDTO.class));
+        verify(messagingTemplate).convertAndSend(eq("/topic/user/uuid2/main"), any(ResponseUnreadCountDTO.class));
+        verifyNoMoreInteractions(messagingTemplate);
+    }
+
+    private static UnreadCountProjection unreadCount(int id, int count) {
+        return new UnreadCountProjection() {
+            @Override
+            public int getId() {
+                return id;
+            }
+
+            @Override
+            public int getUnreadCount() {
+                return count;
+            }
+        };
+    }
+
+    private static UserUnreadCountProjection userUnreadCount(String webSocketUUID, int count) {
+        return new UserUnreadCountProjection() {
+            @Override
+            public String getWebSocketUUID() {
+                return webSocketUUID;
+            }
+
+            @Override
+            public int getUnreadCount() {
+                return count;
+            }
+        };
+    }
+}
@@ -0,0 +1,232 @@
+package danix.app.messenger_service;
+
+import danix.app.messenger_service.dto.CreateUploadDTO;
+import danix.app.messenger_service.dto.ResponseUploadDTO;
+import danix.app.messenger_service.models.ContentType;
+import danix.app.messenger_service.models.Upload;
+import danix.app.messenger_service.models.User;
+import danix.app.messenger_service.repositories.UploadsRepository;
+import danix.app.messenger_service.security.UserDetailsImpl;
+import danix.app.messenger_service.services.ChannelsPostsService;
+import danix.app.messenger_service.services.ChatsMessagesService;
+import danix.app.messenger_service.services.GroupsMessagesService;
+import danix.app.messenger_service.services.UploadsService;
+import danix.app.messenger_service.util.FileException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+import util.ConnectionPoolTransactionTemplate;
+import util.TestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class UploadsServiceTest {
+
+    private final User currentUser = TestUtils.getTestCurrentUser();
+
+    @TempDir
+    private Path uploadsPath;
+
+    @Mock
+    private SecurityContext securityContext;
+
+    @Mock
+    private Authentication authentication;
+
+    @Mock
+    private UploadsRepository uploadsRepository;
+
+    @Mock
+    private ChatsMessagesService chatsMessagesService;
+
+    @Mock
+    private GroupsMessagesService groupsMessagesService;
+
+    @Mock
+    private ChannelsPostsService channelsPostsService;
+
+    @Spy
+    private ConnectionPoolTransactionTemplate transactionTemplate = new ConnectionPoolTransactionTemplate(1);
+
+    @InjectMocks
+    private UploadsService uploadsService;
+
+    @BeforeEach
+    public void setUp() {
+        ReflectionTestUtils.setField(uploadsService, "UPLOADS_PATH", uploadsPath.toString());
+        ReflectionTestUtils.setField(uploadsService, "MAX_FILE_SIZE", DataSize.ofBytes(10));
+        SecurityContextHolder.setContext(securityContext);
+        lenient().when(securityContext.getAuthentication()).thenReturn(authentication);
+        lenient().when(authentication.getPrincipal()).thenReturn(new UserDetailsImpl(currentUser));
+    }
+
+    @Test
+    public void create() {
+        ResponseUploadDTO response = uploadsService.create(getCreateUploadDTO(6L));
+        assertEquals(0, response.getOffset());
+        assertEquals(6, response.getSize());
+        assertTrue(Files.exists(uploadsPath.resolve(response.getId() + ".part")));
+        verify(uploadsRepository).save(any(Upload.class));
+    }
+
+    @Test
+    public void createWhenFileIsTooLarge() {
+        assertThrows(FileException.class, () -> uploadsService.create(getCreateUploadDTO(11L)));
+        verify(uploadsRepository, never()).save(any());
+    }
+
+    @Test
+    public void createWhenExtensionIsUnsupported() {
+        CreateUploadDTO createUploadDTO = getCreateUploadDTO(6L);
+        createUploadDTO.setFileName("video.txt");
+        assertThrows(FileException.class, () -> uploadsService.create(createUploadDTO));
+        verify(uploadsRepository, never()).save(any());
+    }
+
+    @Test
+    public void appendChunksAndFinalize() throws Exception {
+        Upload upload = createUpload();
+        ResponseUploadDTO response = uploadsService.appendChunk(upload.getId(), 0, chunk("abc"));
+        assertEquals(3, response.getOffset());
+        assertEquals(3, uploadsService.getUpload(upload.getId()).getOffset());
+        uploadsService.appendChunk(upload.getId(), 3, chunk("def"));
+        when(uploadsRepository.claim(upload.getId())).thenReturn(1);
+        when(chatsMessagesService.sendFile(any(), eq(1), eq(ContentType.VIDEO))).thenAnswer(invocation -> {
+            MultipartFile file = invocation.getArgument(0);
+            assertEquals("video.mp4", file.getOriginalFilename());
+            assertArrayEquals("abcdef".getBytes(), file.getBytes());
+            return 5L;
+        });
+
+        assertEquals(5L, uploadsService.finalizeUpload(upload.getId()));
+        verify(uploadsRepository).delete(upload);
+        assertFalse(Files.exists(uploadsPath.resolve(upload.getId() + ".part")));
+    }
+
+    @Test
+    public void appendChunkShouldNotHoldConnectionDuringTransfer() throws Exception {
+        Upload upload = createUpload();
+        List<Integer> connectionsInUseOnRead = new ArrayList<>();
+        when(uploadsRepository.findById(upload.getId())).thenAnswer(invocation -> {
+            connectionsInUseOnRead.add(transactionTemplate.getConnectionsInUse());
+            return Optional.of(upload);
+        });
+        List<Integer> connectionsInUseOnTransfer = new ArrayList<>();
+        InputStream slowChunk = new ByteArrayInputStream("abc".getBytes()) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                connectionsInUseOnTransfer.add(transactionTemplate.getConnectionsInUse());
+                return super.read(b, off, len);
+            }
+        };
+        uploadsService.appendChunk(upload.getId(), 0, slowChunk);
+        assertEquals(List.of(1), connectionsInUseOnRead);
+        assertFalse(connectionsInUseOnTransfer.isEmpty());
+        assertTrue(connectionsInUseOnTransfer.stream().allMatch(connections -> connections == 0));
+    }
+
+    @Test
+    public void appendChunkWithInvalidOffset() throws Exception {
+        Upload upload = createUpload();
+        uploadsService.appendChunk(upload.getId(), 0, chunk("abc"));
+        assertThrows(FileException.class, () -> uploadsService.appendChunk(upload.getId(), 0, chunk("abc")));
+        assertEquals(3, Files.size(uploadsPath.resolve(upload.getId() + ".part")));
+    }
+
+    @Test
+    public void appendChunkWhenChunkExceedsUploadSize() throws Exception {
+        Upload upload = createUpload();
+        uploadsService.appendChunk(upload.getId(), 0, chunk("abc"));
+        assertThrows(FileException.class, () -> uploadsService.appendChunk(upload.getId(), 3, chunk("defg")));
+        assertEquals(3, Files.size(uploadsPath.resolve(upload.getId() + ".part")));
+    }
+
+    @Test
+    public void finalizeWhenUploadIsNotCompleted() throws Exception {
+        Upload upload = createUpload();
+        uploadsService.appendChunk(upload.getId(), 0, chunk("abc"));
+        when(uploadsRepository.claim(upload.getId())).thenReturn(1);
+        assertThrows(FileException.class, () -> uploadsService.finalizeUpload(upload.getId()));
+        verify(uploadsRepository).release(upload.getId());
+        verify(chatsMessagesService, never()).sendFile(any(), anyInt(), any());
+        verify(uploadsRepository, never()).delete(any());
+    }
+
+    @Test
+    public void finalizeWhenUploadIsAlreadyBeingFinalized() throws Exception {
+        Upload upload = createUpload();
+        uploadsService.appendChunk(upload.getId(), 0, chunk("abcdef"));
+        when(uploadsRepository.claim(upload.getId())).thenReturn(0);
+        assertThrows(FileException.class, () -> uploadsService.finalizeUpload(upload.getId()));
+        verify(chatsMessagesService, never()).sendFile(any(), anyInt(), any());
+        verify(uploadsRepository, never()).delete(any());
+        assertTrue(Files.exists(uploadsPath.resolve(upload.getId() + ".part")));
+    }
+
+    @Test
+    public void appendChunkWhenUploadIsBeingFinalized() throws Exception {
+        Upload upload = createUpload();
+        upload.setStatus(Upload.Status.FINALIZING);
+        assertThrows(FileException.class, () -> uploadsService.appendChunk(upload.getId(), 0, chunk("abc")));
+        assertEquals(0, Files.size(uploadsPath.resolve(upload.getId() + ".part")));
+    }
+
+    @Test
+    public void appendChunkWhenUserIsNotOwner() throws Exception {
+        Upload upload = createUpload();
+        upload.setOwner(TestUtils.getTestUser());
+        assertThrows(FileException.class, () -> uploadsService.appendChunk(upload.getId(), 0, chunk("abc")));
+    }
+
+    private Upload createUpload() throws Exception {
+        Upload upload = new Upload();
+        upload.setId("test-upload");
+        upload.setOwner(currentUser);
+        upload.setTarget(Upload.Target.CHAT);
+        upload.setTargetId(1);
+        upload.setContentType(ContentType.VIDEO);
+        upload.setFileName("video.mp4");
+        upload.setSize(6);
+        upload.setStatus(Upload.Status.OPEN);
+        Files.createFile(uploadsPath.resolve(upload.getId() + ".part"));
+        when(uploadsRepository.findById(upload.getId())).thenReturn(Optional.of(upload));
+        return upload;
+    }
+
+    private static CreateUploadDTO getCreateUploadDTO(long size) {
+        CreateUploadDTO createUploadDTO = new CreateUploadDTO();
+        createUploadDTO.setTarget(Upload.Target.CHAT);
+        createUploadDTO.setTargetId(1L);
+        createUploadDTO.setContentType(ContentType.VIDEO);
+        createUploadDTO.setFileName("video.mp4");
+        createUploadDTO.setSize(size);
+        return createUploadDTO;
+    }
+
+    private static ByteArrayInputStream chunk(String data) {
+        return new ByteArrayInputStream(data.getBytes());
+    }
+}
@@ -11,6 +11,7 @@ import danix.app.messenger_service.security.UserDetailsImpl;
 import danix.app.messenger_service.services.TokensService;
 import danix.app.messenger_service.services.UserService;
 import danix.app.messenger_service.util.UserException;
+import danix.app.messenger_service.util.BlobStore;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -77,6 +78,9 @@ public class UsersServiceTest {
     @Mock
     private SimpMessagingTemplate messagingTemplate;
 
+    @Mock
+    private BlobStore blobStore;
+
     @InjectMocks
     private UserService userService;
 
@@ -0,0 +1,49 @@
+package util;
+
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs callbacks holding one of a fixed number of connections, like a transaction with a pooled datasource.
+ */
+public class ConnectionPoolTransactionTemplate extends TransactionTemplate {
+    private final Semaphore connections;
+    private final AtomicInteger connectionsInUse = new AtomicInteger();
+    private final AtomicInteger maxConnectionsInUse = new AtomicInteger();
+
+    public ConnectionPoolTransactionTemplate(int poolSize) {
+        connections = new Semaphore(poolSize);
+    }
+
+    @Override
+    public <T> T execute(TransactionCallback<T> action) {
+        try {
+            if (!connections.tryAcquire(1, TimeUnit.SECONDS)) {
+                throw new CannotCreateTransactionException("Connection is not available");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CannotCreateTransactionException("Interrupted while waiting for connection");
+        }
+        maxConnectionsInUse.accumulateAndGet(connectionsInUse.incrementAndGet(), Math::max);
+        try {
+            return action.doInTransaction(null);
+        } finally {
+            connectionsInUse.decrementAndGet();
+            connections.release();
+        }
+    }
+
+    public int getConnectionsInUse() {
+        return connectionsInUse.get();
+    }
+
+    public int getMaxConnectionsInUse() {
+        return maxConnectionsInUse.get();
+    }
+}